@@ -0,0 +1,115 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.benchmark;
+
+import io.jrnd.kafka.connect.connector.JRSourceConnector;
+import io.jrnd.kafka.connect.connector.JRSourceTask;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a JR record into a SourceRecord for each supported value converter: parsing, schema
+ * lookup and Struct conversion. Schemas are inferred once and then found in the schema cache,
+ * as in a running task. Results are per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CreateSourceRecordBenchmark {
+
+    @Param({"FLAT", "WIDE", "NESTED", "ARRAYS"})
+    public RecordShape shape;
+
+    @Param({
+            "org.apache.kafka.connect.storage.StringConverter",
+            "io.confluent.connect.avro.AvroConverter",
+            "io.confluent.connect.json.JsonSchemaConverter",
+            "io.confluent.connect.protobuf.ProtobufConverter"
+    })
+    public String converter;
+
+    private JRSourceTask jrSourceTask;
+    private String record;
+
+    @Setup
+    public void setup() {
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.JR_EXISTING_TEMPLATE, "benchmark");
+        config.put(JRSourceConnector.TOPIC_CONFIG, "benchmark");
+        config.put(JRSourceConnector.POLL_CONFIG, "1000");
+        config.put(JRSourceConnector.OBJECTS_CONFIG, "1");
+        config.put(JRSourceConnector.VALUE_CONVERTER, converter);
+        config.put(JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+
+        jrSourceTask = new JRSourceTask();
+        jrSourceTask.initialize(new EmptyOffsetsContext());
+        jrSourceTask.start(config);
+        record = shape.json(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jrSourceTask.stop();
+    }
+
+    @Benchmark
+    public SourceRecord createSourceRecord() {
+        return jrSourceTask.createSourceRecord(null, record);
+    }
+
+    /**
+     * Context of a task started for the first time, with no committed offsets.
+     */
+    private static class EmptyOffsetsContext implements SourceTaskContext, OffsetStorageReader {
+
+        @Override
+        public Map<String, String> configs() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public OffsetStorageReader offsetStorageReader() {
+            return this;
+        }
+
+        @Override
+        public <T> Map<String, Object> offset(Map<String, T> partition) {
+            return null;
+        }
+
+        @Override
+        public <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions) {
+            return Collections.emptyMap();
+        }
+    }
+}
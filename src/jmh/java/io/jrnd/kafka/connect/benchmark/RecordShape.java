@@ -0,0 +1,95 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.benchmark;
+
+/**
+ * Record shapes the conversion benchmarks are parameterized with.
+ * <p>
+ * Records are deterministic, so runs on different machines convert the same bytes.
+ */
+public enum RecordShape {
+
+    /** A dozen scalar fields, like most JR templates. */
+    FLAT {
+        @Override
+        public String json(int index) {
+            return "{\"id\":\"" + index + "\",\"name\":\"John Doe\",\"email\":\"john.doe@example.com\",\"age\":" + (20 + index % 50)
+                    + ",\"active\":true,\"score\":" + (index % 1000) + ",\"city\":\"Milan\",\"zip\":\"20100\","
+                    + "\"country\":\"IT\",\"phone\":\"+39 02 1234567\",\"company\":\"ACME\",\"visits\":" + (index % 10) + "}";
+        }
+    },
+
+    /** More than a hundred scalar fields. */
+    WIDE {
+        @Override
+        public String json(int index) {
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < WIDE_FIELDS; i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append("\"field").append(i).append("\":");
+                switch (i % 3) {
+                    case 0 -> sb.append('"').append("value").append(index + i).append('"');
+                    case 1 -> sb.append(index + i);
+                    default -> sb.append(i % 2 == 0);
+                }
+            }
+            return sb.append('}').toString();
+        }
+    },
+
+    /** Objects nested a few levels deep. */
+    NESTED {
+        @Override
+        public String json(int index) {
+            return "{\"id\":\"" + index + "\",\"customer\":{\"name\":\"John Doe\",\"age\":" + (20 + index % 50)
+                    + ",\"address\":{\"street\":\"Via Roma\",\"building\":" + (index % 100) + ",\"city\":\"Milan\","
+                    + "\"geo\":{\"zone\":\"north\",\"sector\":" + (index % 7) + "}}},"
+                    + "\"order\":{\"number\":" + index + ",\"paid\":true,\"shipping\":{\"carrier\":\"DHL\",\"days\":3}}}";
+        }
+    },
+
+    /** Arrays of scalars and of objects. */
+    ARRAYS {
+        @Override
+        public String json(int index) {
+            StringBuilder sb = new StringBuilder("{\"id\":\"").append(index).append("\",\"tags\":[");
+            for (int i = 0; i < ARRAY_LENGTH; i++)
+                sb.append(i > 0 ? "," : "").append("\"tag").append(i).append('"');
+            sb.append("],\"readings\":[");
+            for (int i = 0; i < ARRAY_LENGTH; i++)
+                sb.append(i > 0 ? "," : "").append(index + i);
+            sb.append("],\"lines\":[");
+            for (int i = 0; i < ARRAY_LENGTH; i++)
+                sb.append(i > 0 ? "," : "").append("{\"sku\":\"sku").append(i).append("\",\"quantity\":").append(i + 1).append('}');
+            return sb.append("]}").toString();
+        }
+    };
+
+    static final int WIDE_FIELDS = 120;
+    static final int ARRAY_LENGTH = 20;
+
+    /**
+     * Returns the record with the given index, on a single line.
+     */
+    public abstract String json(int index);
+}
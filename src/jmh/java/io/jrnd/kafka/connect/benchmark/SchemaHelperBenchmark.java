@@ -0,0 +1,96 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.JsonStructReader;
+import io.jrnd.kafka.connect.connector.format.StructHelper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import io.jrnd.kafka.connect.connector.format.jsonschema.JsonSchemaHelper;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Infers the Connect schema of a record with each schema helper, and converts a record to a
+ * Struct, from a parsed tree or from JSON text, without the schema cache in front of them.
+ * Results are per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaHelperBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Param({"FLAT", "WIDE", "NESTED", "ARRAYS"})
+    public RecordShape shape;
+
+    private String json;
+    private JsonNode jsonNode;
+    private Schema schema;
+
+    @Setup
+    public void setup() throws IOException {
+        json = shape.json(0);
+        jsonNode = OBJECT_MAPPER.readTree(json);
+        schema = JsonSchemaHelper.createJsonSchemaFromJson(jsonNode);
+    }
+
+    @Benchmark
+    public Schema avroSchema() {
+        return AvroHelper.convertAvroToConnectSchema(AvroHelper.createAvroSchemaFromJson("benchmarkRecord", jsonNode));
+    }
+
+    @Benchmark
+    public Schema jsonSchema() throws IOException {
+        return JsonSchemaHelper.createJsonSchemaFromJson(jsonNode);
+    }
+
+    @Benchmark
+    public Schema protobufSchema() {
+        return ProtobufHelper.createProtobufSchemaFromJson("benchmark", jsonNode);
+    }
+
+    @Benchmark
+    public Struct struct() {
+        return StructHelper.convertJsonToStruct(schema, jsonNode);
+    }
+
+    @Benchmark
+    public Struct structFromTextTree() throws IOException {
+        return StructHelper.convertJsonToStruct(schema, OBJECT_MAPPER.readTree(json));
+    }
+
+    @Benchmark
+    public Struct structFromTextStreamed() throws IOException {
+        return JsonStructReader.read(schema, json);
+    }
+}
@@ -0,0 +1,131 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector;
+
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the generators assigned to a task from its poll thread.
+ * <p>
+ * Every generator keeps its own pacing. A poll takes the records of every generator whose batch
+ * is due, then parks until the earliest next one, so a task runs any number of generators with
+ * no poll thread blocked on any single generator. {@link #stop()} wakes up a parked poll and
+ * stops the generators.
+ */
+public class GeneratorMultiplexer {
+
+    private static final class Generator {
+        private final String name;
+        private final JRSourceTask task;
+        private long dueAtNanos;
+
+        private Generator(String name, JRSourceTask task) {
+            this.name = name;
+            this.task = task;
+            this.dueAtNanos = System.nanoTime();
+        }
+    }
+
+    private final List<Generator> generators = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeup = lock.newCondition();
+    private volatile boolean stopped = false;
+
+    public void add(String name, JRSourceTask generator) {
+        generators.add(new Generator(name, generator));
+    }
+
+    /**
+     * Polls the generators that are due, parking at most maxWaitMs until one of them is.
+     *
+     * @return the records of all the generators polled, empty if none was due or the multiplexer was stopped
+     */
+    public List<SourceRecord> poll(long maxWaitMs) throws InterruptedException {
+        long waitLimit = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (!stopped) {
+            long now = System.nanoTime();
+            long nextDueNanos = waitLimit;
+            List<SourceRecord> records = new ArrayList<>();
+            for (Generator generator : generators) {
+                if (now >= generator.dueAtNanos) {
+                    records.addAll(generator.task.poll(0L));
+                    generator.dueAtNanos = System.nanoTime() + generator.task.nanosUntilDue();
+                }
+                nextDueNanos = Math.min(nextDueNanos, generator.dueAtNanos);
+            }
+            if (!records.isEmpty())
+                return records;
+            if (System.nanoTime() >= waitLimit)
+                break;
+            park(nextDueNanos);
+        }
+        return Collections.emptyList();
+    }
+
+    public void stop() {
+        stopped = true;
+        lock.lock();
+        try {
+            wakeup.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Generator generator : generators)
+            generator.task.stop();
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public List<String> getGeneratorNames() {
+        List<String> names = new ArrayList<>(generators.size());
+        for (Generator generator : generators)
+            names.add(generator.name);
+        return names;
+    }
+
+    public JRSourceTask getGenerator(String name) {
+        for (Generator generator : generators) {
+            if (generator.name.equals(name))
+                return generator.task;
+        }
+        return null;
+    }
+
+    private void park(long untilNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long waitNanos = untilNanos - System.nanoTime();
+            if (!stopped && waitNanos > 0)
+                wakeup.awaitNanos(waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
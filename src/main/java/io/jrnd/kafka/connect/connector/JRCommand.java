@@ -0,0 +1,206 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import io.jrnd.kafka.connect.connector.format.JsonRecordSplitter;
+import io.jrnd.kafka.connect.connector.model.Template;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Arguments of the JR executable for a template, built once per task.
+ * <p>
+ * JR is started directly, with no shell in between, so templates need no quoting. An embedded
+ * template is written to a temporary file readable by the worker only, and passed with
+ * --templateFileName, so its size isn't limited by the maximum length of a command line.
+ * {@link #close()} deletes the file.
+ */
+public class JRCommand implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JRCommand.class);
+
+    public static final String JR_EXECUTABLE_NAME = "jr";
+    // keyed records are printed as a single {"k":key,"v":value} envelope
+    public static final String JR_OUTPUT_TEMPLATE_FORMAT = "{\"k\":{{.K}},\"v\":{{.V}}}";
+
+    private static final String TEMPLATE_FILE_PREFIX = "jr-template-";
+    private static final String TEMPLATE_FILE_SUFFIX = ".tpl";
+
+    private final List<String> arguments;
+    private final Path templateFile;
+    private final boolean keyed;
+    // runs of a command are sequential, so they share the buffers of one splitter
+    private final JsonRecordSplitter splitter = new JsonRecordSplitter(InputStream.nullInputStream());
+
+    private JRCommand(List<String> arguments, Path templateFile, boolean keyed) {
+        this.arguments = Collections.unmodifiableList(arguments);
+        this.templateFile = templateFile;
+        this.keyed = keyed;
+    }
+
+    public static String executable(String executablePath) {
+        if (executablePath == null || executablePath.isEmpty())
+            return JR_EXECUTABLE_NAME;
+        return executablePath + File.separator + JR_EXECUTABLE_NAME;
+    }
+
+    /**
+     * Builds the arguments of a 'jr run' for templateWrapper.
+     *
+     * @param keyField    field of the keys generated by JR when there's no key template, null for no key
+     * @param keyValueMin lower bound, included, of the keys generated for keyField
+     * @param keyValueMax upper bound, excluded, of the keys generated for keyField
+     */
+    public static JRCommand of(
+            String executablePath,
+            Template templateWrapper,
+            String keyField,
+            int keyValueMin,
+            int keyValueMax) throws IOException {
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add(executable(executablePath));
+        arguments.add("run");
+
+        Path templateFile = null;
+        if (templateWrapper.isEmbedded()) {
+            templateFile = writeTemplateFile(templateWrapper.getTemplate());
+            arguments.add("--templateFileName");
+            arguments.add(templateFile.toString());
+        } else {
+            arguments.add(templateWrapper.getTemplate());
+        }
+
+        boolean keyed = true;
+        // Case: key with embedded template
+        if (templateWrapper.isKeyEmbedded()) {
+            arguments.add("--key");
+            arguments.add(templateWrapper.getKeyTemplate());
+        }
+        // Case: key field and no key embedded template
+        else if (keyField != null && !keyField.isEmpty()) {
+            arguments.add("--key");
+            // a key range not starting from 0 is used when keys are sharded across tasks
+            if (keyValueMin > 0)
+                arguments.add("{\"" + keyField + "\":{{integer " + keyValueMin + " " + (keyValueMax - 1) + "}}}");
+            else
+                arguments.add("{{key \"{\\\"" + keyField + "\\\":\" " + keyValueMax + "}}}");
+        }
+        // Case: no key field and no key embedded template
+        else {
+            keyed = false;
+        }
+
+        if (keyed) {
+            arguments.add("--outputTemplate");
+            arguments.add(JR_OUTPUT_TEMPLATE_FORMAT);
+        }
+        return new JRCommand(arguments, templateFile, keyed);
+    }
+
+    /**
+     * Arguments of a run generating objects records.
+     *
+     * @param seed seed of the run, null for a random one
+     */
+    public List<String> run(int objects, Long seed) {
+        List<String> command = new ArrayList<>(arguments.size() + 4);
+        command.addAll(arguments);
+        command.add("-n");
+        command.add(Integer.toString(objects));
+        if (seed != null) {
+            command.add("--seed");
+            command.add(Long.toString(seed));
+        }
+        return command;
+    }
+
+    /**
+     * Arguments of a run generating objects records every frequencyMs milliseconds, until JR is killed.
+     */
+    public List<String> stream(int objects, Long seed, long frequencyMs) {
+        List<String> command = run(objects, seed);
+        command.add("-f");
+        command.add(frequencyMs + "ms");
+        return command;
+    }
+
+    /**
+     * Returns the splitter of this command, reset onto the stdout of a new run.
+     */
+    public JsonRecordSplitter splitter(InputStream stdout) {
+        return splitter.reset(stdout);
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public Path getTemplateFile() {
+        return templateFile;
+    }
+
+    /**
+     * Whether JR prints keyed records, wrapped in a {"k":key,"v":value} envelope.
+     */
+    public boolean isKeyed() {
+        return keyed;
+    }
+
+    @Override
+    public void close() {
+        if (templateFile == null)
+            return;
+        try {
+            Files.deleteIfExists(templateFile);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't delete template file {}:{}", templateFile, e.getMessage());
+        }
+    }
+
+    private static Path writeTemplateFile(String template) throws IOException {
+        Path templateFile;
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            templateFile = Files.createTempFile(TEMPLATE_FILE_PREFIX, TEMPLATE_FILE_SUFFIX,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            templateFile = Files.createTempFile(TEMPLATE_FILE_PREFIX, TEMPLATE_FILE_SUFFIX);
+        }
+        // in case the task is never stopped
+        templateFile.toFile().deleteOnExit();
+        Files.writeString(templateFile, template, StandardCharsets.UTF_8);
+        return templateFile;
+    }
+}
@@ -17,23 +17,22 @@
 
 package io.jrnd.kafka.connect.connector;
 
+import io.jrnd.kafka.connect.connector.format.JsonRecordSplitter;
 import io.jrnd.kafka.connect.connector.model.Template;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class JRCommandExecutor {
 
     private static final Logger LOG = LoggerFactory.getLogger(JRCommandExecutor.class);
 
-    private static final String JR_EXECUTABLE_NAME = "jr";
-    private static final String JR_OUTPUT_TEMPLATE_FORMAT = "'{{.K}}{{.V}}'";
     private static String executablePath;
 
     private JRCommandExecutor() {}
@@ -49,186 +48,178 @@ public class JRCommandExecutor {
 
 
     public List<String> templates() {
-        List<String> templates = new ArrayList<>();
-        
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        StringBuilder commandBuilder = new StringBuilder();
-        if(executablePath != null && !executablePath.isEmpty()) {
-            commandBuilder.append(executablePath).append(File.separator);
-        }
-        commandBuilder.append(JR_EXECUTABLE_NAME);
-        commandBuilder.append(" list");
-        commandBuilder.append(" -n");
-
-        processBuilder.command(
-                CommandInterpeter.getInstance().getCommand(),
-                CommandInterpeter.getInstance().getArguments(),
-                commandBuilder.toString());
-        
+        return templates(JRProcessSupervisor.DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Lists the templates available in JR, killing JR after timeoutMs.
+     *
+     * @return the templates, empty if JR failed
+     */
+    public List<String> templates(long timeoutMs) {
+        List<String> command = List.of(JRCommand.executable(executablePath), "list", "-n");
+
         try {
-            Process process = processBuilder.start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String tmpLine = line.trim();
-                if(!tmpLine.isEmpty() && !containsWhitespace(tmpLine)) {
-                    templates.add(tmpLine);
+            return new JRProcessSupervisor(timeoutMs, 0, 0L, null).run(command, stdout -> {
+                List<String> templates = new ArrayList<>();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stdout));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String tmpLine = line.trim();
+                    if(!tmpLine.isEmpty() && !containsWhitespace(tmpLine)) {
+                        templates.add(tmpLine);
+                    }
                 }
-            }
-            printError(process);
+                return templates;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             if (LOG.isErrorEnabled())
                 LOG.error("templates list failed:{}", e.getMessage());
         }
-        return templates; 
+        return new ArrayList<>();
     }
 
-    public List<String> runTemplate(
+    /**
+     * Builds the JR arguments for a template once, to run it many times.
+     */
+    public JRCommand prepare(
             Template templateWrapper,
-            int objects,
             String keyField,
-            int keyValueLength) {
-
-        ProcessBuilder processBuilder = new ProcessBuilder();
-
-        StringBuilder commandBuilder = new StringBuilder();
-        if(executablePath != null && !executablePath.isEmpty())
-            commandBuilder.append(executablePath).append(File.separator);
-        commandBuilder.append(JR_EXECUTABLE_NAME);
+            int keyValueMin,
+            int keyValueMax) throws IOException {
 
         if (LOG.isDebugEnabled())
             LOG.debug("Evaluate template wrapper - keyEmbedded {} and valueEmbedded {}", templateWrapper.isKeyEmbedded(), templateWrapper.isEmbedded());
 
-        // Case: key with embedded template
-        if(templateWrapper.isKeyEmbedded()) {
-            commandBuilder.append(" run ");
-            commandBuilder.append(templateWrapper.isEmbedded()? "--embedded '" + templateWrapper.getTemplate() + "'":templateWrapper.getTemplate());
-            commandBuilder.append(" --key ' ");
-            commandBuilder.append(templateWrapper.getKeyTemplate());
-            commandBuilder.append(" '");
-            commandBuilder.append(" --outputTemplate ");
-            commandBuilder.append(JR_OUTPUT_TEMPLATE_FORMAT);
-            commandBuilder.append(" -n ");
-            commandBuilder.append(objects);
-        }
-        // Case: no key field and no key embedded template
-        else if(!templateWrapper.isKeyEmbedded() && (keyField == null || keyField.isEmpty())) {
-            commandBuilder.append(" run ");
-            commandBuilder.append(templateWrapper.isEmbedded()? "--embedded '" + templateWrapper.getTemplate() + "'":templateWrapper.getTemplate());
-            commandBuilder.append(" -n ");
-            commandBuilder.append(objects);
-        }
-        // Case: key field and no key embedded template
-        else {
-            commandBuilder.append(" run ");
-            commandBuilder.append(templateWrapper.isEmbedded()? "--embedded '" + templateWrapper.getTemplate() + "'":templateWrapper.getTemplate());
-            commandBuilder.append(" --key '{{key " + "\"{\\\"");
-            commandBuilder.append(keyField);
-            commandBuilder.append("\\\":\" ");
-            commandBuilder.append(keyValueLength);
-            commandBuilder.append("}");
-            commandBuilder.append("}}' --outputTemplate ");
-            commandBuilder.append(JR_OUTPUT_TEMPLATE_FORMAT);
-            commandBuilder.append(" -n ");
-            commandBuilder.append(objects);
-        }
+        return JRCommand.of(executablePath, templateWrapper, keyField, keyValueMin, keyValueMax);
+    }
 
-        if (LOG.isDebugEnabled())
-            LOG.debug("JR command to execute {}", commandBuilder);
+    public List<String> runTemplate(
+            Template templateWrapper,
+            int objects,
+            String keyField,
+            int keyValueLength) {
+        return runTemplate(templateWrapper, objects, keyField, 0, keyValueLength);
+    }
 
-        processBuilder.command(
-                CommandInterpeter.getInstance().getCommand(),
-                CommandInterpeter.getInstance().getArguments(),
-                commandBuilder.toString());
+    public List<String> runTemplate(
+            Template templateWrapper,
+            int objects,
+            String keyField,
+            int keyValueMin,
+            int keyValueMax) {
+        return runTemplate(templateWrapper, objects, keyField, keyValueMin, keyValueMax, JRProcessSupervisor.oneOff());
+    }
 
-        StringBuilder output = null;
-        try {
-            Process process = processBuilder.start();
-            output = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            printError(process);
-        } catch (Exception e) {
+    public List<String> runTemplate(
+            Template templateWrapper,
+            int objects,
+            String keyField,
+            int keyValueMin,
+            int keyValueMax,
+            JRProcessSupervisor supervisor) {
+        try (JRCommand command = prepare(templateWrapper, keyField, keyValueMin, keyValueMax)) {
+            return runTemplate(command, objects, templateWrapper.getSeed(), supervisor);
+        } catch (IOException e) {
             if (LOG.isErrorEnabled())
                 LOG.error("run template failed:{}", e.getMessage());
+            return new ArrayList<>();
         }
-        assert output != null;
-        return splitJsonObjects(output.toString().replaceAll("\\r?\\n", ""));
     }
 
-    private void printError(Process process) throws Exception {
-        int exitVal = process.waitFor();
-        if (exitVal != 0)  {
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            StringBuilder errorOutput = new StringBuilder();
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
-            }
-            if (LOG.isErrorEnabled())
-                LOG.error(JR_EXECUTABLE_NAME + " command failed:{}", errorOutput);
-        }
+    /**
+     * Runs JR under the supervision of a task, which enforces its timeout and retries failed runs.
+     *
+     * @param seed seed of the run, null for a random one
+     * @return the records generated, empty if JR failed
+     */
+    public List<String> runTemplate(
+            JRCommand command,
+            int objects,
+            Long seed,
+            JRProcessSupervisor supervisor) {
+        return runTemplate(command, objects, seed, supervisor, JsonRecordSplitter::next);
     }
 
-    private boolean containsWhitespace(String str) {
-        return str.matches(".*\\s.*");
+    /**
+     * Runs JR like {@link #runTemplate(JRCommand, int, Long, JRProcessSupervisor)}, returning the
+     * records as the UTF-8 bytes JR wrote, never decoded.
+     */
+    public List<byte[]> runTemplateBytes(
+            JRCommand command,
+            int objects,
+            Long seed,
+            JRProcessSupervisor supervisor) {
+        return runTemplate(command, objects, seed, supervisor, JsonRecordSplitter::nextBytes);
+    }
+
+    @FunctionalInterface
+    private interface RecordReader<T> {
+        T next(JsonRecordSplitter splitter) throws IOException;
     }
 
-    private List<String> splitJsonObjects(String jsonString) {
-        List<String> jsonObjects = new ArrayList<>();
-        int braceCount = 0;
-        StringBuilder currentJson = new StringBuilder();
+    private <T> List<T> runTemplate(
+            JRCommand command,
+            int objects,
+            Long seed,
+            JRProcessSupervisor supervisor,
+            RecordReader<T> recordReader) {
+
+        List<String> arguments = command.run(objects, seed);
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("JR command to execute {}", arguments);
 
-        for (char c : jsonString.toCharArray()) {
-            if (c == '{') {
-                if (braceCount == 0 && !currentJson.isEmpty()) {
-                    jsonObjects.add(currentJson.toString());
-                    currentJson.setLength(0);
+        try {
+            return supervisor.run(arguments, stdout -> {
+                List<T> records = new ArrayList<>();
+                JsonRecordSplitter splitter = command.splitter(stdout);
+                T record;
+                while ((record = recordReader.next(splitter)) != null) {
+                    records.add(record);
                 }
-                braceCount++;
-            }
-            if (c == '}') {
-                braceCount--;
-            }
-            currentJson.append(c);
-            if (braceCount == 0 && !currentJson.isEmpty()) {
-                jsonObjects.add(currentJson.toString());
-                currentJson.setLength(0);
-            }
+                return records;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (LOG.isErrorEnabled())
+                LOG.error("run template failed:{}", e.getMessage());
         }
-        jsonObjects.removeAll(Arrays.asList("", " ", null));
-        return jsonObjects;
+        return new ArrayList<>();
     }
 
-    private static class CommandInterpeter {
-        private String command = "bash";
-        private String arguments = "-c";
-
-        private static class CommandInterpeterHelper {
-            private static final CommandInterpeter INSTANCE = new CommandInterpeter();
-        }
+    /**
+     * Runs a JR generating objects records every frequencyMs milliseconds, until it is cancelled
+     * through the supervisor or exits.
+     *
+     * @param started called with the JR process once started
+     * @return what reader read from the stdout of JR
+     */
+    public <T> T streamTemplate(
+            JRCommand command,
+            int objects,
+            Long seed,
+            long frequencyMs,
+            JRProcessSupervisor supervisor,
+            Consumer<Process> started,
+            JRProcessSupervisor.OutputReader<T> reader) throws IOException, InterruptedException {
 
-        public static CommandInterpeter getInstance() {
-            return CommandInterpeterHelper.INSTANCE;
-        }
+        List<String> arguments = command.stream(objects, seed, frequencyMs);
 
-        private CommandInterpeter() {
-            if (System.getProperty("os.name").toLowerCase().contains("win")) {
-                this.command = "cmd.exe";
-                this.arguments = "/c";
-            }
-        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("JR streaming command to execute {}", arguments);
 
-        public String getCommand() {
-            return command;
-        }
+        return supervisor.runStreaming(arguments, frequencyMs, started, reader);
+    }
 
-        public String getArguments() {
-            return arguments;
+    private boolean containsWhitespace(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (Character.isWhitespace(str.charAt(i)))
+                return true;
         }
-
+        return false;
     }
-}
\ No newline at end of file
+}
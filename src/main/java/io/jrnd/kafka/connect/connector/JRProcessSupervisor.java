@@ -0,0 +1,379 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs JR processes for a task.
+ * <p>
+ * stdout is read by the calling thread while stderr is drained on a separate thread, so a JR
+ * writing a lot to stderr can't fill the pipe and block. A watchdog kills the process, with all
+ * its descendants, when a run takes longer than the timeout; failed runs are retried with an
+ * exponential backoff. {@link #stop()} kills the processes in flight and wakes up a pending
+ * backoff, so a hung JR never outlives its task.
+ * <p>
+ * A streaming JR runs until it's cancelled: its stderr is drained the same way, and the watchdog
+ * kills it when it writes nothing for the timeout plus its frequency.
+ */
+public class JRProcessSupervisor {
+
+    public static final long DEFAULT_TIMEOUT_MS = 60000L;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long DEFAULT_RETRY_BACKOFF_MS = 100L;
+
+    static final long MAX_RETRY_BACKOFF_MS = 10000L;
+    static final int MAX_STDERR_LINES = 50;
+
+    private static final Logger LOG = LoggerFactory.getLogger(JRProcessSupervisor.class);
+
+    private static final ScheduledExecutorService WATCHDOG = createWatchdog();
+
+    /**
+     * Reads the stdout of a JR process.
+     */
+    @FunctionalInterface
+    public interface OutputReader<T> {
+        T read(InputStream stdout) throws IOException;
+    }
+
+    private final long timeoutMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final TaskMetrics taskMetrics;
+
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private final Set<Process> cancelled = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+    private volatile boolean stopped = false;
+
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * @param taskMetrics metrics the runs are recorded in, may be null
+     */
+    public JRProcessSupervisor(long timeoutMs, int maxRetries, long retryBackoffMs, TaskMetrics taskMetrics) {
+        this.timeoutMs = timeoutMs;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMs = Math.max(0L, retryBackoffMs);
+        this.taskMetrics = taskMetrics;
+    }
+
+    /**
+     * A supervisor with the default timeout and no retries, for one-off commands.
+     */
+    public static JRProcessSupervisor oneOff() {
+        return new JRProcessSupervisor(DEFAULT_TIMEOUT_MS, 0, 0L, null);
+    }
+
+    /**
+     * Runs command until it exits successfully, retrying failed runs.
+     *
+     * @return what reader read from the stdout of the successful run
+     * @throws IOException when the last run fails, or the supervisor is stopped
+     */
+    public <T> T run(List<String> command, OutputReader<T> reader) throws IOException, InterruptedException {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 0; ; attempt++) {
+            if (stopped)
+                throw new IOException("JR supervisor stopped");
+            try {
+                return runOnce(command, reader);
+            } catch (IOException e) {
+                if (stopped)
+                    throw e;
+                failures.incrementAndGet();
+                if (taskMetrics != null)
+                    taskMetrics.recordJrFailure();
+                if (attempt >= maxRetries)
+                    throw e;
+
+                if (LOG.isWarnEnabled())
+                    LOG.warn("JR run failed, retrying in {} ms:{}", backoffMs, e.getMessage());
+                retries.incrementAndGet();
+                if (taskMetrics != null)
+                    taskMetrics.recordJrRetry();
+                // returns as soon as the supervisor is stopped
+                if (stopLatch.await(backoffMs, TimeUnit.MILLISECONDS))
+                    throw e;
+                backoffMs = Math.min(Math.max(1L, backoffMs * 2), MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    private <T> T runOnce(List<String> command, OutputReader<T> reader) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+
+        long startNanos = System.nanoTime();
+        Process process = processBuilder.start();
+        long spawnedNanos = System.nanoTime();
+        processes.add(process);
+        if (stopped)
+            destroyTree(process);
+
+        Deque<String> stderr = new ArrayDeque<>();
+        Thread stderrPump = pumpStderr(process, stderr);
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            destroyTree(process);
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        try {
+            T result;
+            try (InputStream stdout = process.getInputStream()) {
+                result = reader.read(stdout);
+            }
+            // stdout is closed, but the process may still be running
+            long remainingMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - spawnedNanos);
+            if (!process.waitFor(Math.max(0L, remainingMs), TimeUnit.MILLISECONDS)) {
+                timedOut.set(true);
+                destroyTree(process);
+            }
+            stderrPump.join(1000L);
+
+            if (timedOut.get()) {
+                timeouts.incrementAndGet();
+                if (taskMetrics != null)
+                    taskMetrics.recordJrTimeout();
+                throw new IOException("JR run timed out after " + timeoutMs + " ms");
+            }
+            int exitValue = process.waitFor();
+            if (exitValue != 0)
+                throw new IOException("JR exited with code " + exitValue + ":" + stderrTail(stderr));
+
+            if (taskMetrics != null) {
+                taskMetrics.recordStage(TaskMetrics.Stage.JR_SPAWN, spawnedNanos - startNanos);
+                taskMetrics.recordStage(TaskMetrics.Stage.JR_RUN, System.nanoTime() - spawnedNanos);
+            }
+            return result;
+        } finally {
+            watchdog.cancel(false);
+            destroyTree(process);
+            processes.remove(process);
+        }
+    }
+
+    /**
+     * Runs a streaming command, writing records every frequencyMs milliseconds, until it exits or
+     * is cancelled. A streaming run is not retried, the caller restarts it.
+     *
+     * @param started called with the process as soon as it is started, to {@link #cancel(Process)} it
+     * @return what reader read from stdout
+     * @throws IOException when the process fails, stalls or the supervisor is stopped
+     */
+    public <T> T runStreaming(List<String> command, long frequencyMs, Consumer<Process> started, OutputReader<T> reader) throws IOException, InterruptedException {
+        if (stopped)
+            throw new IOException("JR supervisor stopped");
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+
+        long startNanos = System.nanoTime();
+        Process process = processBuilder.start();
+        long spawnedNanos = System.nanoTime();
+        processes.add(process);
+        if (stopped)
+            destroyTree(process);
+        started.accept(process);
+
+        Deque<String> stderr = new ArrayDeque<>();
+        Thread stderrPump = pumpStderr(process, stderr);
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs + frequencyMs);
+        AtomicLong lastOutputNanos = new AtomicLong(spawnedNanos);
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        long checkMs = Math.max(1L, Math.min(timeoutMs + frequencyMs, 1000L));
+        ScheduledFuture<?> watchdog = WATCHDOG.scheduleWithFixedDelay(() -> {
+            if (System.nanoTime() - lastOutputNanos.get() > stallNanos) {
+                timedOut.set(true);
+                destroyTree(process);
+            }
+        }, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        if (taskMetrics != null)
+            taskMetrics.recordStage(TaskMetrics.Stage.JR_SPAWN, spawnedNanos - startNanos);
+
+        try {
+            T result;
+            try (InputStream stdout = new ProgressInputStream(process.getInputStream(), lastOutputNanos)) {
+                result = reader.read(stdout);
+            }
+            int exitValue = process.waitFor();
+            stderrPump.join(1000L);
+
+            if (stopped || cancelled.contains(process))
+                return result;
+            if (timedOut.get()) {
+                timeouts.incrementAndGet();
+                if (taskMetrics != null)
+                    taskMetrics.recordJrTimeout();
+                throw new IOException("JR streaming process wrote nothing for " + TimeUnit.NANOSECONDS.toMillis(stallNanos) + " ms");
+            }
+            if (exitValue != 0) {
+                failures.incrementAndGet();
+                if (taskMetrics != null)
+                    taskMetrics.recordJrFailure();
+                throw new IOException("JR exited with code " + exitValue + ":" + stderrTail(stderr));
+            }
+            return result;
+        } finally {
+            watchdog.cancel(false);
+            destroyTree(process);
+            processes.remove(process);
+            cancelled.remove(process);
+        }
+    }
+
+    /**
+     * Kills a streaming process on purpose, so its exit isn't counted as a failure.
+     */
+    public void cancel(Process process) {
+        if (processes.contains(process))
+            cancelled.add(process);
+        destroyTree(process);
+    }
+
+    /**
+     * Kills the processes in flight and fails the following runs.
+     */
+    public void stop() {
+        stopped = true;
+        stopLatch.countDown();
+        for (Process process : processes)
+            destroyTree(process);
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    int getProcessCount() {
+        return processes.size();
+    }
+
+    /**
+     * Kills a process and all its descendants, so children JR spawned are cleaned up too.
+     */
+    static void destroyTree(Process process) {
+        if (process.isAlive()) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * stdout of a streaming process, recording when it last wrote something.
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+
+        private final AtomicLong lastOutputNanos;
+
+        private ProgressInputStream(InputStream in, AtomicLong lastOutputNanos) {
+            super(in);
+            this.lastOutputNanos = lastOutputNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                lastOutputNanos.set(System.nanoTime());
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                lastOutputNanos.set(System.nanoTime());
+            return read;
+        }
+    }
+
+    private static Thread pumpStderr(Process process, Deque<String> stderr) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = errorReader.readLine()) != null) {
+                    synchronized (stderr) {
+                        if (stderr.size() == MAX_STDERR_LINES)
+                            stderr.removeFirst();
+                        stderr.addLast(line);
+                    }
+                }
+            } catch (IOException e) {
+                // the stream is closed when the process is killed
+            }
+        }, "jr-stderr-" + process.pid());
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static String stderrTail(Deque<String> stderr) {
+        synchronized (stderr) {
+            return String.join("\n", stderr);
+        }
+    }
+
+    private static ScheduledExecutorService createWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "jr-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+}
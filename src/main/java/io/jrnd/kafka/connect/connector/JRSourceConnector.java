@@ -20,29 +20,28 @@
 
 package io.jrnd.kafka.connect.connector;
 
+import io.jrnd.kafka.connect.connector.engine.JRTemplateEngine;
+import io.jrnd.kafka.connect.connector.format.ConvergedSchemas;
+import io.jrnd.kafka.connect.connector.format.SchemaParser;
+import io.jrnd.kafka.connect.connector.format.registry.RecordEncoder;
 import org.apache.kafka.common.config.AbstractConfig;
+import org.apache.kafka.common.config.Config;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.ConfigValue;
 import org.apache.kafka.connect.connector.Task;
 import org.apache.kafka.connect.source.SourceConnector;
 import org.apache.kafka.connect.storage.StringConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class JRSourceConnector extends SourceConnector {
 
@@ -58,8 +57,45 @@ public class JRSourceConnector extends SourceConnector {
     public static final String KEY_EMBEDDED_TEMPLATE = "key_embedded_template";
     public static final String VALUE_CONVERTER = "value.converter";
     public static final String KEY_CONVERTER = "key.converter";
+    public static final String STREAMING_MODE = "streaming_mode";
+    public static final String SEED_CONFIG = "seed";
+    public static final String RECORDS_PER_SECOND = "records_per_second";
+    public static final String CATCH_UP_POLICY = "catch_up_policy";
+    public static final String TASK_ID = "task_id";
+    public static final String TASK_COUNT = "task_count";
+    public static final String KEY_VALUE_INTERVAL_MIN = "key_value_interval_min";
+    public static final String ENGINE_CONFIG = "engine";
+    public static final String PREFETCH_DEPTH = "prefetch_depth";
+    public static final String PREFETCH_BATCH_SIZE = "prefetch_batch_size";
+    public static final String KEY_DISTRIBUTION = "key_distribution";
+    public static final String KEY_ZIPFIAN_EXPONENT = "key_zipfian_exponent";
+    public static final String KEY_HOT_SET_FRACTION = "key_hot_set_fraction";
+    public static final String KEY_HOT_TRAFFIC_FRACTION = "key_hot_traffic_fraction";
+    public static final String CONNECTOR_NAME = "name";
+    public static final String JR_TIMEOUT_MS = "jr_timeout_ms";
+    public static final String JR_MAX_RETRIES = "jr_max_retries";
+    public static final String JR_RETRY_BACKOFF_MS = "jr_retry_backoff_ms";
+    public static final String TEMPLATE_CACHE_DIR = "template_cache_dir";
+    public static final String TEMPLATE_CACHE_MAX_AGE_MS = "template_cache_max_age_ms";
+    public static final String TEMPLATE_CONNECT_TIMEOUT_MS = "template_connect_timeout_ms";
+    public static final String TEMPLATE_READ_TIMEOUT_MS = "template_read_timeout_ms";
+    public static final String TEMPLATE_HOT_RELOAD = "template_hot_reload";
+    public static final String SCHEMA_INFERENCE = "schema_inference";
+    public static final String SCHEMA_SAMPLE_SIZE = "schema_sample_size";
+    public static final String VALUE_SCHEMA = "value_schema";
+    public static final String KEY_SCHEMA = "key_schema";
+    public static final String VALUE_ENCODING = "value_encoding";
+    public static final String SCHEMA_REGISTRY_URL = "schema_registry_url";
+    public static final String EMBEDDED_TEMPLATE_FILE = "embedded_template_file";
+    public static final String KEY_EMBEDDED_TEMPLATE_FILE = "key_embedded_template_file";
+    public static final String GENERATORS = "generators";
+    public static final String GENERATOR = "generator";
+    public static final String GENERATOR_PREFIX = "generator.";
+    public static final String HOST_TASK_ID = "host_task_id";
 
     private static final String DEFAULT_TEMPLATE = "net_device";
+    private static final String SEED_STREAMING_MODE_ERROR = "'" + SEED_CONFIG + "' can't be used with '" + STREAMING_MODE + "': a long-lived JR process can't replay records.";
+    private static final String BYTE_ARRAY_CONVERTER_CLASS_NAME = "org.apache.kafka.connect.converters.ByteArrayConverter";
 
     private String topic;
     private String template;
@@ -73,11 +109,36 @@ public class JRSourceConnector extends SourceConnector {
     private String jrExecutablePath;
     private String valueConverter;
     private String keyConverter;
+    private Boolean streamingMode;
+    private Long seed;
+    private Double recordsPerSecond;
+    private String catchUpPolicy;
+    private String engine;
+    private Integer prefetchDepth;
+    private Integer prefetchBatchSize;
+    private String keyDistribution;
+    private Double keyZipfianExponent;
+    private Double keyHotSetFraction;
+    private Double keyHotTrafficFraction;
+    private String connectorName;
+    private Long jrTimeoutMs;
+    private Integer jrMaxRetries;
+    private Long jrRetryBackoffMs;
+    private String schemaInference;
+    private Integer schemaSampleSize;
+    private String valueSchema;
+    private String keySchema;
+    private String valueEncoding;
+    // connectors of the generators in 'generators', by name, empty for a single template
+    private Map<String, JRSourceConnector> generators = new LinkedHashMap<>();
+    private String schemaRegistryUrl;
+    private String embeddedTemplateFile;
+    private String keyEmbeddedTemplateFile;
 
     private static final ConfigDef CONFIG_DEF = new ConfigDef()
             .define(JR_EXISTING_TEMPLATE, ConfigDef.Type.STRING, DEFAULT_TEMPLATE, ConfigDef.Importance.HIGH, "A valid JR existing template name.")
             .define(EMBEDDED_TEMPLATE, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, "Location of a file containing a valid custom JR template. This property will take precedence over 'template'.")
-            .define(TOPIC_CONFIG, ConfigDef.Type.LIST, ConfigDef.Importance.HIGH, "Topics to publish data to.")
+            .define(TOPIC_CONFIG, ConfigDef.Type.LIST, null, ConfigDef.Importance.HIGH, "Topics to publish data to.")
             .define(POLL_CONFIG, ConfigDef.Type.LONG, 5000, ConfigDef.Importance.HIGH, "Repeat the creation every 'frequency' milliseconds.")
             .define(DURATION_CONFIG, ConfigDef.Type.LONG, -1, ConfigDef.Importance.MEDIUM, "Set a time bound to the entire object creation. The duration is calculated starting from the first run and is expressed in milliseconds. At least one run will always been scheduled, regardless of the value for duration.ms.")
             .define(OBJECTS_CONFIG, ConfigDef.Type.INT, 1, ConfigDef.Importance.HIGH, "Number of objects to create at every run.")
@@ -85,8 +146,34 @@ public class JRSourceConnector extends SourceConnector {
             .define(KEY_VALUE_INTERVAL_MAX, ConfigDef.Type.INT, 100, ConfigDef.Importance.MEDIUM, "Maximum interval value for key value, for example 150 (0 to key_value_interval_max). Default is 100.")
             .define(KEY_EMBEDDED_TEMPLATE, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, "Location of a file containing a valid custom JR template for key. This property will take precedence over 'key_field_name'.")
             .define(JR_EXECUTABLE_PATH, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, "Location for JR executable on workers.")
-            .define(VALUE_CONVERTER, ConfigDef.Type.STRING, StringConverter.class.getName(), ConfigDef.Importance.MEDIUM, "one between org.apache.kafka.connect.storage.StringConverter, io.confluent.connect.avro.AvroConverter, io.confluent.connect.json.JsonSchemaConverter or io.confluent.connect.protobuf.ProtobufConverter")
-            .define(KEY_CONVERTER, ConfigDef.Type.STRING, StringConverter.class.getName(), ConfigDef.Importance.MEDIUM, "one between org.apache.kafka.connect.storage.StringConverter, io.confluent.connect.avro.AvroConverter, io.confluent.connect.json.JsonSchemaConverter or io.confluent.connect.protobuf.ProtobufConverter");
+            .define(VALUE_CONVERTER, ConfigDef.Type.STRING, StringConverter.class.getName(), ConfigDef.Importance.MEDIUM, "one between org.apache.kafka.connect.storage.StringConverter, org.apache.kafka.connect.converters.ByteArrayConverter, io.confluent.connect.avro.AvroConverter, io.confluent.connect.json.JsonSchemaConverter or io.confluent.connect.protobuf.ProtobufConverter")
+            .define(KEY_CONVERTER, ConfigDef.Type.STRING, StringConverter.class.getName(), ConfigDef.Importance.MEDIUM, "one between org.apache.kafka.connect.storage.StringConverter, org.apache.kafka.connect.converters.ByteArrayConverter, io.confluent.connect.avro.AvroConverter, io.confluent.connect.json.JsonSchemaConverter or io.confluent.connect.protobuf.ProtobufConverter")
+            .define(STREAMING_MODE, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM, "Keep a single long-lived JR process per task, generating 'objects' every 'frequency' milliseconds, instead of running JR at every poll.")
+            .define(SEED_CONFIG, ConfigDef.Type.LONG, null, ConfigDef.Importance.LOW, "Seed for the random generators. Every task derives its own seed from this seed and its task id, and records are generated from their sequence number, so a task restarted from its committed offset generates again the same records. Can't be used with 'streaming_mode'. If not set, a random seed is used.")
+            .define(RECORDS_PER_SECOND, ConfigDef.Type.DOUBLE, null, ConfigDef.Importance.MEDIUM, "Target number of records per second, shared by all tasks. When set, batches of 'objects' records are paced by a token bucket instead of 'frequency'.")
+            .define(CATCH_UP_POLICY, ConfigDef.Type.STRING, "skip", ConfigDef.ValidString.in("skip", "burst"), ConfigDef.Importance.LOW, "What to do with the runs missed when generation overruns 'frequency': 'skip' drops them, 'burst' generates them at once, up to 10 batches.")
+            .define(ENGINE_CONFIG, ConfigDef.Type.STRING, JRTemplateEngine.ENGINE_JR, ConfigDef.ValidString.in(JRTemplateEngine.ENGINE_JR, JRTemplateEngine.ENGINE_JVM), ConfigDef.Importance.MEDIUM, "Engine generating the records: 'jr' runs the JR executable, 'jvm' evaluates embedded templates inside the task and falls back to 'jr' for templates it can't compile.")
+            .define(PREFETCH_DEPTH, ConfigDef.Type.INT, 0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, "Number of records every task generates ahead of poll() on a background thread. 0 disables prefetching.")
+            .define(PREFETCH_BATCH_SIZE, ConfigDef.Type.INT, 1000, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, "Maximum number of prefetched records returned by a single poll().")
+            .define(KEY_DISTRIBUTION, ConfigDef.Type.STRING, "uniform", ConfigDef.ValidString.in("uniform", "sequential", "zipfian", "hotset"), ConfigDef.Importance.MEDIUM, "Distribution of the keys generated for 'key_field_name': one between uniform, sequential, zipfian or hotset.")
+            .define(KEY_ZIPFIAN_EXPONENT, ConfigDef.Type.DOUBLE, KeyGenerator.DEFAULT_ZIPFIAN_EXPONENT, ConfigDef.Range.between(0.01, 0.999), ConfigDef.Importance.LOW, "Skew of the zipfian key distribution, between 0 (almost uniform) and 1 (a few keys get most records).")
+            .define(KEY_HOT_SET_FRACTION, ConfigDef.Type.DOUBLE, KeyGenerator.DEFAULT_HOT_SET_FRACTION, ConfigDef.Range.between(0.0, 1.0), ConfigDef.Importance.LOW, "Fraction of the keys in the hot set, for the hotset key distribution.")
+            .define(KEY_HOT_TRAFFIC_FRACTION, ConfigDef.Type.DOUBLE, KeyGenerator.DEFAULT_HOT_TRAFFIC_FRACTION, ConfigDef.Range.between(0.0, 1.0), ConfigDef.Importance.LOW, "Fraction of the records using a key of the hot set, for the hotset key distribution.")
+            .define(JR_TIMEOUT_MS, ConfigDef.Type.LONG, JRProcessSupervisor.DEFAULT_TIMEOUT_MS, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, "Maximum time in milliseconds a JR run may take. A JR still running after this time is killed, with its child processes, and the run fails.")
+            .define(JR_MAX_RETRIES, ConfigDef.Type.INT, JRProcessSupervisor.DEFAULT_MAX_RETRIES, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, "Number of times a failed or timed out JR run is retried before the batch is dropped.")
+            .define(JR_RETRY_BACKOFF_MS, ConfigDef.Type.LONG, JRProcessSupervisor.DEFAULT_RETRY_BACKOFF_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, "Wait in milliseconds before the first retry of a failed JR run, doubled at every retry.")
+            .define(TEMPLATE_CACHE_DIR, ConfigDef.Type.STRING, TemplateStore.DEFAULT_CACHE_DIR, ConfigDef.Importance.LOW, "Directory where templates downloaded from a URL are cached.")
+            .define(TEMPLATE_CACHE_MAX_AGE_MS, ConfigDef.Type.LONG, TemplateStore.DEFAULT_CACHE_MAX_AGE_MS, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, "Time in milliseconds a cached template is used without checking the URL again. Older templates are checked with a conditional request.")
+            .define(TEMPLATE_CONNECT_TIMEOUT_MS, ConfigDef.Type.INT, TemplateStore.DEFAULT_CONNECT_TIMEOUT_MS, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, "Timeout in milliseconds to connect to a template URL.")
+            .define(TEMPLATE_READ_TIMEOUT_MS, ConfigDef.Type.INT, TemplateStore.DEFAULT_READ_TIMEOUT_MS, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, "Timeout in milliseconds to read a template from a URL. When the URL times out or fails, the cached template is used.")
+            .define(TEMPLATE_HOT_RELOAD, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW, "Watch the files of 'embedded_template' and 'key_embedded_template' and swap changed templates into running tasks, without restarting them. Templates read from a URL are not watched.")
+            .define(SCHEMA_INFERENCE, ConfigDef.Type.STRING, "sampled", ConfigDef.ValidString.in("sampled", "record"), ConfigDef.Importance.LOW, "How schemas are inferred for the Avro, JSON schema and Protobuf converters: 'sampled' converges on one schema over the first 'schema_sample_size' records and widens it only for a record that does not fit, 'record' infers the schema of every record on its own.")
+            .define(SCHEMA_SAMPLE_SIZE, ConfigDef.Type.INT, ConvergedSchemas.DEFAULT_SAMPLE_SIZE, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, "Number of records every task samples to converge on a schema, with 'schema_inference' set to 'sampled'.")
+            .define(VALUE_SCHEMA, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, "Location of a file or URL containing the schema of the values, in the format of 'value.converter': an Avro schema, a JSON schema or a .proto definition. Values are converted against this schema instead of inferring one.")
+            .define(KEY_SCHEMA, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM, "Location of a file or URL containing the schema of the keys generated with 'key_embedded_template', in the format of 'key.converter'.")
+            .define(VALUE_ENCODING, ConfigDef.Type.STRING, RecordEncoder.ENCODING_JSON, ConfigDef.ValidString.in(RecordEncoder.ENCODING_JSON, RecordEncoder.ENCODING_AVRO, RecordEncoder.ENCODING_PROTOBUF), ConfigDef.Importance.LOW, "With 'value.converter' set to org.apache.kafka.connect.converters.ByteArrayConverter, how values are written: 'json' passes the JSON generated by JR through, 'avro' and 'protobuf' encode it in the task in the Schema Registry wire format, registering the schemas in 'schema_registry_url'.")
+            .define(SCHEMA_REGISTRY_URL, ConfigDef.Type.STRING, null, ConfigDef.Importance.LOW, "Comma separated Schema Registry URLs the schemas of 'value_encoding' are registered in, or mock://scope for an in-memory registry.")
+            .define(GENERATORS, ConfigDef.Type.LIST, "", ConfigDef.Importance.MEDIUM, "Names of the generators run by the connector, each with its own template, topic, rate and keys. A generator takes the connector settings, overridden by the ones prefixed with 'generator.<name>.'. Generators are spread across the tasks.");
 
     private static final Logger LOG = LoggerFactory.getLogger(JRSourceConnector.class);
 
@@ -95,26 +182,38 @@ public class JRSourceConnector extends SourceConnector {
 
         AbstractConfig parsedConfig = new AbstractConfig(CONFIG_DEF, map);
 
-        jrExecutablePath = parsedConfig.getString(JR_EXECUTABLE_PATH);
-        JRCommandExecutor jrCommandExecutor = JRCommandExecutor.getInstance(jrExecutablePath);
+        connectorName = map.get(CONNECTOR_NAME);
+
+        List<String> generatorNames = parsedConfig.getList(GENERATORS);
+        if (!generatorNames.isEmpty()) {
+            startGenerators(map, generatorNames);
+            return;
+        }
 
+        jrExecutablePath = parsedConfig.getString(JR_EXECUTABLE_PATH);
         pollMs = parsedConfig.getLong(POLL_CONFIG);
 
-        embeddedTemplate = readTemplate(parsedConfig.getString(EMBEDDED_TEMPLATE));
-        keyEmbeddedTemplate = readTemplate(parsedConfig.getString(KEY_EMBEDDED_TEMPLATE));
+        TemplateStore templateStore = new TemplateStore(
+                Paths.get(parsedConfig.getString(TEMPLATE_CACHE_DIR)),
+                parsedConfig.getInt(TEMPLATE_CONNECT_TIMEOUT_MS),
+                parsedConfig.getInt(TEMPLATE_READ_TIMEOUT_MS),
+                parsedConfig.getLong(TEMPLATE_CACHE_MAX_AGE_MS));
+        embeddedTemplate = readTemplate(templateStore, parsedConfig.getString(EMBEDDED_TEMPLATE));
+        keyEmbeddedTemplate = readTemplate(templateStore, parsedConfig.getString(KEY_EMBEDDED_TEMPLATE));
+        if (parsedConfig.getBoolean(TEMPLATE_HOT_RELOAD)) {
+            embeddedTemplateFile = templateFile(parsedConfig.getString(EMBEDDED_TEMPLATE));
+            keyEmbeddedTemplateFile = templateFile(parsedConfig.getString(KEY_EMBEDDED_TEMPLATE));
+        }
 
         if((embeddedTemplate == null || embeddedTemplate.isEmpty())) {
             template = parsedConfig.getString(JR_EXISTING_TEMPLATE);
             if(template == null || template.isEmpty())
                 template = DEFAULT_TEMPLATE;
 
-            // list of available templates from JR exec
-            List<String> templates = jrCommandExecutor.templates();
-            if(templates.isEmpty())
-                throw new ConfigException("JR template list is empty.");
-            if(!templates.contains(template)) {
-                throw new ConfigException("'template' must be a valid JR template.");
-            }
+            // list of available templates from JR exec, cached for the worker lifetime
+            String templateError = checkTemplate(template, jrExecutablePath);
+            if (templateError != null)
+                throw new ConfigException(templateError);
         }
 
         // Connector supports only one target topic
@@ -145,6 +244,138 @@ public class JRSourceConnector extends SourceConnector {
         keyConverter = parsedConfig.getString(KEY_CONVERTER);
         if(keyConverter == null || keyConverter.isEmpty())
             keyConverter = StringConverter.class.getName();
+
+        valueEncoding = parsedConfig.getString(VALUE_ENCODING);
+        schemaRegistryUrl = parsedConfig.getString(SCHEMA_REGISTRY_URL);
+        String valueSchemaFormat = valueConverter;
+        if (!RecordEncoder.ENCODING_JSON.equals(valueEncoding)) {
+            if (!BYTE_ARRAY_CONVERTER_CLASS_NAME.equals(valueConverter))
+                throw new ConfigException("'" + VALUE_ENCODING + "' requires '" + VALUE_CONVERTER + "' to be " + BYTE_ARRAY_CONVERTER_CLASS_NAME + ".");
+            if (schemaRegistryUrl == null || schemaRegistryUrl.isBlank())
+                throw new ConfigException("'" + VALUE_ENCODING + "' requires '" + SCHEMA_REGISTRY_URL + "'.");
+            // a supplied schema is in the format of the encoding
+            valueSchemaFormat = RecordEncoder.ENCODING_AVRO.equals(valueEncoding)
+                    ? SchemaParser.AVRO_CONVERTER_CLASS_NAME
+                    : SchemaParser.PROTOBUF_CONVERTER_CLASS_NAME;
+        }
+
+        valueSchema = readSchema(templateStore, VALUE_SCHEMA, parsedConfig.getString(VALUE_SCHEMA), valueSchemaFormat);
+        keySchema = readSchema(templateStore, KEY_SCHEMA, parsedConfig.getString(KEY_SCHEMA), keyConverter);
+
+        streamingMode = parsedConfig.getBoolean(STREAMING_MODE);
+
+        seed = parsedConfig.getLong(SEED_CONFIG);
+        if (seed != null && streamingMode)
+            throw new ConfigException(SEED_STREAMING_MODE_ERROR);
+
+        recordsPerSecond = parsedConfig.getDouble(RECORDS_PER_SECOND);
+        if(recordsPerSecond != null && recordsPerSecond <= 0)
+            recordsPerSecond = null;
+
+        catchUpPolicy = parsedConfig.getString(CATCH_UP_POLICY);
+
+        engine = parsedConfig.getString(ENGINE_CONFIG);
+
+        prefetchDepth = parsedConfig.getInt(PREFETCH_DEPTH);
+        prefetchBatchSize = parsedConfig.getInt(PREFETCH_BATCH_SIZE);
+
+        keyDistribution = parsedConfig.getString(KEY_DISTRIBUTION);
+        keyZipfianExponent = parsedConfig.getDouble(KEY_ZIPFIAN_EXPONENT);
+        keyHotSetFraction = parsedConfig.getDouble(KEY_HOT_SET_FRACTION);
+        keyHotTrafficFraction = parsedConfig.getDouble(KEY_HOT_TRAFFIC_FRACTION);
+
+        jrTimeoutMs = parsedConfig.getLong(JR_TIMEOUT_MS);
+        jrMaxRetries = parsedConfig.getInt(JR_MAX_RETRIES);
+        jrRetryBackoffMs = parsedConfig.getLong(JR_RETRY_BACKOFF_MS);
+
+        schemaInference = parsedConfig.getString(SCHEMA_INFERENCE);
+        schemaSampleSize = parsedConfig.getInt(SCHEMA_SAMPLE_SIZE);
+    }
+
+    /**
+     * Starts a connector for every generator on its own settings, so a generator is checked and
+     * its templates and schemas are read as for a connector with a single template.
+     */
+    private void startGenerators(Map<String, String> map, List<String> generatorNames) {
+        generators = new LinkedHashMap<>();
+        for (String name : generatorNames) {
+            if (name.isEmpty() || name.contains("."))
+                throw new ConfigException("Invalid generator name '" + name + "' in '" + GENERATORS + "': names can't be empty or contain a dot.");
+            if (generators.containsKey(name))
+                throw new ConfigException("Generator '" + name + "' is listed more than once in '" + GENERATORS + "'.");
+            JRSourceConnector generator = new JRSourceConnector();
+            try {
+                generator.start(generatorConfig(map, name));
+            } catch (ConfigException e) {
+                throw new ConfigException("Generator '" + name + "': " + e.getMessage());
+            }
+            generators.put(name, generator);
+        }
+    }
+
+    /**
+     * @return the connector settings, without the generators, overridden by the ones prefixed with 'generator.&lt;name&gt;.'
+     */
+    static Map<String, String> generatorConfig(Map<String, String> map, String name) {
+        String prefix = GENERATOR_PREFIX + name + ".";
+        Map<String, String> config = new HashMap<>();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (!entry.getKey().startsWith(GENERATOR_PREFIX) && !GENERATORS.equals(entry.getKey()))
+                config.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (entry.getKey().startsWith(prefix))
+                config.put(entry.getKey().substring(prefix.length()), entry.getValue());
+        }
+        return config;
+    }
+
+    /**
+     * Validates the configuration, checking that 'template' exists in JR and that there's a
+     * single topic. JR isn't run when an embedded template is set.
+     */
+    @Override
+    public Config validate(Map<String, String> connectorConfigs) {
+        Config config = super.validate(connectorConfigs);
+        Map<String, ConfigValue> configValues = new HashMap<>();
+        for (ConfigValue configValue : config.configValues())
+            configValues.put(configValue.name(), configValue);
+
+        // generators are checked when the connector starts, each on its own settings
+        ConfigValue generatorsValue = configValues.get(GENERATORS);
+        boolean multiplexed = generatorsValue.value() != null && !((List<?>) generatorsValue.value()).isEmpty();
+
+        ConfigValue templateValue = configValues.get(JR_EXISTING_TEMPLATE);
+        ConfigValue embeddedTemplateValue = configValues.get(EMBEDDED_TEMPLATE);
+        ConfigValue jrExecutablePathValue = configValues.get(JR_EXECUTABLE_PATH);
+        boolean embedded = embeddedTemplateValue.value() != null && !((String) embeddedTemplateValue.value()).isEmpty();
+        if (!multiplexed && !embedded && templateValue.errorMessages().isEmpty() && jrExecutablePathValue.errorMessages().isEmpty()) {
+            String template = (String) templateValue.value();
+            String templateError = checkTemplate(template == null || template.isEmpty() ? DEFAULT_TEMPLATE : template, (String) jrExecutablePathValue.value());
+            if (templateError != null)
+                templateValue.addErrorMessage(templateError);
+        }
+
+        ConfigValue topicValue = configValues.get(TOPIC_CONFIG);
+        if (!multiplexed && topicValue.errorMessages().isEmpty() && (topicValue.value() == null || ((List<?>) topicValue.value()).size() != 1))
+            topicValue.addErrorMessage("'topic' configuration requires definition of a single topic.");
+
+        ConfigValue seedValue = configValues.get(SEED_CONFIG);
+        if (seedValue.value() != null && Boolean.TRUE.equals(configValues.get(STREAMING_MODE).value()))
+            seedValue.addErrorMessage(SEED_STREAMING_MODE_ERROR);
+        return config;
+    }
+
+    /**
+     * @return why template can't be used, null if it exists in JR
+     */
+    private String checkTemplate(String template, String jrExecutablePath) {
+        List<String> templates = TemplateCatalog.templates(jrExecutablePath, TemplateCatalog.DEFAULT_TIMEOUT_MS);
+        if (templates.isEmpty())
+            return "JR template list is empty.";
+        if (!templates.contains(template))
+            return "'template' must be a valid JR template.";
+        return null;
     }
 
     @Override
@@ -153,29 +384,108 @@ public class JRSourceConnector extends SourceConnector {
     }
 
     @Override
-    public List<Map<String, String>> taskConfigs(int i) {
+    public List<Map<String, String>> taskConfigs(int maxTasks) {
+        if (!generators.isEmpty())
+            return generatorTaskConfigs(maxTasks);
+
+        // every task needs at least one object per run and, when keys are generated from
+        // 'key_field_name', a non-empty key range
+        int taskCount = Math.max(1, Math.min(maxTasks, objects));
+        if (keyField != null && !keyField.isEmpty() && (keyEmbeddedTemplate == null || keyEmbeddedTemplate.isEmpty()))
+            taskCount = Math.min(taskCount, keyValueIntervalMax);
+
         ArrayList<Map<String, String>> configs = new ArrayList<>();
-        Map<String, String> config = new HashMap<>();
-        if(template != null && !template.isEmpty())
-            config.put(JR_EXISTING_TEMPLATE, template);
-        if(embeddedTemplate != null && !embeddedTemplate.isEmpty())
-            config.put(EMBEDDED_TEMPLATE, embeddedTemplate);
-        if(keyEmbeddedTemplate != null && !keyEmbeddedTemplate.isEmpty())
-            config.put(KEY_EMBEDDED_TEMPLATE, keyEmbeddedTemplate);
-        config.put(TOPIC_CONFIG, topic);
-        config.put(POLL_CONFIG, String.valueOf(pollMs));
-        if(durationMs != null)
-            config.put(DURATION_CONFIG, String.valueOf(durationMs));
-        config.put(OBJECTS_CONFIG, String.valueOf(objects));
-        if(keyField != null && !keyField.isEmpty())
-            config.put(KEY_FIELD, keyField);
-        if(keyValueIntervalMax != null)
-            config.put(KEY_VALUE_INTERVAL_MAX, String.valueOf(keyValueIntervalMax));
-        if(jrExecutablePath != null && !jrExecutablePath.isEmpty())
-            config.put(JR_EXECUTABLE_PATH, jrExecutablePath);
-        config.put(VALUE_CONVERTER, valueConverter);
-        config.put(KEY_CONVERTER, keyConverter);
-        configs.add(config);
+        for (int taskId = 0; taskId < taskCount; taskId++) {
+            Map<String, String> config = new HashMap<>();
+            if(template != null && !template.isEmpty())
+                config.put(JR_EXISTING_TEMPLATE, template);
+            if(embeddedTemplate != null && !embeddedTemplate.isEmpty())
+                config.put(EMBEDDED_TEMPLATE, embeddedTemplate);
+            if(keyEmbeddedTemplate != null && !keyEmbeddedTemplate.isEmpty())
+                config.put(KEY_EMBEDDED_TEMPLATE, keyEmbeddedTemplate);
+            config.put(TOPIC_CONFIG, topic);
+            config.put(POLL_CONFIG, String.valueOf(pollMs));
+            if(durationMs != null)
+                config.put(DURATION_CONFIG, String.valueOf(durationMs));
+            config.put(OBJECTS_CONFIG, String.valueOf(objects / taskCount + (taskId < objects % taskCount ? 1 : 0)));
+            if(keyField != null && !keyField.isEmpty())
+                config.put(KEY_FIELD, keyField);
+            if(keyValueIntervalMax != null) {
+                // disjoint key range for every task
+                config.put(KEY_VALUE_INTERVAL_MIN, String.valueOf((long) taskId * keyValueIntervalMax / taskCount));
+                config.put(KEY_VALUE_INTERVAL_MAX, String.valueOf((long) (taskId + 1) * keyValueIntervalMax / taskCount));
+            }
+            if(jrExecutablePath != null && !jrExecutablePath.isEmpty())
+                config.put(JR_EXECUTABLE_PATH, jrExecutablePath);
+            config.put(VALUE_CONVERTER, valueConverter);
+            config.put(KEY_CONVERTER, keyConverter);
+            config.put(STREAMING_MODE, String.valueOf(streamingMode));
+            if(seed != null)
+                config.put(SEED_CONFIG, String.valueOf(seed));
+            if(recordsPerSecond != null)
+                config.put(RECORDS_PER_SECOND, String.valueOf(recordsPerSecond / taskCount));
+            config.put(CATCH_UP_POLICY, catchUpPolicy);
+            config.put(ENGINE_CONFIG, engine);
+            config.put(PREFETCH_DEPTH, String.valueOf(prefetchDepth));
+            config.put(PREFETCH_BATCH_SIZE, String.valueOf(prefetchBatchSize));
+            config.put(KEY_DISTRIBUTION, keyDistribution);
+            config.put(KEY_ZIPFIAN_EXPONENT, String.valueOf(keyZipfianExponent));
+            config.put(KEY_HOT_SET_FRACTION, String.valueOf(keyHotSetFraction));
+            config.put(KEY_HOT_TRAFFIC_FRACTION, String.valueOf(keyHotTrafficFraction));
+            config.put(TASK_ID, String.valueOf(taskId));
+            config.put(TASK_COUNT, String.valueOf(taskCount));
+            config.put(JR_TIMEOUT_MS, String.valueOf(jrTimeoutMs));
+            config.put(JR_MAX_RETRIES, String.valueOf(jrMaxRetries));
+            config.put(JR_RETRY_BACKOFF_MS, String.valueOf(jrRetryBackoffMs));
+            config.put(SCHEMA_INFERENCE, schemaInference);
+            config.put(SCHEMA_SAMPLE_SIZE, String.valueOf(schemaSampleSize));
+            if (valueSchema != null)
+                config.put(VALUE_SCHEMA, valueSchema);
+            if (keySchema != null)
+                config.put(KEY_SCHEMA, keySchema);
+            config.put(VALUE_ENCODING, valueEncoding);
+            if (schemaRegistryUrl != null)
+                config.put(SCHEMA_REGISTRY_URL, schemaRegistryUrl);
+            if (connectorName != null)
+                config.put(CONNECTOR_NAME, connectorName);
+            if (embeddedTemplateFile != null)
+                config.put(EMBEDDED_TEMPLATE_FILE, embeddedTemplateFile);
+            if (keyEmbeddedTemplateFile != null)
+                config.put(KEY_EMBEDDED_TEMPLATE_FILE, keyEmbeddedTemplateFile);
+            configs.add(config);
+        }
+        return configs;
+    }
+
+    /**
+     * Assigns the generators round-robin to at most maxTasks tasks. A generator runs whole in one
+     * task, with the settings of a single task prefixed with 'generator.&lt;name&gt;.'. Every
+     * generator derives its seed from its name, so generators sharing a seed aren't in lockstep.
+     */
+    private List<Map<String, String>> generatorTaskConfigs(int maxTasks) {
+        int taskCount = Math.max(1, Math.min(maxTasks, generators.size()));
+        List<Map<String, String>> configs = new ArrayList<>(taskCount);
+        for (int taskId = 0; taskId < taskCount; taskId++) {
+            Map<String, String> config = new HashMap<>();
+            config.put(TASK_ID, String.valueOf(taskId));
+            config.put(TASK_COUNT, String.valueOf(taskCount));
+            if (connectorName != null)
+                config.put(CONNECTOR_NAME, connectorName);
+            configs.add(config);
+        }
+
+        int index = 0;
+        for (Map.Entry<String, JRSourceConnector> generator : generators.entrySet()) {
+            String name = generator.getKey();
+            Map<String, String> config = configs.get(index++ % taskCount);
+            Map<String, String> generatorConfig = generator.getValue().taskConfigs(1).get(0);
+            Long generatorSeed = generator.getValue().getSeed();
+            if (generatorSeed != null)
+                generatorConfig.put(SEED_CONFIG, String.valueOf(Seeds.mix(generatorSeed, name.hashCode())));
+            for (Map.Entry<String, String> entry : generatorConfig.entrySet())
+                config.put(GENERATOR_PREFIX + name + "." + entry.getKey(), entry.getValue());
+            config.merge(GENERATORS, name, (names, added) -> names + "," + added);
+        }
         return configs;
     }
 
@@ -192,41 +502,13 @@ public class JRSourceConnector extends SourceConnector {
         return null;
     }
 
-    private String readFileToString(String filePath) throws IOException {
-        Path path = Paths.get(filePath);
-        return Files.readString(path);
-    }
-
-    private String readURLToString(String urlString) throws Exception {
-        StringBuilder content = new StringBuilder();
-
-        URL url = new URL(urlString);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine).append("\n");
-        }
-        in.close();
-
-        return content.toString();
-    }
-
-    private String readTemplate(String templateFileLocation) {
+    private String readTemplate(TemplateStore templateStore, String templateFileLocation) {
         String result = null;
         if (templateFileLocation != null && !templateFileLocation.isEmpty()) {
             try {
-                // Case read from a URL
-                if(isValidURL(templateFileLocation)) {
-                    result = readURLToString(templateFileLocation);
-                }
-                // Case read from a file
-                else {
-                    result = readFileToString(templateFileLocation);
-                }
-                result = result.replaceAll("[\\n\\r]", "");
+                // read from a URL, through the cache, or from a file
+                result = templateStore.read(templateFileLocation);
+                result = TemplateStore.toSingleLine(result);
             } catch (Exception e) {
                 if (LOG.isErrorEnabled())
                     LOG.error("can't read template from external location: {}", e.getMessage());
@@ -236,11 +518,34 @@ public class JRSourceConnector extends SourceConnector {
         return result;
     }
 
-    private boolean isValidURL(String url) {
-        String regex = "^(http|https)://[^\\s/$.?#].[^\\s]*$";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(url);
-        return matcher.matches();
+    /**
+     * Reads a schema and checks that the converter can use it. Tasks get the schema itself, as
+     * they get embedded templates.
+     */
+    private String readSchema(TemplateStore templateStore, String name, String schemaLocation, String converter) {
+        if (schemaLocation == null || schemaLocation.isEmpty())
+            return null;
+        String schema;
+        try {
+            schema = templateStore.read(schemaLocation);
+        } catch (IOException e) {
+            throw new ConfigException("Can't read '" + name + "' from " + schemaLocation + ": " + e.getMessage());
+        }
+        try {
+            SchemaParser.parse(converter, schema);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException("Invalid '" + name + "': " + e.getMessage());
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the location of a template if it's a file tasks can watch, null otherwise.
+     */
+    private String templateFile(String templateLocation) {
+        if (templateLocation == null || templateLocation.isEmpty() || TemplateStore.isURL(templateLocation))
+            return null;
+        return templateLocation;
     }
 
     public Integer getObjects() {
@@ -270,4 +575,32 @@ public class JRSourceConnector extends SourceConnector {
     public String getJrExecutablePath() {
         return jrExecutablePath;
     }
+
+    public Boolean getStreamingMode() {
+        return streamingMode;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public Double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public String getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    public Map<String, JRSourceConnector> getGenerators() {
+        return generators;
+    }
+
+    public Integer getPrefetchDepth() {
+        return prefetchDepth;
+    }
 }
\ No newline at end of file
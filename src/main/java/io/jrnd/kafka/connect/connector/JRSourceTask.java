@@ -20,30 +20,47 @@
 
 package io.jrnd.kafka.connect.connector;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jrnd.kafka.connect.connector.engine.JRTemplateEngine;
+import io.jrnd.kafka.connect.connector.format.ConvergedSchemas;
+import io.jrnd.kafka.connect.connector.format.InferredType;
 import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroRecordEncoder;
+import io.jrnd.kafka.connect.connector.format.SchemaCache;
+import io.jrnd.kafka.connect.connector.format.SchemaParser;
 import io.jrnd.kafka.connect.connector.format.StructHelper;
 import io.jrnd.kafka.connect.connector.format.jsonschema.JsonSchemaHelper;
 import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufRecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.RecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.SchemaRegistry;
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
 import io.jrnd.kafka.connect.connector.model.Template;
-import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.storage.StringConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class JRSourceTask extends SourceTask {
 
     private String template;
-    private String embeddedTemplate;
+    private volatile String embeddedTemplate;
     private String topic;
     private Long pollMs;
     private Long startTimeMs;
@@ -52,20 +69,67 @@ public class JRSourceTask extends SourceTask {
     private Integer objects;
     private String keyField;
     private Integer keyValueIntervalMax;
-    private String keyEmbeddedTemplate;
-    private Long last_execution = 0L;
+    private volatile String keyEmbeddedTemplate;
     private Long apiOffset = 0L;
     private String fromDate = "1970-01-01T00:00:00.0000000Z";
     private String jrExecutablePath;
     private String valueConverter;
+    // format the value schemas are inferred or parsed in: the value converter, or the encoding
+    private String valueFormat;
+    private RecordEncoder<?> valueEncoder;
     private String keyConverter;
+    private boolean streamingMode;
+    private boolean rawBytes;
+    private boolean readBytes;
+    private volatile JRStreamingProcess streamingProcess;
+    private int taskId = 0;
+    private Integer keyValueIntervalMin = 0;
+    private Long seed;
+    private Map<String, Object> sourcePartition;
+    private Double recordsPerSecond;
+    private String catchUpPolicy;
+    private PollScheduler scheduler;
+    private String engine;
+    private volatile JRTemplateEngine templateEngine;
+    private Integer prefetchDepth = 0;
+    private Integer prefetchBatchSize = 1000;
+    private RecordPrefetcher prefetcher;
+    private KeyGenerator keyGenerator;
+    private long sequence = 0L;
+    // boundary of a seeded chunk JR returned short, the sequence resumes from there
+    private long nextChunkSequence = -1L;
+    private TaskMetrics taskMetrics;
+    private JRProcessSupervisor supervisor;
+    private volatile JRCommand jrCommand;
+    private String embeddedTemplateFile;
+    private String keyEmbeddedTemplateFile;
+    private TemplateWatcher templateWatcher;
+    private ConvergedSchemas convergedSchemas;
+    private Schema valueSchema;
+    private Schema keySchema;
+    private String generator;
+    private GeneratorMultiplexer multiplexer;
+    // batches are generated under the read lock, templates are swapped under the write lock
+    private final ReentrantReadWriteLock generationLock = new ReentrantReadWriteLock();
 
     private static final String TEMPLATE = "template";
     private static final String POSITION = "position";
+    private static final String SEQUENCE = "sequence";
+    private static final String TASK = "task";
+    private static final String GENERATOR = "generator";
+    private static final String KEY_SCHEMA_NAME = "recordkey";
+    private static final String RECORD_SCHEMA_INFERENCE = "record";
+    private static final long MAX_PARK_MS = 1000L;
+
+    private final static String AVRO_CONVERTER_CLASS_NAME = SchemaParser.AVRO_CONVERTER_CLASS_NAME;
+    private final static String JSON_SCHEMA_CONVERTER_CLASS_NAME = SchemaParser.JSON_SCHEMA_CONVERTER_CLASS_NAME;
+    private final static String PROTOBUF_CONVERTER_CLASS_NAME = SchemaParser.PROTOBUF_CONVERTER_CLASS_NAME;
+    private final static String BYTE_ARRAY_CONVERTER_CLASS_NAME = "org.apache.kafka.connect.converters.ByteArrayConverter";
 
-    private final static String AVRO_CONVERTER_CLASS_NAME = "io.confluent.connect.avro.AvroConverter";
-    private final static String JSON_SCHEMA_CONVERTER_CLASS_NAME = "io.confluent.connect.json.JsonSchemaConverter";
-    private final static String PROTOBUF_CONVERTER_CLASS_NAME = "io.confluent.connect.protobuf.ProtobufConverter";
+    private static final Set<String> SCHEMA_CONVERTER_CLASS_NAMES = Set.of(
+            AVRO_CONVERTER_CLASS_NAME, JSON_SCHEMA_CONVERTER_CLASS_NAME, PROTOBUF_CONVERTER_CLASS_NAME);
+
+    private static final SchemaCache SCHEMA_CACHE = new SchemaCache();
 
     private static final Logger LOG = LoggerFactory.getLogger(JRSourceTask.class);
 
@@ -77,6 +141,12 @@ public class JRSourceTask extends SourceTask {
     @Override
     public void start(Map<String, String> map) {
 
+        String generatorNames = map.get(JRSourceConnector.GENERATORS);
+        if (generatorNames != null && !generatorNames.isEmpty()) {
+            multiplexer = startGenerators(map, generatorNames);
+            return;
+        }
+
         if(map.containsKey(JRSourceConnector.JR_EXISTING_TEMPLATE))
             template = map.get(JRSourceConnector.JR_EXISTING_TEMPLATE);
         topic = map.get(JRSourceConnector.TOPIC_CONFIG);
@@ -100,8 +170,57 @@ public class JRSourceTask extends SourceTask {
         jrExecutablePath = map.get(JRSourceConnector.JR_EXECUTABLE_PATH);
         valueConverter = map.get(JRSourceConnector.VALUE_CONVERTER);
         keyConverter = map.get(JRSourceConnector.KEY_CONVERTER);
+        valueFormat = valueConverter;
+        String valueEncoding = map.getOrDefault(JRSourceConnector.VALUE_ENCODING, RecordEncoder.ENCODING_JSON);
+        if (!RecordEncoder.ENCODING_JSON.equals(valueEncoding))
+            valueEncoder = createValueEncoder(valueEncoding, map.get(JRSourceConnector.SCHEMA_REGISTRY_URL));
+        // records are passed through as the bytes JR wrote, with no decoding or conversion
+        rawBytes = BYTE_ARRAY_CONVERTER_CLASS_NAME.equals(valueConverter) && valueEncoder == null;
+        // values are only ever needed as bytes or as a tree, which is parsed from the bytes
+        readBytes = BYTE_ARRAY_CONVERTER_CLASS_NAME.equals(valueConverter);
+        streamingMode = Boolean.parseBoolean(map.get(JRSourceConnector.STREAMING_MODE));
+        if(map.containsKey(JRSourceConnector.TASK_ID))
+            taskId = Integer.parseInt(map.get(JRSourceConnector.TASK_ID));
+        generator = map.get(JRSourceConnector.GENERATOR);
+        if(map.containsKey(JRSourceConnector.KEY_VALUE_INTERVAL_MIN))
+            keyValueIntervalMin = Integer.valueOf(map.get(JRSourceConnector.KEY_VALUE_INTERVAL_MIN));
+        if(map.containsKey(JRSourceConnector.SEED_CONFIG))
+            seed = Seeds.taskSeed(Long.parseLong(map.get(JRSourceConnector.SEED_CONFIG)), taskId);
+        if(map.containsKey(JRSourceConnector.RECORDS_PER_SECOND))
+            recordsPerSecond = Double.valueOf(map.get(JRSourceConnector.RECORDS_PER_SECOND));
+        catchUpPolicy = map.get(JRSourceConnector.CATCH_UP_POLICY);
+        engine = map.get(JRSourceConnector.ENGINE_CONFIG);
+        if(map.containsKey(JRSourceConnector.PREFETCH_DEPTH))
+            prefetchDepth = Integer.valueOf(map.get(JRSourceConnector.PREFETCH_DEPTH));
+        if(map.containsKey(JRSourceConnector.PREFETCH_BATCH_SIZE))
+            prefetchBatchSize = Integer.valueOf(map.get(JRSourceConnector.PREFETCH_BATCH_SIZE));
+        embeddedTemplateFile = map.get(JRSourceConnector.EMBEDDED_TEMPLATE_FILE);
+        keyEmbeddedTemplateFile = map.get(JRSourceConnector.KEY_EMBEDDED_TEMPLATE_FILE);
+        if (!RECORD_SCHEMA_INFERENCE.equals(map.get(JRSourceConnector.SCHEMA_INFERENCE))) {
+            convergedSchemas = map.containsKey(JRSourceConnector.SCHEMA_SAMPLE_SIZE)
+                    ? new ConvergedSchemas(Integer.parseInt(map.get(JRSourceConnector.SCHEMA_SAMPLE_SIZE)))
+                    : new ConvergedSchemas();
+        }
+        // user supplied schemas are parsed once, records are converted against them as they are
+        if (map.containsKey(JRSourceConnector.VALUE_SCHEMA))
+            valueSchema = parseSchema(valueFormat, map.get(JRSourceConnector.VALUE_SCHEMA));
+        if (map.containsKey(JRSourceConnector.KEY_SCHEMA))
+            keySchema = parseSchema(keyConverter, map.get(JRSourceConnector.KEY_SCHEMA));
+
+        scheduler = new PollScheduler(pollMs, recordsPerSecond, objects, PollScheduler.CatchUpPolicy.of(catchUpPolicy));
+
+        // first task keeps the original partition, so offsets stored before sharding are still found
+        Map<String, Object> partition = new HashMap<>();
+        partition.put(TEMPLATE, template);
+        // a generator keeps its partition whichever task it's assigned to
+        if (generator != null)
+            partition.put(GENERATOR, generator);
+        if (taskId > 0)
+            partition.put(TASK, taskId);
+        sourcePartition = Collections.unmodifiableMap(partition);
 
-        Map<String, Object> offset = context.offsetStorageReader().offset(Collections.singletonMap(TEMPLATE, template));
+        Map<Map<String, Object>, Map<String, Object>> offsets = context.offsetStorageReader().offsets(Collections.singletonList(sourcePartition));
+        Map<String, Object> offset = offsets == null ? null : offsets.get(sourcePartition);
         if (offset != null) {
             Long lastRecordedOffset = (Long) offset.get(POSITION);
             if (lastRecordedOffset != null) {
@@ -109,77 +228,560 @@ public class JRSourceTask extends SourceTask {
                     LOG.debug("Loaded offset: {}", apiOffset);
                 apiOffset = lastRecordedOffset;
             }
+            // generation resumes from the record following the last committed one
+            Long lastRecordedSequence = (Long) offset.get(SEQUENCE);
+            if (lastRecordedSequence != null)
+                sequence = lastRecordedSequence + 1;
+        }
+
+        if (keyField != null && !keyField.isEmpty() && (keyEmbeddedTemplate == null || keyEmbeddedTemplate.isEmpty()))
+            keyGenerator = createKeyGenerator(map);
+
+        taskMetrics = new TaskMetrics(
+                map.getOrDefault(JRSourceConnector.CONNECTOR_NAME, JRSourceConnector.class.getSimpleName()),
+                map.containsKey(JRSourceConnector.HOST_TASK_ID) ? Integer.parseInt(map.get(JRSourceConnector.HOST_TASK_ID)) : taskId,
+                generator != null ? generator : getTemplateName());
+        supervisor = new JRProcessSupervisor(
+                longOrDefault(map.get(JRSourceConnector.JR_TIMEOUT_MS), JRProcessSupervisor.DEFAULT_TIMEOUT_MS),
+                map.containsKey(JRSourceConnector.JR_MAX_RETRIES) ? Integer.parseInt(map.get(JRSourceConnector.JR_MAX_RETRIES)) : JRProcessSupervisor.DEFAULT_MAX_RETRIES,
+                longOrDefault(map.get(JRSourceConnector.JR_RETRY_BACKOFF_MS), JRProcessSupervisor.DEFAULT_RETRY_BACKOFF_MS),
+                taskMetrics);
+
+        if (JRTemplateEngine.ENGINE_JVM.equals(engine))
+            templateEngine = createTemplateEngine(getTemplateWrapper());
+
+        // no process to keep alive when records are generated inside the JVM
+        if (streamingMode && templateEngine == null) {
+            streamingProcess = createStreamingProcess(getTemplateWrapper());
+            streamingProcess.start();
+        }
+
+        // JR arguments are built once, every run only adds the number of records and the seed
+        if (templateEngine == null && streamingProcess == null)
+            jrCommand = prepareCommand(getTemplateWrapper());
+
+        if (embeddedTemplateFile != null || keyEmbeddedTemplateFile != null)
+            templateWatcher = startTemplateWatcher();
+
+        if (prefetchDepth > 0) {
+            prefetcher = new RecordPrefetcher(getTemplateName() + "-" + taskId, prefetchDepth, prefetchBatchSize, () -> generate(MAX_PARK_MS));
+            prefetcher.start();
+        }
+    }
+
+    /**
+     * Starts a generator for every name in 'generators', each configured with the settings
+     * prefixed with its name, all served by one multiplexer on the poll thread.
+     */
+    private GeneratorMultiplexer startGenerators(Map<String, String> map, String generatorNames) {
+        GeneratorMultiplexer generators = new GeneratorMultiplexer();
+        try {
+            for (String name : generatorNames.split(",")) {
+                String prefix = JRSourceConnector.GENERATOR_PREFIX + name + ".";
+                Map<String, String> config = new HashMap<>();
+                for (Map.Entry<String, String> entry : map.entrySet()) {
+                    if (entry.getKey().startsWith(prefix))
+                        config.put(entry.getKey().substring(prefix.length()), entry.getValue());
+                }
+                config.put(JRSourceConnector.GENERATOR, name);
+                // generators keep task id 0 for their seed and partition, metrics get the hosting task
+                if (map.containsKey(JRSourceConnector.TASK_ID))
+                    config.put(JRSourceConnector.HOST_TASK_ID, map.get(JRSourceConnector.TASK_ID));
+                if (map.containsKey(JRSourceConnector.CONNECTOR_NAME))
+                    config.putIfAbsent(JRSourceConnector.CONNECTOR_NAME, map.get(JRSourceConnector.CONNECTOR_NAME));
+
+                JRSourceTask generatorTask = new JRSourceTask();
+                generatorTask.initialize(context);
+                generators.add(name, generatorTask);
+                generatorTask.start(config);
+            }
+        } catch (RuntimeException e) {
+            generators.stop();
+            throw e;
         }
+        if (LOG.isInfoEnabled())
+            LOG.info("Task {} multiplexes generators {}", map.get(JRSourceConnector.TASK_ID), generators.getGeneratorNames());
+        return generators;
     }
 
     @Override
     public List<SourceRecord> poll() {
+        try {
+            if (multiplexer != null)
+                return multiplexer.poll(MAX_PARK_MS);
+            List<SourceRecord> records = poll(MAX_PARK_MS);
+            if (records.isEmpty())
+                taskMetrics.recordEmptyPoll();
+            return records;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns the records due, parking at most maxWaitMs until some are. The multiplexer polls
+     * its generators without waiting.
+     */
+    List<SourceRecord> poll(long maxWaitMs) throws InterruptedException {
+        RecordPrefetcher currentPrefetcher = prefetcher;
+        return currentPrefetcher != null ? currentPrefetcher.drain(Math.min(pollMs, maxWaitMs)) : generate(maxWaitMs);
+    }
+
+    /**
+     * Returns the time until records are due, for the multiplexer to know when to poll again.
+     * Prefetched and streamed records aren't scheduled, so they are checked every 'frequency'.
+     */
+    long nanosUntilDue() {
+        RecordPrefetcher currentPrefetcher = prefetcher;
+        if (currentPrefetcher != null && currentPrefetcher.size() > 0)
+            return 0L;
+        if (currentPrefetcher != null || streamingProcess != null || isFinished())
+            return TimeUnit.MILLISECONDS.toNanos(Math.min(pollMs, MAX_PARK_MS));
+        return scheduler.nanosUntilDue();
+    }
+
+    private boolean isFinished() {
+        return pollIteration > 0 && startTimeMs != null && System.currentTimeMillis() >= finalTimeMs;
+    }
+
+    /**
+     * Generates the records due at this point of the schedule, parking at most maxWaitMs until the
+     * next batch is due. Runs on the poll thread, or on the prefetch thread when prefetching is enabled.
+     */
+    private List<SourceRecord> generate(long maxWaitMs) throws InterruptedException {
+        if (isFinished()) {
+            if (streamingProcess != null && streamingProcess.isRunning())
+                streamingProcess.stop();
+            // nothing left to generate, park instead of returning to a busy loop
+            scheduler.pause(maxWaitMs);
+            return Collections.emptyList();
+        }
+
+        if (streamingProcess != null)
+            return pollStreaming(maxWaitMs);
+
+        int records = scheduler.acquire(maxWaitMs);
+        if (records == 0)
+            return Collections.emptyList();
+
+        generationLock.readLock().lock();
+        try {
+            return generate(records);
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    private List<SourceRecord> generate(int records) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Generate {} records for template {} - currentTime {} - finalTime {}", records, template, System.currentTimeMillis(), finalTimeMs);
+        }
+
+        pollIteration = pollIteration + 1;
+        long startNanos = System.nanoTime();
+
+        if (templateEngine != null) {
+            List<GeneratedRecord> generated = templateEngine.generate(records, sequence);
+            taskMetrics.recordStage(TaskMetrics.Stage.ENGINE_RENDER, System.nanoTime() - startNanos);
+            return createSourceRecords(generated, startNanos);
+        }
+
+        // templates were reloaded into a streaming process since the batch was scheduled
+        if (jrCommand == null)
+            return Collections.emptyList();
+
+        if (seed != null) {
+            List<SourceRecord> sourceRecords = createSourceRecords(runSeededTemplate(records), startNanos);
+            if (nextChunkSequence > sequence)
+                sequence = nextChunkSequence;
+            nextChunkSequence = -1L;
+            return sourceRecords;
+        }
+
+        // Dispatch run template command to JR exec
+        JRCommandExecutor jrCommandExecutor = JRCommandExecutor.getInstance(jrExecutablePath);
+
+        return createSourceRecords(runTemplate(jrCommandExecutor, records, null), startNanos);
+    }
+
+    /**
+     * Runs JR once, reading its records as text or, for the byte array converter, as the bytes JR wrote.
+     */
+    private List<GeneratedRecord> runTemplate(JRCommandExecutor jrCommandExecutor, int records, Long runSeed) {
+        if (readBytes)
+            return toRawRecords(jrCommandExecutor.runTemplateBytes(jrCommand, records, runSeed, supervisor), jrCommand.isKeyed());
+        return toGeneratedRecords(jrCommandExecutor.runTemplate(jrCommand, records, runSeed, supervisor), jrCommand.isKeyed());
+    }
+
+    /**
+     * Runs JR on chunks of 'objects' records, each chunk with a seed derived from its position in
+     * the sequence, so that a chunk is always the same. After a restart, the records of the first
+     * chunk that were already committed are dropped.
+     * <p>
+     * When JR returns fewer records than a chunk holds, the batch ends with that chunk and the
+     * sequence moves to the next chunk boundary. Records then keep the sequence numbers they get
+     * when the chunk is replayed, and the next chunk is not run twice.
+     */
+    private List<GeneratedRecord> runSeededTemplate(int records) {
+        JRCommandExecutor jrCommandExecutor = JRCommandExecutor.getInstance(jrExecutablePath);
+        long valueSeed = Seeds.streamSeed(seed, Seeds.VALUE_STREAM);
+
+        List<GeneratedRecord> result = new ArrayList<>(records);
+        long next = sequence;
+        long end = sequence + records;
+        while (next < end) {
+            long chunk = next / objects;
+            long chunkStart = chunk * objects;
+            List<GeneratedRecord> chunkRecords = runTemplate(jrCommandExecutor, objects, Seeds.mix(valueSeed, chunk));
+            int skip = (int) (next - chunkStart);
+            int limit = (int) Math.min(chunkRecords.size(), end - chunkStart);
+            if (skip < limit)
+                result.addAll(chunkRecords.subList(skip, limit));
+            next = chunkStart + objects;
+            if (chunkRecords.size() < objects && end - chunkStart > chunkRecords.size()) {
+                if (LOG.isWarnEnabled())
+                    LOG.warn("JR returned {} of the {} records of chunk {}, the sequence moves to the next chunk", chunkRecords.size(), objects, chunk);
+                nextChunkSequence = next;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private KeyGenerator createKeyGenerator(Map<String, String> map) {
+        return new KeyGenerator(
+                keyField,
+                keyValueIntervalMin,
+                keyValueIntervalMax == null ? 100 : keyValueIntervalMax,
+                KeyGenerator.Distribution.of(map.get(JRSourceConnector.KEY_DISTRIBUTION)),
+                doubleOrDefault(map.get(JRSourceConnector.KEY_ZIPFIAN_EXPONENT), KeyGenerator.DEFAULT_ZIPFIAN_EXPONENT),
+                doubleOrDefault(map.get(JRSourceConnector.KEY_HOT_SET_FRACTION), KeyGenerator.DEFAULT_HOT_SET_FRACTION),
+                doubleOrDefault(map.get(JRSourceConnector.KEY_HOT_TRAFFIC_FRACTION), KeyGenerator.DEFAULT_HOT_TRAFFIC_FRACTION),
+                seed == null ? null : Seeds.streamSeed(seed, Seeds.KEY_STREAM));
+    }
+
+    private static double doubleOrDefault(String value, double defaultValue) {
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static long longOrDefault(String value, long defaultValue) {
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Builds the JR arguments for the template of the task. Keys for 'key_field_name' are generated
+     * by the task, JR only renders key templates.
+     */
+    private JRCommand prepareCommand(Template templateWrapper) {
+        try {
+            return JRCommandExecutor.getInstance(jrExecutablePath).prepare(templateWrapper, null, 0, 0);
+        } catch (IOException e) {
+            throw new ConnectException("Can't write the template file for JR", e);
+        }
+    }
+
+    private JRTemplateEngine createTemplateEngine(Template templateWrapper) {
+        if (!JRTemplateEngine.supports(templateWrapper)) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Template {} is not an embedded template - fallback to {} engine", template, JRTemplateEngine.ENGINE_JR);
+            return null;
+        }
+        try {
+            return new JRTemplateEngine(templateWrapper);
+        } catch (IllegalArgumentException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't compile template, {} - fallback to {} engine", e.getMessage(), JRTemplateEngine.ENGINE_JR);
+            return null;
+        }
+    }
+
+    private JRStreamingProcess createStreamingProcess(Template templateWrapper) {
+        return new JRStreamingProcess(
+                JRCommandExecutor.getInstance(jrExecutablePath),
+                templateWrapper,
+                objects,
+                null,
+                0,
+                0,
+                pollMs,
+                readBytes,
+                supervisor);
+    }
+
+    private TemplateWatcher startTemplateWatcher() {
+        List<Path> templateFiles = new ArrayList<>();
+        if (embeddedTemplateFile != null)
+            templateFiles.add(Paths.get(embeddedTemplateFile));
+        if (keyEmbeddedTemplateFile != null)
+            templateFiles.add(Paths.get(keyEmbeddedTemplateFile));
+        try {
+            TemplateWatcher watcher = new TemplateWatcher(getTemplateName() + "-" + taskId, templateFiles, TemplateWatcher.DEFAULT_DEBOUNCE_MS, this::reloadTemplates);
+            watcher.start();
+            return watcher;
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't watch template files, templates won't be reloaded:{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the template files again and, when they changed and the new templates are valid,
+     * swaps them in between two batches. Runs on the template watcher thread, so the task keeps
+     * generating with the previous templates while the new ones are checked.
+     */
+    void reloadTemplates() {
+        String newEmbeddedTemplate = embeddedTemplate;
+        String newKeyEmbeddedTemplate = keyEmbeddedTemplate;
+        try {
+            if (embeddedTemplateFile != null)
+                newEmbeddedTemplate = TemplateStore.toSingleLine(Files.readString(Paths.get(embeddedTemplateFile)));
+            if (keyEmbeddedTemplateFile != null)
+                newKeyEmbeddedTemplate = TemplateStore.toSingleLine(Files.readString(Paths.get(keyEmbeddedTemplateFile)));
+        } catch (IOException e) {
+            rejectTemplates("can't read template file, " + e.getMessage());
+            return;
+        }
+        if (Objects.equals(newEmbeddedTemplate, embeddedTemplate) && Objects.equals(newKeyEmbeddedTemplate, keyEmbeddedTemplate))
+            return;
+        if (newEmbeddedTemplate.isBlank() || (keyEmbeddedTemplateFile != null && newKeyEmbeddedTemplate.isBlank())) {
+            rejectTemplates("empty template");
+            return;
+        }
+
+        Template templateWrapper = templateWrapper(newEmbeddedTemplate, newKeyEmbeddedTemplate);
+        JRTemplateEngine newTemplateEngine = JRTemplateEngine.ENGINE_JVM.equals(engine) ? createTemplateEngine(templateWrapper) : null;
+        JRCommand newJrCommand = null;
+        JRStreamingProcess newStreamingProcess = null;
+        if (newTemplateEngine == null) {
+            try {
+                newJrCommand = prepareCommand(templateWrapper);
+            } catch (ConnectException e) {
+                rejectTemplates(e.getMessage());
+                return;
+            }
+            String error = validate(newJrCommand);
+            if (error != null) {
+                newJrCommand.close();
+                rejectTemplates(error);
+                return;
+            }
+            // the new process starts generating before the old one is stopped
+            if (streamingMode) {
+                newJrCommand.close();
+                newJrCommand = null;
+                newStreamingProcess = createStreamingProcess(templateWrapper);
+                newStreamingProcess.start();
+            }
+        }
+
+        JRCommand oldJrCommand;
+        JRStreamingProcess oldStreamingProcess;
+        generationLock.writeLock().lock();
+        try {
+            oldJrCommand = jrCommand;
+            oldStreamingProcess = streamingProcess;
+            embeddedTemplate = newEmbeddedTemplate;
+            keyEmbeddedTemplate = newKeyEmbeddedTemplate;
+            templateEngine = newTemplateEngine;
+            jrCommand = newJrCommand;
+            streamingProcess = newStreamingProcess;
+            // the new templates converge on their own schemas
+            if (convergedSchemas != null)
+                convergedSchemas.clear();
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+        if (oldJrCommand != null)
+            oldJrCommand.close();
+        if (oldStreamingProcess != null)
+            oldStreamingProcess.stop();
+        // the task was stopped while the templates were checked
+        if (scheduler.isStopped()) {
+            if (newJrCommand != null)
+                newJrCommand.close();
+            if (newStreamingProcess != null)
+                newStreamingProcess.stop();
+        }
+
+        taskMetrics.recordTemplateReload(System.currentTimeMillis());
+        if (LOG.isInfoEnabled())
+            LOG.info("Reloaded templates of task {}", taskId);
+    }
+
+    /**
+     * Runs JR once with the new templates.
+     *
+     * @return why the templates are invalid, null if they are valid
+     */
+    private String validate(JRCommand command) {
+        List<String> result = JRCommandExecutor.getInstance(jrExecutablePath).runTemplate(command, 1, null, JRProcessSupervisor.oneOff());
+        if (result.isEmpty())
+            return "JR generated no record";
+        try {
+            GeneratedRecord record = command.isKeyed() ? GeneratedRecord.fromEnvelope(result.get(0)) : new GeneratedRecord(null, result.get(0));
+            if (!valueConverter.equals(StringConverter.class.getName()) && !record.getValueNode().isObject())
+                return "record is not a JSON object";
+        } catch (IOException e) {
+            return "malformed record, " + e.getMessage();
+        }
+        return null;
+    }
+
+    private void rejectTemplates(String reason) {
+        taskMetrics.recordTemplateReloadFailure();
+        if (LOG.isWarnEnabled())
+            LOG.warn("Template change rejected, task {} keeps its templates:{}", taskId, reason);
+    }
 
-        long currentTime = System.currentTimeMillis();
-        if (currentTime > (last_execution + pollMs)) {
+    private List<SourceRecord> pollStreaming(long maxWaitMs) throws InterruptedException {
+        pollIteration = pollIteration + 1;
 
-            if(pollIteration == 0 || startTimeMs == null || currentTime < finalTimeMs) {
+        // JR paces the generation, a target rate only bounds how much is drained
+        int maxRecords = Integer.MAX_VALUE;
+        if (scheduler.isRateBased()) {
+            maxRecords = scheduler.acquire(maxWaitMs);
+            if (maxRecords == 0)
+                return Collections.emptyList();
+        }
+        List<GeneratedRecord> drained = streamingProcess.drain(Math.min(pollMs, maxWaitMs), maxRecords);
+        return createSourceRecords(drained, System.nanoTime());
+    }
 
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Generate records for template {} - currentTime {} - finalTime {}", template, currentTime, finalTimeMs);
+    private List<GeneratedRecord> toGeneratedRecords(List<String> result, boolean keyed) {
+        List<GeneratedRecord> records = new ArrayList<>(result.size());
+        // Case: record with no key
+        if (!keyed) {
+            for (String record : result)
+                records.add(new GeneratedRecord(null, record));
+        }
+        // Case: record with a key, key and value are wrapped in a single envelope
+        else {
+            long parseStart = System.nanoTime();
+            for (String record : result) {
+                try {
+                    records.add(GeneratedRecord.fromEnvelope(record));
+                } catch (IOException e) {
+                    if (LOG.isWarnEnabled())
+                        LOG.warn("Skipping malformed record:{}", e.getMessage());
                 }
+            }
+            taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+        }
+        return records;
+    }
 
-                last_execution = System.currentTimeMillis();
-                pollIteration = pollIteration + 1;
-
-                // Dispatch run template command to JR exec
-                JRCommandExecutor jrCommandExecutor = JRCommandExecutor.getInstance(jrExecutablePath);
-                Template templateWrapper = getTemplateWrapper();
-
-                // Process results from JR exec
-                List<String> result = jrCommandExecutor.runTemplate(templateWrapper, objects, keyField, keyValueIntervalMax);
-
-                // Create Kafka Connect Source Records
-                List<SourceRecord> sourceRecords = new ArrayList<>();
-                int index = 1;
-                String key = null;
-                for (String record : result) {
-
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Record {}", record);
-
-                    // Case: record with no key
-                    if ( (keyField == null || keyField.isEmpty()) && (!templateWrapper.isKeyEmbedded())) {
-                        sourceRecords.add(createSourceRecord(null, record));
-                    }
-                    // Case: record with a key
-                    else {
-                        // Evaluate json part representing the value
-                        if (index % 2 == 0) {
-                            try {
-                                ObjectMapper objectMapper = new ObjectMapper();
-                                Map<String, Object> map = objectMapper.readValue(key, Map.class);
-                                String newValueRecord = record;
-                                for (Map.Entry<String, Object> entry : map.entrySet()) {
-                                    newValueRecord = replaceWithKey(entry.getKey(), newValueRecord, entry.getValue().toString());
-                                }
-                                sourceRecords.add(createSourceRecord(key, newValueRecord));
-                            } catch (Exception ex) {
-                                if (LOG.isWarnEnabled())
-                                    LOG.warn("Can't substitute elements in value - fallback to original record");
-                                sourceRecords.add(createSourceRecord(key, record));
-                            }
-                        }
-                        // Evaluate json part representing the key
-                        else {
-                            key = record;
-                        }
-                        index++;
-                    }
+    private List<GeneratedRecord> toRawRecords(List<byte[]> result, boolean keyed) {
+        List<GeneratedRecord> records = new ArrayList<>(result.size());
+        if (!keyed) {
+            for (byte[] record : result)
+                records.add(GeneratedRecord.ofBytes(null, record));
+        }
+        // key and value are sliced out of the envelope, never decoded
+        else {
+            long parseStart = System.nanoTime();
+            for (byte[] record : result) {
+                try {
+                    records.add(GeneratedRecord.fromEnvelope(record));
+                } catch (IOException e) {
+                    if (LOG.isWarnEnabled())
+                        LOG.warn("Skipping malformed record:{}", e.getMessage());
                 }
+            }
+            taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+        }
+        return records;
+    }
+
+    /**
+     * Converts a batch of generated records, recording the batch in the task metrics.
+     *
+     * @param startNanos when the generation of the batch started
+     */
+    private List<SourceRecord> createSourceRecords(List<GeneratedRecord> records, long startNanos) {
+        for (int i = 0; i < records.size(); i++) {
+            GeneratedRecord record = records.get(i);
+            if (keyGenerator != null)
+                record.setKeyNode(keyGenerator.nextKey(sequence + i));
+            // raw values are passed through untouched
+            if (record.hasKey() && !rawBytes)
+                substituteKeyFields(record);
+        }
+        sampleSchemas(records);
+
+        List<SourceRecord> sourceRecords = new ArrayList<>(records.size());
+        for (GeneratedRecord record : records)
+            sourceRecords.add(createSourceRecord(record));
+        if (!sourceRecords.isEmpty())
+            taskMetrics.recordBatch(sourceRecords.size(), System.nanoTime() - startNanos);
+        return sourceRecords;
+    }
+
+    /**
+     * Samples a whole batch before any of its records is converted, so even the first records get
+     * the schema converged over the batch.
+     */
+    private void sampleSchemas(List<GeneratedRecord> records) {
+        if (convergedSchemas == null || records.isEmpty())
+            return;
+        boolean sampleValues = !rawBytes && valueSchema == null && !valueFormat.equals(StringConverter.class.getName());
+        boolean sampleKeys = keySchema == null && keyEmbeddedTemplate != null && !keyEmbeddedTemplate.isEmpty() && !keyConverter.equals(StringConverter.class.getName()) && !keyConverter.equals(BYTE_ARRAY_CONVERTER_CLASS_NAME);
+        if (!sampleValues && !sampleKeys)
+            return;
 
-                return sourceRecords;
+        long inferenceStart = System.nanoTime();
+        String valueSchemaName = valueSchemaName();
+        for (GeneratedRecord record : records) {
+            try {
+                if (sampleValues)
+                    convergedSchemas.sample(valueFormat, valueSchemaName, record.getValueNode());
+                if (sampleKeys && record.hasKey())
+                    convergedSchemas.sample(keyConverter, KEY_SCHEMA_NAME, record.getKeyNode());
+            } catch (IOException e) {
+                // malformed records fail when they are converted
             }
         }
-        return Collections.emptyList();
+        taskMetrics.addRecordTime(TaskMetrics.Stage.SCHEMA_INFERENCE, System.nanoTime() - inferenceStart);
+    }
+
+    /**
+     * Copies the key fields into the string fields of the value with the same name.
+     */
+    private void substituteKeyFields(GeneratedRecord record) {
+        try {
+            long parseStart = System.nanoTime();
+            JsonNode keyNode = record.getKeyNode();
+            JsonNode valueNode = record.getValueNode();
+            taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+            if (!keyNode.isObject() || !valueNode.isObject())
+                return;
+
+            ObjectNode value = (ObjectNode) valueNode;
+            boolean changed = false;
+            Iterator<Map.Entry<String, JsonNode>> keyFields = keyNode.fields();
+            while (keyFields.hasNext()) {
+                Map.Entry<String, JsonNode> keyField = keyFields.next();
+                JsonNode current = value.get(keyField.getKey());
+                if (current != null && current.isTextual()) {
+                    JsonNode replacement = keyField.getValue();
+                    value.put(keyField.getKey(), replacement.isValueNode() ? replacement.asText() : replacement.toString());
+                    changed = true;
+                }
+            }
+            if (changed)
+                record.valueNodeChanged();
+        } catch (Exception ex) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't substitute elements in value - fallback to original record");
+        }
     }
 
     public Template getTemplateWrapper() {
+        return templateWrapper(embeddedTemplate, keyEmbeddedTemplate);
+    }
+
+    private Template templateWrapper(String embeddedTemplate, String keyEmbeddedTemplate) {
         Template templateWrapper = new Template();
         templateWrapper.setTemplate(template);
         if (embeddedTemplate != null && !embeddedTemplate.isEmpty()) {
@@ -190,132 +792,215 @@ public class JRSourceTask extends SourceTask {
             templateWrapper.setKeyEmbedded(true);
             templateWrapper.setKeyTemplate(keyEmbeddedTemplate);
         }
+        if (seed != null)
+            templateWrapper.setSeed(Seeds.streamSeed(seed, Seeds.VALUE_STREAM));
         return templateWrapper;
     }
 
     @Override
-    public void stop() {}
+    public void stop() {
+        if (multiplexer != null)
+            multiplexer.stop();
+        if (scheduler != null)
+            scheduler.stop();
+        if (templateWatcher != null) {
+            templateWatcher.close();
+            templateWatcher = null;
+        }
+        // kills an in-flight JR, so the generating thread returns
+        if (supervisor != null)
+            supervisor.stop();
+        if (prefetcher != null) {
+            prefetcher.stop();
+            prefetcher = null;
+        }
+        if (streamingProcess != null) {
+            streamingProcess.stop();
+            streamingProcess = null;
+        }
+        if (jrCommand != null)
+            jrCommand.close();
+        if (taskMetrics != null)
+            taskMetrics.close();
+    }
 
     public SourceRecord createSourceRecord(String recordKey, String recordValue) {
+        return createSourceRecord(new GeneratedRecord(recordKey, recordValue));
+    }
+
+    private SourceRecord createSourceRecord(GeneratedRecord record) {
         String newFromDate = LocalDateTime.now().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
         apiOffset = calculateApiOffset(apiOffset, newFromDate, fromDate);
         fromDate = newFromDate;
 
-        Map<String, Object> sourcePartition = Collections.singletonMap(TEMPLATE, template);
-        Map<String, Long> sourceOffset = Collections.singletonMap(POSITION, ++apiOffset);
+        Map<String, Long> sourceOffset = Map.of(POSITION, ++apiOffset, SEQUENCE, sequence++);
 
-        String valueSchemaName = template;
-        String keySchemaName = "recordkey";
-        if(embeddedTemplate != null && !embeddedTemplate.isEmpty()) {
-            valueSchemaName = "recordvalue";
-        }
+        String valueSchemaName = valueSchemaName();
+        String keySchemaName = KEY_SCHEMA_NAME;
 
-        // Case: no schema required for key
-        if ( (keyEmbeddedTemplate == null || keyEmbeddedTemplate.isEmpty()) || keyConverter.equals(StringConverter.class.getName())) {
-            Schema valueKafkaConnectSchema;
-            if (valueConverter.equals(StringConverter.class.getName())) {
-                if (recordKey != null && !recordKey.isEmpty())
-                    return new SourceRecord(sourcePartition, sourceOffset, topic, Schema.STRING_SCHEMA, recordKey, Schema.STRING_SCHEMA, recordValue);
-                else
-                    return new SourceRecord(sourcePartition, sourceOffset, topic, Schema.STRING_SCHEMA, recordValue);
-            } else if (valueConverter.equals(PROTOBUF_CONVERTER_CLASS_NAME)) {
-                try {
-                    valueKafkaConnectSchema = ProtobufHelper.createProtobufSchemaFromJson(valueSchemaName, recordValue);
-                    return createSourceRecordWithSchema(recordKey, recordValue, Schema.STRING_SCHEMA, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            } else if (valueConverter.equals(JSON_SCHEMA_CONVERTER_CLASS_NAME)) {
-                try {
-                    valueKafkaConnectSchema = JsonSchemaHelper.createJsonSchemaFromJson(recordValue);
-                    return createSourceRecordWithSchema(recordKey, recordValue, Schema.STRING_SCHEMA, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            } else if (valueConverter.equals(AVRO_CONVERTER_CLASS_NAME)) {
-                try {
-                    org.apache.avro.Schema schema = AvroHelper.createAvroSchemaFromJson(valueSchemaName + "Record", recordValue);
-                    valueKafkaConnectSchema = AvroHelper.convertAvroToConnectSchema(schema);
-                    return createSourceRecordWithSchema(recordKey, recordValue, Schema.STRING_SCHEMA, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+        try {
+            Schema valueKafkaConnectSchema = Schema.STRING_SCHEMA;
+            Object value;
+            if (rawBytes) {
+                valueKafkaConnectSchema = Schema.BYTES_SCHEMA;
+                value = record.getValueBytes();
+            } else if (valueEncoder != null) {
+                long parseStart = System.nanoTime();
+                JsonNode valueNode = record.getValueNode();
+                taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+                valueKafkaConnectSchema = Schema.BYTES_SCHEMA;
+                value = encode(valueSchemaName, valueNode);
+            } else if (valueConverter.equals(StringConverter.class.getName())) {
+                value = record.getValue();
+            } else if (valueSchema != null && !record.hasValueNode()) {
+                // nothing to infer, the text is converted with no tree
+                long conversionStart = System.nanoTime();
+                Struct valueStruct = StructHelper.convertJsonToStruct(valueSchema, record.getValue());
+                taskMetrics.addRecordTime(TaskMetrics.Stage.CONVERSION, System.nanoTime() - conversionStart);
+                valueKafkaConnectSchema = valueSchema;
+                value = valueStruct;
             } else {
-                handleConverterNotSupportedException();
+                long parseStart = System.nanoTime();
+                JsonNode valueNode = record.getValueNode();
+                taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+                Struct valueStruct = toStruct(valueConverter, valueSchemaName, valueNode, valueSchema);
+                valueKafkaConnectSchema = valueStruct.schema();
+                value = valueStruct;
             }
-        }
-        // Case: key schema required
-        else {
-            Schema keyKafkaConnectSchema;
-            Schema valueKafkaConnectSchema = Schema.STRING_SCHEMA;
-            switch (keyConverter) {
-                case PROTOBUF_CONVERTER_CLASS_NAME -> {
-                    try {
-                        keyKafkaConnectSchema = ProtobufHelper.createProtobufSchemaFromJson(keySchemaName, recordKey);
-                        if (valueConverter.equals(PROTOBUF_CONVERTER_CLASS_NAME))
-                            valueKafkaConnectSchema = ProtobufHelper.createProtobufSchemaFromJson(valueSchemaName, recordValue);
-                        return createSourceRecordWithSchema(recordKey, recordValue, keyKafkaConnectSchema, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                case JSON_SCHEMA_CONVERTER_CLASS_NAME -> {
-                    try {
-                        keyKafkaConnectSchema = JsonSchemaHelper.createJsonSchemaFromJson(recordKey);
-                        if (valueConverter.equals(JSON_SCHEMA_CONVERTER_CLASS_NAME))
-                            valueKafkaConnectSchema = JsonSchemaHelper.createJsonSchemaFromJson(recordValue);
-                        return createSourceRecordWithSchema(recordKey, recordValue, keyKafkaConnectSchema, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                case AVRO_CONVERTER_CLASS_NAME -> {
-                    try {
-                        org.apache.avro.Schema keySchema = AvroHelper.createAvroSchemaFromJson(keySchemaName + "Record", recordKey);
-                        keyKafkaConnectSchema = AvroHelper.convertAvroToConnectSchema(keySchema);
-                        if (valueConverter.equals(AVRO_CONVERTER_CLASS_NAME)) {
-                            org.apache.avro.Schema valueSchema = AvroHelper.createAvroSchemaFromJson(valueSchemaName + "Record", recordValue);
-                            valueKafkaConnectSchema = AvroHelper.convertAvroToConnectSchema(valueSchema);
-                        }
-                        return createSourceRecordWithSchema(recordKey, recordValue, keyKafkaConnectSchema, valueKafkaConnectSchema, sourcePartition, sourceOffset);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                default -> handleConverterNotSupportedException();
+
+            if (!record.hasKey())
+                return new SourceRecord(sourcePartition, sourceOffset, topic, valueKafkaConnectSchema, value);
+
+            // Case: key schema required
+            Schema keyKafkaConnectSchema = Schema.STRING_SCHEMA;
+            Object key;
+            if (BYTE_ARRAY_CONVERTER_CLASS_NAME.equals(keyConverter)) {
+                keyKafkaConnectSchema = Schema.BYTES_SCHEMA;
+                key = record.getKeyBytes();
+            } else if (keyEmbeddedTemplate != null && !keyEmbeddedTemplate.isEmpty() && !keyConverter.equals(StringConverter.class.getName())) {
+                long parseStart = System.nanoTime();
+                JsonNode keyNode = record.getKeyNode();
+                taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+                Struct keyStruct = toStruct(keyConverter, keySchemaName, keyNode, keySchema);
+                keyKafkaConnectSchema = keyStruct.schema();
+                key = keyStruct;
+            } else {
+                key = record.getKey();
             }
 
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Record with a Schema --> key {} - value {} - keySchema {} - valueSchema {}", key, value, keyKafkaConnectSchema, valueKafkaConnectSchema);
+            }
+            return new SourceRecord(sourcePartition, sourceOffset, topic, keyKafkaConnectSchema, key, valueKafkaConnectSchema, value);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
-        return null;
     }
 
-    public long calculateApiOffset(long currentLoopOffset, String newFromDate, String oldFromDate) {
-        if (newFromDate.equals(oldFromDate)) {
-            return ++currentLoopOffset;
+    private String valueSchemaName() {
+        if (embeddedTemplate != null && !embeddedTemplate.isEmpty())
+            return "recordvalue";
+        return template;
+    }
+
+    /**
+     * Encodes a JSON record in the format of the value encoder, with the supplied schema or the
+     * one inferred for the format.
+     */
+    private byte[] encode(String schemaName, JsonNode jsonNode) throws Exception {
+        long inferenceStart = System.nanoTime();
+        Schema schema = valueSchema != null ? valueSchema : inferSchema(valueFormat, schemaName, jsonNode);
+        long conversionStart = System.nanoTime();
+        byte[] encoded = valueEncoder.encode(schema, jsonNode);
+        taskMetrics.addRecordTime(TaskMetrics.Stage.SCHEMA_INFERENCE, conversionStart - inferenceStart);
+        taskMetrics.addRecordTime(TaskMetrics.Stage.CONVERSION, System.nanoTime() - conversionStart);
+        return encoded;
+    }
+
+    /**
+     * Creates the encoder of the values, registering their schemas under the subject of the
+     * topic name strategy.
+     */
+    private RecordEncoder<?> createValueEncoder(String valueEncoding, String schemaRegistryUrl) {
+        SchemaRegistry schemaRegistry = SchemaRegistry.forUrl(schemaRegistryUrl);
+        String subject = topic + "-value";
+        switch (valueEncoding) {
+            case RecordEncoder.ENCODING_AVRO:
+                valueFormat = AVRO_CONVERTER_CLASS_NAME;
+                return new AvroRecordEncoder(schemaRegistry, subject);
+            case RecordEncoder.ENCODING_PROTOBUF:
+                valueFormat = PROTOBUF_CONVERTER_CLASS_NAME;
+                return new ProtobufRecordEncoder(schemaRegistry, subject);
+            default:
+                throw new ConnectException("Unsupported value encoding " + valueEncoding);
         }
-        return 1L;
     }
 
-    private SourceRecord createSourceRecordWithSchema(
-            String recordKey,
-            String recordValue,
-            Schema keyKafkaConnectSchema,
-            Schema valueKafkaConnectSchema,
-            Map<String, Object> sourcePartition,
-            Map<String, Long> sourceOffset) throws IOException {
+    /**
+     * Converts a JSON record to a Struct with the schema inferred for the converter.
+     *
+     * @param suppliedSchema schema supplied by the user, used instead of inferring one, or null
+     */
+    private Struct toStruct(String converter, String schemaName, JsonNode jsonNode, Schema suppliedSchema) throws Exception {
+        long inferenceStart = System.nanoTime();
+        Schema schema = suppliedSchema != null ? suppliedSchema : inferSchema(converter, schemaName, jsonNode);
+        long conversionStart = System.nanoTime();
+        Struct struct = StructHelper.convertJsonToStruct(schema, jsonNode);
+        taskMetrics.addRecordTime(TaskMetrics.Stage.SCHEMA_INFERENCE, conversionStart - inferenceStart);
+        taskMetrics.addRecordTime(TaskMetrics.Stage.CONVERSION, System.nanoTime() - conversionStart);
+        return struct;
+    }
 
-        Struct structValue = StructHelper.convertJsonToStruct(valueKafkaConnectSchema, recordValue);
+    /**
+     * Infers the Connect schema of a JSON record for the given converter: the schema converged
+     * over the sampled records or, with record inference, the schema cached for records with the
+     * same shape.
+     */
+    private Schema inferSchema(String converter, String schemaName, JsonNode jsonNode) throws Exception {
+        if (!SCHEMA_CONVERTER_CLASS_NAMES.contains(converter))
+            handleConverterNotSupportedException();
+        if (convergedSchemas != null) {
+            long changes = convergedSchemas.getChanges();
+            Schema schema = convergedSchemas.get(converter, schemaName, jsonNode, type -> renderSchema(converter, schemaName, type));
+            if (convergedSchemas.getChanges() > changes) {
+                taskMetrics.recordSchemaChange();
+                if (LOG.isInfoEnabled())
+                    LOG.info("Schema {} of task {} widened for a record that did not fit it", schemaName, taskId);
+            }
+            return schema;
+        }
+        return SCHEMA_CACHE.get(converter, schemaName, jsonNode, () -> switch (converter) {
+            case PROTOBUF_CONVERTER_CLASS_NAME -> ProtobufHelper.createProtobufSchemaFromJson(schemaName, jsonNode);
+            case JSON_SCHEMA_CONVERTER_CLASS_NAME -> JsonSchemaHelper.createJsonSchemaFromJson(jsonNode);
+            case AVRO_CONVERTER_CLASS_NAME -> AvroHelper.convertAvroToConnectSchema(AvroHelper.createAvroSchemaFromJson(schemaName + "Record", jsonNode));
+            default -> throw new IllegalStateException("Converter class not supported");
+        });
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Record with a Schema --> key {} - value {} - keySchema {} - valueSchema {}", recordKey, recordValue, keyKafkaConnectSchema, valueKafkaConnectSchema );
+    private static Schema parseSchema(String converter, String schemaDefinition) {
+        try {
+            return SchemaParser.parse(converter, schemaDefinition);
+        } catch (IllegalArgumentException e) {
+            throw new ConnectException("Invalid schema for " + converter + ": " + e.getMessage(), e);
         }
+    }
 
-        if (recordKey != null && !recordKey.isEmpty()) {
-            Struct structKey = StructHelper.convertJsonToStruct(keyKafkaConnectSchema, recordKey);
-            return new SourceRecord(sourcePartition, sourceOffset, topic, keyKafkaConnectSchema, structKey, valueKafkaConnectSchema, structValue);
+    private static Schema renderSchema(String converter, String schemaName, InferredType type) {
+        return switch (converter) {
+            case PROTOBUF_CONVERTER_CLASS_NAME -> ProtobufHelper.createConnectSchema(schemaName, type);
+            case JSON_SCHEMA_CONVERTER_CLASS_NAME -> JsonSchemaHelper.createConnectSchema(type);
+            case AVRO_CONVERTER_CLASS_NAME -> AvroHelper.createConnectSchema(schemaName + "Record", type);
+            default -> throw new IllegalStateException("Converter class not supported");
+        };
+    }
+
+    public long calculateApiOffset(long currentLoopOffset, String newFromDate, String oldFromDate) {
+        if (newFromDate.equals(oldFromDate)) {
+            return ++currentLoopOffset;
         }
-        else
-            return new SourceRecord(sourcePartition, sourceOffset, topic, valueKafkaConnectSchema, structValue);
+        return 1L;
     }
 
     private void handleConverterNotSupportedException() {
@@ -326,9 +1011,8 @@ public class JRSourceTask extends SourceTask {
         }
     }
 
-    private String replaceWithKey(String keyToMatch, String originalJson, String replacement) {
-        String regex = "\""+keyToMatch+"\":\\s*\"[^\"]*\"";
-        return originalJson.replaceAll(regex, "\""+keyToMatch+ "\":" + "\"" + replacement + "\"");
+    private String getTemplateName() {
+        return template == null ? "embedded" : template;
     }
 
     public String getTemplate() {
@@ -348,11 +1032,51 @@ public class JRSourceTask extends SourceTask {
     }
 
     public void setLast_execution(Long last_execution) {
-        this.last_execution = last_execution;
+        scheduler.delay(last_execution + pollMs - System.currentTimeMillis());
     }
 
     public Long getApiOffset() {
         return apiOffset;
     }
 
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public Map<String, Object> getSourcePartition() {
+        return sourcePartition;
+    }
+
+    public KeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    public JRProcessSupervisor getSupervisor() {
+        return supervisor;
+    }
+
+    public String getGenerator() {
+        return generator;
+    }
+
+    public GeneratorMultiplexer getMultiplexer() {
+        return multiplexer;
+    }
+
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    public RecordPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    public JRTemplateEngine getTemplateEngine() {
+        return templateEngine;
+    }
+
 }
\ No newline at end of file
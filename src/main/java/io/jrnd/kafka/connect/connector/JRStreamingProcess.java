@@ -0,0 +1,244 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector;
+
+import io.jrnd.kafka.connect.connector.format.JsonRecordSplitter;
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
+import io.jrnd.kafka.connect.connector.model.Template;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a single JR process alive for the whole task lifetime, letting JR pace the
+ * generation with its own frequency, and collects the records it writes on stdout.
+ * The process runs under the task's supervisor, which drains its stderr, kills it when it stalls
+ * and counts its failures. It is restarted with an exponential backoff whenever it dies.
+ */
+public class JRStreamingProcess {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JRStreamingProcess.class);
+
+    private static final long INITIAL_RESTART_BACKOFF_MS = 500L;
+    private static final long MAX_RESTART_BACKOFF_MS = 30000L;
+    private static final int MIN_QUEUE_CAPACITY = 1000;
+
+    private final JRCommandExecutor jrCommandExecutor;
+    private final Template templateWrapper;
+    private final int objects;
+    private final String keyField;
+    private final int keyValueMin;
+    private final int keyValueMax;
+    private final long frequencyMs;
+    private final boolean keyed;
+    private final boolean raw;
+    private final JRProcessSupervisor supervisor;
+    private final BlockingQueue<GeneratedRecord> records;
+
+    private volatile boolean running;
+    private volatile Process process;
+    private Thread readerThread;
+    private volatile long restarts = 0L;
+
+    public JRStreamingProcess(
+            JRCommandExecutor jrCommandExecutor,
+            Template templateWrapper,
+            int objects,
+            String keyField,
+            int keyValueMin,
+            int keyValueMax,
+            long frequencyMs) {
+        this(jrCommandExecutor, templateWrapper, objects, keyField, keyValueMin, keyValueMax, frequencyMs, false, JRProcessSupervisor.oneOff());
+    }
+
+    /**
+     * @param raw        whether records are queued as the UTF-8 bytes JR wrote, never decoded
+     * @param supervisor supervisor JR runs under, not stopped by {@link #stop()}
+     */
+    public JRStreamingProcess(
+            JRCommandExecutor jrCommandExecutor,
+            Template templateWrapper,
+            int objects,
+            String keyField,
+            int keyValueMin,
+            int keyValueMax,
+            long frequencyMs,
+            boolean raw,
+            JRProcessSupervisor supervisor) {
+        this.jrCommandExecutor = jrCommandExecutor;
+        this.templateWrapper = templateWrapper;
+        this.objects = objects;
+        this.keyField = keyField;
+        this.keyValueMin = keyValueMin;
+        this.keyValueMax = keyValueMax;
+        this.frequencyMs = frequencyMs;
+        this.keyed = templateWrapper.isKeyEmbedded() || (keyField != null && !keyField.isEmpty());
+        this.raw = raw;
+        this.supervisor = supervisor;
+        this.records = new ArrayBlockingQueue<>(Math.max(MIN_QUEUE_CAPACITY, objects * 10));
+    }
+
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        readerThread = new Thread(this::runLoop, "jr-streaming-" + (templateWrapper.isEmbedded() ? "embedded" : templateWrapper.getTemplate()));
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Drains at most maxRecords records produced so far, waiting at most timeoutMs for the first one.
+     */
+    public List<GeneratedRecord> drain(long timeoutMs, int maxRecords) throws InterruptedException {
+        List<GeneratedRecord> result = new ArrayList<>();
+        GeneratedRecord first = records.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null)
+            return result;
+        result.add(first);
+        records.drainTo(result, maxRecords - 1);
+        return result;
+    }
+
+    public synchronized void stop() {
+        running = false;
+        destroyProcess();
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread = null;
+        }
+        records.clear();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    private void runLoop() {
+        // the arguments, and the template file, are reused by every restart
+        try (JRCommand command = jrCommandExecutor.prepare(templateWrapper, keyField, keyValueMin, keyValueMax)) {
+            runLoop(command);
+        } catch (IOException e) {
+            if (LOG.isErrorEnabled())
+                LOG.error("Can't prepare JR streaming process:{}", e.getMessage());
+        }
+    }
+
+    private void runLoop(JRCommand command) {
+        long backoffMs = INITIAL_RESTART_BACKOFF_MS;
+        while (running) {
+            try {
+                long read = jrCommandExecutor.streamTemplate(command, objects, templateWrapper.getSeed(), frequencyMs, supervisor,
+                        started -> process = started, stdout -> readRecords(command.splitter(stdout)));
+                if (read > 0)
+                    backoffMs = INITIAL_RESTART_BACKOFF_MS;
+                if (running && LOG.isWarnEnabled())
+                    LOG.warn("JR streaming process exited, restarting in {} ms", backoffMs);
+            } catch (InterruptedException | InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (running && LOG.isErrorEnabled())
+                    LOG.error("JR streaming process failed:{}", e.getMessage());
+            } finally {
+                // the supervisor kills JR when the run ends
+                process = null;
+            }
+
+            if (!running)
+                break;
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_RESTART_BACKOFF_MS);
+            restarts++;
+        }
+    }
+
+    private long readRecords(JsonRecordSplitter splitter) throws IOException {
+        try {
+            return raw ? readRawRecords(splitter) : readTextRecords(splitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("JR streaming process stopped");
+        }
+    }
+
+    private long readTextRecords(JsonRecordSplitter splitter) throws IOException, InterruptedException {
+        long count = 0L;
+        String json;
+        while (running && (json = splitter.next()) != null) {
+            if (!keyed) {
+                records.put(new GeneratedRecord(null, json));
+            } else {
+                try {
+                    records.put(GeneratedRecord.fromEnvelope(json));
+                } catch (IOException e) {
+                    if (LOG.isWarnEnabled())
+                        LOG.warn("Skipping malformed record:{}", e.getMessage());
+                    continue;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private long readRawRecords(JsonRecordSplitter splitter) throws IOException, InterruptedException {
+        long count = 0L;
+        byte[] json;
+        while (running && (json = splitter.nextBytes()) != null) {
+            if (!keyed) {
+                records.put(GeneratedRecord.ofBytes(null, json));
+            } else {
+                try {
+                    records.put(GeneratedRecord.fromEnvelope(json));
+                } catch (IOException e) {
+                    if (LOG.isWarnEnabled())
+                        LOG.warn("Skipping malformed record:{}", e.getMessage());
+                    continue;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private void destroyProcess() {
+        Process current = process;
+        if (current != null)
+            supervisor.cancel(current);
+    }
+}
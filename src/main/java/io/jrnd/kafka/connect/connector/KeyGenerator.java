@@ -0,0 +1,172 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the keys for 'key_field_name' inside the task, as {"key_field_name":n} with n
+ * between keyValueMin (included) and keyValueMax (excluded), so that JR only renders values.
+ * <p>
+ * Supported distributions:
+ * <ul>
+ *   <li>{@link Distribution#UNIFORM}: every key has the same probability</li>
+ *   <li>{@link Distribution#SEQUENTIAL}: keys are generated in order, starting again from keyValueMin after the last one</li>
+ *   <li>{@link Distribution#ZIPFIAN}: key keyValueMin is the most frequent, the frequency of the key
+ *   of rank r being proportional to 1/r^exponent</li>
+ *   <li>{@link Distribution#HOTSET}: a fraction of the records uses the keys of a small hot set,
+ *   the first keys of the range, the others are spread over the remaining keys</li>
+ * </ul>
+ * Keys are generated from the sequence number of their record. With a seed, every key draws from
+ * a random generator seeded from the sequence number, so the key of a record is always the same.
+ * A generator is meant to be used by a single task thread.
+ */
+public class KeyGenerator {
+
+    public static final double DEFAULT_ZIPFIAN_EXPONENT = 0.99;
+    public static final double DEFAULT_HOT_SET_FRACTION = 0.2;
+    public static final double DEFAULT_HOT_TRAFFIC_FRACTION = 0.8;
+
+    // above this number of keys the zeta constant is approximated by an integral
+    private static final long MAX_EXACT_ZETA_KEYS = 1_000_000L;
+
+    public enum Distribution {
+        UNIFORM,
+        SEQUENTIAL,
+        ZIPFIAN,
+        HOTSET;
+
+        public static Distribution of(String distribution) {
+            return distribution == null ? UNIFORM : valueOf(distribution.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final String keyField;
+    private final long keyValueMin;
+    private final long keys;
+    private final Distribution distribution;
+    private final Long seed;
+    private SplittableRandom random;
+
+    // zipfian
+    private final double exponent;
+    private double zetaN;
+    private double alpha;
+    private double eta;
+    private double secondRankThreshold;
+
+    // hot set
+    private final long hotKeys;
+    private final double hotTrafficFraction;
+
+    public KeyGenerator(
+            String keyField,
+            long keyValueMin,
+            long keyValueMax,
+            Distribution distribution,
+            double zipfianExponent,
+            double hotSetFraction,
+            double hotTrafficFraction,
+            Long seed) {
+        if (keyValueMax <= keyValueMin)
+            throw new IllegalArgumentException("Empty key range [" + keyValueMin + ", " + keyValueMax + ")");
+        if (distribution == Distribution.ZIPFIAN && (zipfianExponent <= 0 || zipfianExponent >= 1))
+            throw new IllegalArgumentException("Zipfian exponent must be between 0 and 1, excluded: " + zipfianExponent);
+
+        this.keyField = keyField;
+        this.keyValueMin = keyValueMin;
+        this.keys = keyValueMax - keyValueMin;
+        this.distribution = distribution;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed == null ? new SplittableRandom().nextLong() : seed);
+        this.exponent = zipfianExponent;
+        this.hotKeys = Math.min(keys, Math.max(1L, Math.round(keys * hotSetFraction)));
+        this.hotTrafficFraction = hotTrafficFraction;
+
+        if (distribution == Distribution.ZIPFIAN)
+            initZipfian();
+    }
+
+    /**
+     * Returns the key of the record with the given sequence number, as a JSON object with a single field.
+     */
+    public ObjectNode nextKey(long sequence) {
+        return JsonNodeFactory.instance.objectNode().put(keyField, next(sequence));
+    }
+
+    public long next(long sequence) {
+        if (seed != null)
+            random = new SplittableRandom(Seeds.mix(seed, sequence));
+        return keyValueMin + switch (distribution) {
+            case UNIFORM -> random.nextLong(keys);
+            case SEQUENTIAL -> sequence % keys;
+            case ZIPFIAN -> nextZipfianRank();
+            case HOTSET -> nextHotSetKey();
+        };
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * Zipfian ranks as described in "Quickly Generating Billion-Record Synthetic Databases",
+     * Gray et al., SIGMOD 1994: constant time per key once zeta(keys) is known.
+     */
+    private void initZipfian() {
+        zetaN = zeta(keys, exponent);
+        double zeta2 = zeta(2, exponent);
+        alpha = 1.0 / (1.0 - exponent);
+        eta = keys > 2 ? (1 - Math.pow(2.0 / keys, 1 - exponent)) / (1 - zeta2 / zetaN) : 0;
+        secondRankThreshold = 1 + Math.pow(0.5, exponent);
+    }
+
+    private long nextZipfianRank() {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0)
+            return 0;
+        if (uz < secondRankThreshold || keys <= 2)
+            return Math.min(1, keys - 1);
+        long rank = (long) (keys * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(Math.max(rank, 0), keys - 1);
+    }
+
+    static double zeta(long n, double exponent) {
+        long exact = Math.min(n, MAX_EXACT_ZETA_KEYS);
+        double sum = 0;
+        for (long i = 1; i <= exact; i++)
+            sum += 1.0 / Math.pow(i, exponent);
+        if (n > exact)
+            sum += (Math.pow(n, 1 - exponent) - Math.pow(exact, 1 - exponent)) / (1 - exponent);
+        return sum;
+    }
+
+    private long nextHotSetKey() {
+        if (hotKeys >= keys || random.nextDouble() < hotTrafficFraction)
+            return random.nextLong(hotKeys);
+        return hotKeys + random.nextLong(keys - hotKeys);
+    }
+}
@@ -0,0 +1,194 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces record generation for a task.
+ * <p>
+ * Without a target rate, batches of 'objects' records are scheduled at a fixed rate of one
+ * every 'frequency' milliseconds: deadlines are computed from the first run, so the time spent
+ * generating a batch does not make the schedule drift. With a target rate, a token bucket is
+ * refilled at 'records_per_second' and a batch is granted as soon as enough tokens are available.
+ * <p>
+ * When generation overruns one or more intervals, the catch-up policy decides what happens to
+ * the missed batches: {@link CatchUpPolicy#SKIP} drops them, {@link CatchUpPolicy#BURST} generates
+ * them at once, up to {@link #MAX_CATCH_UP_BATCHES} batches.
+ * <p>
+ * Callers park in {@link #acquire(long)} until the next deadline, and {@link #stop()} wakes them up.
+ * Callers serving several schedulers from one thread check {@link #nanosUntilDue()} instead and
+ * acquire without waiting.
+ */
+public class PollScheduler {
+
+    public static final int MAX_CATCH_UP_BATCHES = 10;
+
+    public enum CatchUpPolicy {
+        SKIP,
+        BURST;
+
+        public static CatchUpPolicy of(String policy) {
+            return policy == null ? SKIP : valueOf(policy.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final long periodNanos;
+    private final double recordsPerNano;
+    private final int batchSize;
+    private final CatchUpPolicy catchUpPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeup = lock.newCondition();
+    private volatile boolean stopped = false;
+
+    private long nextDeadlineNanos;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public PollScheduler(long periodMs, Double recordsPerSecond, int batchSize, CatchUpPolicy catchUpPolicy) {
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, periodMs));
+        this.recordsPerNano = recordsPerSecond == null || recordsPerSecond <= 0 ? 0 : recordsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.batchSize = Math.max(1, batchSize);
+        this.catchUpPolicy = catchUpPolicy;
+
+        long now = System.nanoTime();
+        this.nextDeadlineNanos = now;
+        this.lastRefillNanos = now;
+        // a full batch is available immediately, as for the first fixed-rate run
+        this.tokens = this.batchSize;
+    }
+
+    /**
+     * Parks until the next batch is due, waiting at most maxWaitMs.
+     *
+     * @return the number of records to generate, 0 if nothing is due yet or the scheduler was stopped
+     */
+    public int acquire(long maxWaitMs) throws InterruptedException {
+        long waitLimit = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        lock.lock();
+        try {
+            while (!stopped) {
+                long now = System.nanoTime();
+                long dueAt = isRateBased() ? refill(now) : nextDeadlineNanos;
+                if (now >= dueAt)
+                    return isRateBased() ? takeTokens() : takeSlots(now);
+                long waitNanos = Math.min(dueAt, waitLimit) - now;
+                if (waitNanos <= 0)
+                    return 0;
+                wakeup.awaitNanos(waitNanos);
+            }
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the time until the next batch is due, 0 when it's due now, without taking it.
+     */
+    public long nanosUntilDue() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long dueAt = isRateBased() ? refill(now) : nextDeadlineNanos;
+            return Math.max(0L, dueAt - now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks for at most waitMs, returning early when the scheduler is stopped.
+     */
+    public void pause(long waitMs) throws InterruptedException {
+        lock.lock();
+        try {
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+            while (!stopped && waitNanos > 0)
+                waitNanos = wakeup.awaitNanos(waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the next fixed-rate deadline, for instance after a run triggered outside the scheduler.
+     */
+    public void delay(long delayMs) {
+        lock.lock();
+        try {
+            nextDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            lastRefillNanos = System.nanoTime();
+            tokens = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        lock.lock();
+        try {
+            wakeup.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public boolean isRateBased() {
+        return recordsPerNano > 0;
+    }
+
+    private int takeSlots(long now) {
+        long missed = (now - nextDeadlineNanos) / periodNanos;
+        // the schedule always moves past now, BURST only changes how many batches are generated
+        nextDeadlineNanos += (missed + 1) * periodNanos;
+        if (catchUpPolicy == CatchUpPolicy.BURST)
+            return (int) Math.min(missed + 1, MAX_CATCH_UP_BATCHES) * batchSize;
+        return batchSize;
+    }
+
+    /**
+     * Adds the tokens accrued since the last refill and returns the time at which a full batch is available.
+     */
+    private long refill(long now) {
+        double capacity = catchUpPolicy == CatchUpPolicy.BURST ? (double) batchSize * MAX_CATCH_UP_BATCHES : batchSize;
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * recordsPerNano);
+        lastRefillNanos = now;
+        if (tokens >= batchSize)
+            return now;
+        return now + (long) Math.ceil((batchSize - tokens) / recordsPerNano);
+    }
+
+    private int takeTokens() {
+        int granted = (int) Math.floor(tokens);
+        tokens -= granted;
+        return granted;
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs generation, parsing and conversion on a background thread, keeping a bounded queue of
+ * ready source records, so that poll() only hands over records that are already built.
+ * <p>
+ * The generator blocks when the queue is full, which keeps at most 'depth' records ahead of
+ * the producer. A failure of the generator is rethrown by the next {@link #drain(long)}.
+ */
+public class RecordPrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecordPrefetcher.class);
+
+    private static final long STOP_TIMEOUT_MS = 5000L;
+
+    @FunctionalInterface
+    public interface RecordGenerator {
+        List<SourceRecord> generate() throws InterruptedException;
+    }
+
+    private final String name;
+    private final RecordGenerator generator;
+    private final BlockingQueue<SourceRecord> records;
+    private final int maxBatchSize;
+
+    private volatile boolean running;
+    private volatile RuntimeException failure;
+    private Thread generatorThread;
+
+    public RecordPrefetcher(String name, int depth, int maxBatchSize, RecordGenerator generator) {
+        this.name = name;
+        this.generator = generator;
+        this.records = new ArrayBlockingQueue<>(Math.max(1, depth));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        generatorThread = new Thread(this::runLoop, "jr-prefetch-" + name);
+        generatorThread.setDaemon(true);
+        generatorThread.start();
+    }
+
+    /**
+     * Drains at most the max batch size of ready records, waiting at most timeoutMs for the first one.
+     */
+    public List<SourceRecord> drain(long timeoutMs) throws InterruptedException {
+        List<SourceRecord> result = new ArrayList<>();
+        SourceRecord first = records.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first != null) {
+            result.add(first);
+            records.drainTo(result, maxBatchSize - 1);
+        }
+        if (result.isEmpty() && failure != null)
+            throw failure;
+        return result;
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = generatorThread;
+            generatorThread = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive() && LOG.isWarnEnabled())
+                LOG.warn("Prefetch thread {} did not stop within {} ms", thread.getName(), STOP_TIMEOUT_MS);
+        }
+        records.clear();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                for (SourceRecord record : generator.generate())
+                    records.put(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            if (LOG.isErrorEnabled())
+                LOG.error("Record generation failed:{}", e.getMessage());
+            failure = e;
+            running = false;
+        }
+    }
+}
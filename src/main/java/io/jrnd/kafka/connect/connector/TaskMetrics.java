@@ -0,0 +1,247 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.CumulativeSum;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.WindowedCount;
+import org.apache.kafka.common.metrics.stats.WindowedSum;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of a source task, exposed over JMX as
+ * {@code jr.kafka.connect:type=source-task-metrics,connector=<name>,task=<id>,template=<template>}.
+ * <p>
+ * Every stage of the generation of a batch is timed, in milliseconds: spawning JR and running it
+ * until it exits, or rendering with the in-JVM engine, then parsing records, inferring their
+ * schemas and converting them to Structs. JR stages are recorded for every JR run, the other
+ * stages once per batch. Each stage reports its average, maximum and 50th, 95th and 99th
+ * percentiles over the sample window. Percentiles of the stages running in the JVM are measured
+ * up to 100 ms, in 0.1 ms buckets, those including a JR process up to 10 s.
+ * <p>
+ * 'generate-busy-ratio' is the fraction of time the task spends generating records rather than
+ * waiting for the next batch: a task close to 1 is saturated and can't keep up with its schedule.
+ * <p>
+ * Per-record timings are accumulated by the thread generating the batch, and only recorded when
+ * the batch is complete.
+ */
+public class TaskMetrics implements AutoCloseable {
+
+    public static final String JMX_PREFIX = "jr.kafka.connect";
+    public static final String GROUP = "source-task-metrics";
+
+    static final int PERCENTILES_SIZE_BYTES = 4000;
+    // percentiles are bucketed linearly up to the max latency of the stage
+    static final double MAX_PROCESS_LATENCY_MS = 10_000;
+    static final double MAX_IN_JVM_LATENCY_MS = 100;
+
+    public enum Stage {
+        JR_SPAWN("jr-spawn", MAX_PROCESS_LATENCY_MS),
+        JR_RUN("jr-run", MAX_PROCESS_LATENCY_MS),
+        ENGINE_RENDER("engine-render", MAX_IN_JVM_LATENCY_MS),
+        PARSE("parse", MAX_IN_JVM_LATENCY_MS),
+        SCHEMA_INFERENCE("schema-inference", MAX_IN_JVM_LATENCY_MS),
+        CONVERSION("conversion", MAX_IN_JVM_LATENCY_MS),
+        GENERATE("generate", MAX_PROCESS_LATENCY_MS);
+
+        private final String metricPrefix;
+        private final double maxLatencyMs;
+
+        Stage(String metricPrefix, double maxLatencyMs) {
+            this.metricPrefix = metricPrefix;
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        public String getMetricPrefix() {
+            return metricPrefix;
+        }
+
+        public double getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+    }
+
+    private final Metrics metrics;
+    private final Map<Stage, Sensor> stageSensors = new EnumMap<>(Stage.class);
+    private final long[] pendingNanos = new long[Stage.values().length];
+    private final Sensor recordsSensor;
+    private final Sensor batchSizeSensor;
+    private final Sensor emptyPollSensor;
+    private final Sensor jrFailureSensor;
+    private final Sensor jrTimeoutSensor;
+    private final Sensor jrRetrySensor;
+    private final Sensor templateReloadSensor;
+    private final Sensor templateReloadFailureSensor;
+    private final Sensor schemaChangeSensor;
+    private volatile long lastTemplateReloadMs = 0L;
+
+    public TaskMetrics(String connector, int taskId, String template) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("connector", connector);
+        tags.put("task", String.valueOf(taskId));
+        tags.put("template", template);
+
+        this.metrics = new Metrics(
+                new MetricConfig().tags(tags),
+                Collections.singletonList(new JmxReporter()),
+                Time.SYSTEM,
+                new KafkaMetricsContext(JMX_PREFIX));
+
+        for (Stage stage : Stage.values())
+            stageSensors.put(stage, stageSensor(stage));
+        stageSensors.get(Stage.GENERATE).add(
+                metrics.metricName("generate-busy-ratio", GROUP, "Fraction of time spent generating records."),
+                new Rate(TimeUnit.MILLISECONDS, new WindowedSum()));
+
+        recordsSensor = metrics.sensor("records-generated");
+        recordsSensor.add(metrics.metricName("records-generated-rate", GROUP, "Records generated per second."), new Rate(new WindowedSum()));
+        recordsSensor.add(metrics.metricName("records-generated-total", GROUP, "Total number of records generated."), new CumulativeSum());
+
+        batchSizeSensor = metrics.sensor("batch-size");
+        batchSizeSensor.add(metrics.metricName("batch-size-avg", GROUP, "Average number of records in a batch."), new Avg());
+        batchSizeSensor.add(metrics.metricName("batch-size-max", GROUP, "Maximum number of records in a batch."), new Max());
+
+        emptyPollSensor = metrics.sensor("empty-polls");
+        emptyPollSensor.add(metrics.metricName("empty-poll-rate", GROUP, "Polls returning no records per second."), new Rate(new WindowedCount()));
+        emptyPollSensor.add(metrics.metricName("empty-poll-total", GROUP, "Total number of polls returning no records."), new CumulativeCount());
+
+        jrFailureSensor = countSensor("jr-failure", "JR runs failed");
+        jrTimeoutSensor = countSensor("jr-timeout", "JR runs killed after the timeout");
+        jrRetrySensor = countSensor("jr-retry", "JR runs retried");
+
+        templateReloadSensor = countSensor("template-reload", "templates reloaded");
+        templateReloadFailureSensor = countSensor("template-reload-failure", "template changes rejected");
+        metrics.addMetric(
+                metrics.metricName("last-template-reload-timestamp-ms", GROUP, "Time of the last template reload, in milliseconds since the epoch, 0 if never reloaded."),
+                (Gauge<Long>) (config, now) -> lastTemplateReloadMs);
+        schemaChangeSensor = countSensor("schema-change", "converged schemas widened by a record that did not fit them");
+    }
+
+    private Sensor countSensor(String prefix, String description) {
+        Sensor sensor = metrics.sensor(prefix);
+        sensor.add(metrics.metricName(prefix + "-rate", GROUP, description + " per second."), new Rate(new WindowedCount()));
+        sensor.add(metrics.metricName(prefix + "-total", GROUP, "Total number of " + description + "."), new CumulativeCount());
+        return sensor;
+    }
+
+    private Sensor stageSensor(Stage stage) {
+        String prefix = stage.getMetricPrefix();
+        Sensor sensor = metrics.sensor(prefix);
+        sensor.add(metrics.metricName(prefix + "-time-avg-ms", GROUP, "Average time of the " + prefix + " stage in ms."), new Avg());
+        sensor.add(metrics.metricName(prefix + "-time-max-ms", GROUP, "Maximum time of the " + prefix + " stage in ms."), new Max());
+        sensor.add(new Percentiles(PERCENTILES_SIZE_BYTES, stage.getMaxLatencyMs(), Percentiles.BucketSizing.LINEAR,
+                new Percentile(metrics.metricName(prefix + "-time-p50-ms", GROUP, "Median time of the " + prefix + " stage in ms."), 50),
+                new Percentile(metrics.metricName(prefix + "-time-p95-ms", GROUP, "95th percentile time of the " + prefix + " stage in ms."), 95),
+                new Percentile(metrics.metricName(prefix + "-time-p99-ms", GROUP, "99th percentile time of the " + prefix + " stage in ms."), 99)));
+        return sensor;
+    }
+
+    /**
+     * Records the time of a stage run once, such as a JR run.
+     */
+    public void recordStage(Stage stage, long nanos) {
+        stageSensors.get(stage).record(toMillis(nanos));
+    }
+
+    /**
+     * Adds the time a stage took for a single record, recorded with the batch.
+     */
+    public void addRecordTime(Stage stage, long nanos) {
+        pendingNanos[stage.ordinal()] += nanos;
+    }
+
+    /**
+     * Records a complete batch: its size, the time taken to generate it and the per-record
+     * stage times accumulated since the previous batch.
+     */
+    public void recordBatch(int records, long generateNanos) {
+        for (Stage stage : Stage.values()) {
+            long nanos = pendingNanos[stage.ordinal()];
+            if (nanos > 0) {
+                recordStage(stage, nanos);
+                pendingNanos[stage.ordinal()] = 0;
+            }
+        }
+        recordStage(Stage.GENERATE, generateNanos);
+        recordsSensor.record(records);
+        batchSizeSensor.record(records);
+    }
+
+    public void recordEmptyPoll() {
+        emptyPollSensor.record();
+    }
+
+    public void recordJrFailure() {
+        jrFailureSensor.record();
+    }
+
+    public void recordJrTimeout() {
+        jrTimeoutSensor.record();
+    }
+
+    public void recordJrRetry() {
+        jrRetrySensor.record();
+    }
+
+    public void recordTemplateReload(long timeMs) {
+        lastTemplateReloadMs = timeMs;
+        templateReloadSensor.record();
+    }
+
+    public void recordTemplateReloadFailure() {
+        templateReloadFailureSensor.record();
+    }
+
+    public void recordSchemaChange() {
+        schemaChangeSensor.record();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Templates available in JR, listed once per JR executable for the lifetime of the worker.
+ * <p>
+ * The catalog of an executable is keyed by its resolved path, size and modification time, so
+ * an upgraded JR is listed again. A failed or timed out listing isn't cached.
+ */
+public class TemplateCatalog {
+
+    public static final long DEFAULT_TIMEOUT_MS = 10000L;
+
+    private record Key(String executable, long size, long lastModifiedMs) {}
+
+    private static final Map<Key, List<String>> CATALOGS = new ConcurrentHashMap<>();
+
+    private TemplateCatalog() {}
+
+    /**
+     * Returns the templates of the JR executable in executablePath, listing them only on the
+     * first call.
+     *
+     * @return the templates, empty if JR can't list them
+     */
+    public static List<String> templates(String executablePath, long timeoutMs) {
+        Key key = key(executablePath);
+        List<String> templates = CATALOGS.get(key);
+        if (templates != null)
+            return templates;
+
+        templates = Collections.unmodifiableList(JRCommandExecutor.getInstance(executablePath).templates(timeoutMs));
+        if (!templates.isEmpty())
+            CATALOGS.put(key, templates);
+        return templates;
+    }
+
+    public static void clear() {
+        CATALOGS.clear();
+    }
+
+    private static Key key(String executablePath) {
+        Path executable = resolve(JRCommand.executable(executablePath));
+        if (executable == null)
+            return new Key(JRCommand.executable(executablePath), -1L, -1L);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(executable, BasicFileAttributes.class);
+            return new Key(executable.toString(), attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return new Key(executable.toString(), -1L, -1L);
+        }
+    }
+
+    /**
+     * Resolves an executable as the process launcher would, searching $PATH for a bare name.
+     */
+    private static Path resolve(String executable) {
+        if (executable.contains(File.separator))
+            return toRealPath(Paths.get(executable));
+        String path = System.getenv("PATH");
+        if (path == null)
+            return null;
+        for (String directory : path.split(File.pathSeparator)) {
+            if (directory.isEmpty())
+                continue;
+            Path candidate = toRealPath(Paths.get(directory, executable));
+            if (candidate != null && Files.isExecutable(candidate))
+                return candidate;
+        }
+        return null;
+    }
+
+    private static Path toRealPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
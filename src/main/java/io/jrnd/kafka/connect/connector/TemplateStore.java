@@ -0,0 +1,244 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Reads templates from files or URLs.
+ * <p>
+ * Templates downloaded from a URL are cached on disk, keyed by URL, with their ETag and
+ * Last-Modified headers. A cached template validated less than maxAgeMs ago is used as is,
+ * an older one is validated again with a conditional request. When the origin is down, slow or
+ * answers with an error, the cached copy is used, however old it is.
+ */
+public class TemplateStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateStore.class);
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 10000;
+    public static final long DEFAULT_CACHE_MAX_AGE_MS = 60000L;
+    public static final String DEFAULT_CACHE_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "jr-template-cache").toString();
+
+    private static final Pattern URL_PATTERN = Pattern.compile("^(http|https)://[^\\s/$.?#].[^\\s]*$");
+
+    private static final String TEMPLATE_SUFFIX = ".tpl";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final String URL = "url";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String VALIDATED_AT = "validated-at";
+
+    private final Path cacheDir;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final long maxAgeMs;
+
+    private long requests = 0L;
+
+    public TemplateStore(Path cacheDir, int connectTimeoutMs, int readTimeoutMs, long maxAgeMs) {
+        this.cacheDir = cacheDir;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public static boolean isURL(String location) {
+        return URL_PATTERN.matcher(location).matches();
+    }
+
+    /**
+     * Templates are passed to JR on a single line.
+     */
+    public static String toSingleLine(String template) {
+        return template.replaceAll("[\\n\\r]", "");
+    }
+
+    /**
+     * Reads the template at location, a URL or the path of a file.
+     */
+    public String read(String location) throws IOException {
+        if (isURL(location))
+            return fetch(location);
+        return Files.readString(Paths.get(location));
+    }
+
+    /**
+     * Downloads the template at url, or returns the cached copy.
+     *
+     * @throws IOException when the template can't be downloaded and isn't cached
+     */
+    public synchronized String fetch(String url) throws IOException {
+        String key = cacheKey(url);
+        Path templateFile = cacheDir.resolve(key + TEMPLATE_SUFFIX);
+        Path metadataFile = cacheDir.resolve(key + METADATA_SUFFIX);
+
+        Properties metadata = readMetadata(metadataFile);
+        String cached = metadata != null && Files.exists(templateFile) ? Files.readString(templateFile) : null;
+        if (cached != null && System.currentTimeMillis() - Long.parseLong(metadata.getProperty(VALIDATED_AT, "0")) < maxAgeMs)
+            return cached;
+
+        try {
+            return download(url, cached, metadata, templateFile, metadataFile);
+        } catch (IOException e) {
+            if (cached == null)
+                throw e;
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't download template {}, using the cached copy:{}", url, e.getMessage());
+            return cached;
+        }
+    }
+
+    /**
+     * Number of requests sent to origins.
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    private String download(String url, String cached, Properties metadata, Path templateFile, Path metadataFile) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod("GET");
+            conn.setConnectTimeout(connectTimeoutMs);
+            conn.setReadTimeout(readTimeoutMs);
+            if (cached != null) {
+                if (metadata.getProperty(ETAG) != null)
+                    conn.setRequestProperty("If-None-Match", metadata.getProperty(ETAG));
+                if (metadata.getProperty(LAST_MODIFIED) != null)
+                    conn.setRequestProperty("If-Modified-Since", metadata.getProperty(LAST_MODIFIED));
+            }
+
+            requests++;
+            int status = conn.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                metadata.setProperty(VALIDATED_AT, Long.toString(System.currentTimeMillis()));
+                writeMetadata(metadataFile, metadata);
+                return cached;
+            }
+            if (status != HttpURLConnection.HTTP_OK)
+                throw new IOException("HTTP status " + status + " for " + url);
+
+            String template;
+            try (InputStream in = conn.getInputStream()) {
+                template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            Properties downloaded = new Properties();
+            downloaded.setProperty(URL, url);
+            downloaded.setProperty(VALIDATED_AT, Long.toString(System.currentTimeMillis()));
+            if (conn.getHeaderField("ETag") != null)
+                downloaded.setProperty(ETAG, conn.getHeaderField("ETag"));
+            if (conn.getHeaderField("Last-Modified") != null)
+                downloaded.setProperty(LAST_MODIFIED, conn.getHeaderField("Last-Modified"));
+            cache(template, downloaded, templateFile, metadataFile);
+            return template;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Writes a downloaded template to the cache. A template that can't be cached is still used.
+     */
+    private void cache(String template, Properties metadata, Path templateFile, Path metadataFile) {
+        try {
+            Files.createDirectories(cacheDir);
+            writeAtomically(templateFile, template);
+            writeMetadata(metadataFile, metadata);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't cache template in {}:{}", cacheDir, e.getMessage());
+        }
+    }
+
+    private Properties readMetadata(Path metadataFile) {
+        if (!Files.exists(metadataFile))
+            return null;
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+            return metadata;
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Ignoring unreadable template cache entry {}:{}", metadataFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeMetadata(Path metadataFile, Properties metadata) {
+        try {
+            StringWriter writer = new StringWriter();
+            metadata.store(writer, null);
+            writeAtomically(metadataFile, writer.toString());
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't cache template metadata in {}:{}", cacheDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Other workers may read the cache while it's written, so entries are replaced, never rewritten.
+     */
+    private void writeAtomically(Path file, String content) throws IOException {
+        Path tmpFile = Files.createTempFile(cacheDir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmpFile, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static String cacheKey(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches template files and calls a listener when one of them changes.
+ * <p>
+ * The directories of the files are watched, so files replaced by a rename, as most editors and
+ * configuration management tools do, are seen as well. Events are debounced: the listener is
+ * called once the files have been quiet for debounceMs, on the watcher thread.
+ */
+public class TemplateWatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateWatcher.class);
+
+    public static final long DEFAULT_DEBOUNCE_MS = 200L;
+
+    private final Set<Path> files = new HashSet<>();
+    private final Set<Path> directories = new HashSet<>();
+    private final long debounceMs;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    private volatile boolean running = true;
+
+    public TemplateWatcher(String name, List<Path> templateFiles, long debounceMs, Runnable listener) throws IOException {
+        for (Path templateFile : templateFiles) {
+            Path file = templateFile.toAbsolutePath().normalize();
+            files.add(file);
+            directories.add(file.getParent());
+        }
+        this.debounceMs = debounceMs;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : directories) {
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        this.watcherThread = new Thread(this::watch, "jr-template-watcher-" + name);
+        this.watcherThread.setDaemon(true);
+    }
+
+    public void start() {
+        watcherThread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled())
+                LOG.warn("Can't close template watcher:{}", e.getMessage());
+        }
+        watcherThread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                if (!changed(watchService.take()))
+                    continue;
+                // waits for the writes to settle, a file is often written in several steps
+                WatchKey key;
+                while ((key = watchService.poll(debounceMs, TimeUnit.MILLISECONDS)) != null)
+                    changed(key);
+                if (!running)
+                    break;
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    if (LOG.isErrorEnabled())
+                        LOG.error("Template reload failed:{}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed by the task
+        }
+    }
+
+    /**
+     * Consumes the events of a key, returning whether one of the template files changed.
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            if (files.contains(directory.resolve((Path) event.context())))
+                changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+}
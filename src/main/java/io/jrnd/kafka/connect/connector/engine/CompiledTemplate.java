@@ -0,0 +1,63 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.engine;
+
+import java.util.List;
+
+/**
+ * A JR template parsed once into an evaluation tree of text and action nodes.
+ * Compiled templates are immutable and can be rendered any number of times.
+ */
+public class CompiledTemplate {
+
+    interface Node {
+        void render(GenerationContext context, StringBuilder output);
+    }
+
+    interface Expression {
+        Object evaluate(GenerationContext context);
+    }
+
+    private final String source;
+    private final Node[] nodes;
+    private final int textLength;
+
+    CompiledTemplate(String source, List<Node> nodes, int textLength) {
+        this.source = source;
+        this.nodes = nodes.toArray(new Node[0]);
+        this.textLength = textLength;
+    }
+
+    public String render(GenerationContext context) {
+        StringBuilder output = new StringBuilder(textLength + 16 * nodes.length);
+        render(context, output);
+        return output.toString();
+    }
+
+    public void render(GenerationContext context, StringBuilder output) {
+        for (Node node : nodes)
+            node.render(context, output);
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,86 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.engine;
+
+import io.jrnd.kafka.connect.connector.Seeds;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * State shared by the evaluations of a compiled template: the random generator and the named
+ * counters. A context is meant to be used by a single task thread.
+ * <p>
+ * With a seed, every record draws from its own random generator, seeded from the record
+ * sequence number, and counters are computed from the sequence number too: the record of a
+ * given sequence number is always the same, whatever the records generated before it.
+ */
+public class GenerationContext {
+
+    private final Long seed;
+    private SplittableRandom random;
+
+    // counters calls in the current record, and in every record once known
+    private final Map<String, Long> counterCalls = new HashMap<>();
+    private Map<String, Long> counterCallsPerRecord = Map.of();
+    private long sequence = 0L;
+
+    public GenerationContext(Long seed) {
+        this.seed = seed;
+        this.random = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+    }
+
+    public SplittableRandom random() {
+        return random;
+    }
+
+    /**
+     * Starts the evaluation of the record with the given sequence number.
+     */
+    public void startRecord(long sequence) {
+        this.sequence = sequence;
+        counterCalls.clear();
+        if (seed != null)
+            random = new SplittableRandom(Seeds.mix(seed, sequence));
+    }
+
+    /**
+     * Sets how many times every counter is called for each record, so that counters can be
+     * computed from the sequence number of the record.
+     */
+    void setCounterCallsPerRecord(Map<String, Long> counterCallsPerRecord) {
+        this.counterCallsPerRecord = Map.copyOf(counterCallsPerRecord);
+    }
+
+    Map<String, Long> getCounterCalls() {
+        return counterCalls;
+    }
+
+    /**
+     * Returns the next value of the named counter, starting from start and adding step at every call.
+     */
+    public long nextCounterValue(String name, long start, long step) {
+        long call = counterCalls.merge(name, 1L, Long::sum) - 1;
+        long callsPerRecord = counterCallsPerRecord.getOrDefault(name, 1L);
+        return start + step * (sequence * callsPerRecord + call);
+    }
+}
@@ -0,0 +1,90 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.engine;
+
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
+import io.jrnd.kafka.connect.connector.model.Template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates records inside the JVM, without running the JR executable.
+ * <p>
+ * Key and value templates are compiled once, when the engine is created, and evaluated for every
+ * record. Only embedded templates are supported: the named JR templates are not part of the plugin.
+ * Keys for 'key_field_name' are not rendered from a template, see {@link io.jrnd.kafka.connect.connector.KeyGenerator}.
+ */
+public class JRTemplateEngine {
+
+    public static final String ENGINE_JR = "jr";
+    public static final String ENGINE_JVM = "jvm";
+
+    private final CompiledTemplate valueTemplate;
+    private final CompiledTemplate keyTemplate;
+    private final GenerationContext context;
+
+    /**
+     * @throws IllegalArgumentException if the templates can't be compiled
+     */
+    public JRTemplateEngine(Template templateWrapper) {
+        if (!supports(templateWrapper))
+            throw new IllegalArgumentException("Template '" + templateWrapper.getTemplate() + "' is not an embedded template");
+
+        this.valueTemplate = TemplateParser.parse(templateWrapper.getTemplate(), true);
+        this.keyTemplate = templateWrapper.isKeyEmbedded() ? TemplateParser.parse(templateWrapper.getKeyTemplate(), true) : null;
+        this.context = new GenerationContext(templateWrapper.getSeed());
+
+        // templates have no control structures, so one evaluation tells how many times every counter is called per record
+        GenerationContext probe = new GenerationContext(null);
+        probe.startRecord(0L);
+        try {
+            render(probe);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // a function failing on its arguments fails every record, the template can't be used
+            throw new IllegalArgumentException("Template can't be rendered: " + e.getMessage(), e);
+        }
+        context.setCounterCallsPerRecord(probe.getCounterCalls());
+    }
+
+    public static boolean supports(Template templateWrapper) {
+        return templateWrapper.isEmbedded();
+    }
+
+    /**
+     * Generates the records of sequence numbers firstSequence to firstSequence + objects - 1.
+     */
+    public List<GeneratedRecord> generate(int objects, long firstSequence) {
+        List<GeneratedRecord> records = new ArrayList<>(objects);
+        for (int i = 0; i < objects; i++) {
+            context.startRecord(firstSequence + i);
+            records.add(render(context));
+        }
+        return records;
+    }
+
+    private GeneratedRecord render(GenerationContext generationContext) {
+        String key = keyTemplate == null ? null : keyTemplate.render(generationContext).trim();
+        return new GeneratedRecord(key, valueTemplate.render(generationContext).trim());
+    }
+}
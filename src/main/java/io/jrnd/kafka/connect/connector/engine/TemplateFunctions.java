@@ -0,0 +1,280 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.engine;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the JR functions available to compiled templates.
+ * <p>
+ * Names and arguments follow the JR documentation, https://jrnd.io/docs/functions/, for the most
+ * common functions. All the random values are drawn from the {@link GenerationContext}, so a
+ * seeded context always generates the same data.
+ */
+public final class TemplateFunctions {
+
+    @FunctionalInterface
+    public interface TemplateFunction {
+        Object apply(GenerationContext context, Object[] args);
+    }
+
+    public record Definition(int minArgs, int maxArgs, TemplateFunction function) {}
+
+    private static final int MAX_CACHED_CHOICES = 1024;
+    private static final String ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private static final String[] NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Sandra", "Paul", "Ashley" };
+    private static final String[] SURNAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson" };
+    private static final String[] COMPANIES = {
+            "Acme Corporation", "Globex", "Initech", "Umbrella Corporation", "Hooli", "Vehement Capital Partners",
+            "Massive Dynamic", "Stark Industries", "Wayne Enterprises", "Cyberdyne Systems", "Soylent", "Wonka Industries" };
+    private static final String[] EMAIL_PROVIDERS = { "gmail.com", "yahoo.com", "hotmail.com", "aol.com", "email.com", "outlook.com" };
+    private static final String[] CITIES = {
+            "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio", "San Diego",
+            "Dallas", "San Jose", "Austin", "Columbus", "Charlotte", "Denver", "Seattle", "Boston", "Memphis", "Tucson" };
+    private static final String[] STREETS = {
+            "Main Street", "Park Place", "Oak Street", "Pine Street", "Maple Avenue", "Cedar Lane", "Elm Street",
+            "Washington Street", "Lake Street", "Hill Road", "Queen Street", "South Street", "Oakwood Avenue" };
+    private static final String[] STATES = {
+            "Alabama", "Alaska", "Arizona", "California", "Colorado", "Florida", "Georgia", "Illinois", "Indiana",
+            "Massachusetts", "Michigan", "Nevada", "New York", "Ohio", "Oregon", "Tennessee", "Texas", "Washington" };
+    private static final String[] COUNTRIES = { "US", "CA", "MX", "GB", "IE", "FR", "DE", "IT", "ES", "NL", "SE", "JP", "AU", "BR", "IN" };
+    private static final String[] WORDS = {
+            "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do", "eiusmod",
+            "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim", "ad", "minim", "veniam" };
+
+    private static final Map<String, Definition> FUNCTIONS = new HashMap<>();
+    private static final Map<String, String[]> CHOICES = new ConcurrentHashMap<>();
+
+    static {
+        // numbers
+        register("integer", 2, 2, (ctx, args) -> between(ctx.random(), toLong(args[0]), toLong(args[1])));
+        register("integer64", 2, 2, (ctx, args) -> between(ctx.random(), toLong(args[0]), toLong(args[1])));
+        register("floating", 2, 2, (ctx, args) -> {
+            double min = toDouble(args[0]);
+            return min + ctx.random().nextDouble() * (toDouble(args[1]) - min);
+        });
+        register("boolean", 0, 0, (ctx, args) -> ctx.random().nextBoolean());
+        register("format_float", 2, 2, (ctx, args) -> String.format(Locale.ROOT, toText(args[0]), toDouble(args[1])));
+        register("add", 2, 2, (ctx, args) -> toLong(args[0]) + toLong(args[1]));
+        register("sub", 2, 2, (ctx, args) -> toLong(args[0]) - toLong(args[1]));
+        register("mul", 2, 2, (ctx, args) -> toLong(args[0]) * toLong(args[1]));
+        register("div", 2, 2, (ctx, args) -> toLong(args[0]) / toLong(args[1]));
+        register("mod", 2, 2, (ctx, args) -> toLong(args[0]) % toLong(args[1]));
+
+        // strings
+        register("randoms", 1, 1, (ctx, args) -> pick(ctx.random(), choices(toText(args[0]))));
+        register("random_string", 2, 2, (ctx, args) -> randomString(ctx.random(), (int) between(ctx.random(), toLong(args[0]), toLong(args[1]))));
+        register("upper", 1, 1, (ctx, args) -> toText(args[0]).toUpperCase(Locale.ROOT));
+        register("lower", 1, 1, (ctx, args) -> toText(args[0]).toLowerCase(Locale.ROOT));
+        register("trim", 1, 1, (ctx, args) -> toText(args[0]).trim());
+        register("printf", 1, Integer.MAX_VALUE, (ctx, args) -> printf(args));
+        register("sentence", 1, 1, (ctx, args) -> sentence(ctx.random(), (int) toLong(args[0])));
+
+        // identifiers
+        register("uuid", 0, 0, (ctx, args) -> uuid(ctx.random()));
+        register("key", 2, 2, (ctx, args) -> toText(args[0]) + ctx.random().nextLong(Math.max(1L, toLong(args[1]))));
+        register("counter", 3, 3, (ctx, args) -> ctx.nextCounterValue(toText(args[0]), toLong(args[1]), toLong(args[2])));
+
+        // people and companies
+        register("name", 0, 0, (ctx, args) -> pick(ctx.random(), NAMES));
+        register("surname", 0, 0, (ctx, args) -> pick(ctx.random(), SURNAMES));
+        register("company", 0, 0, (ctx, args) -> pick(ctx.random(), COMPANIES));
+        register("email", 0, 0, (ctx, args) -> (pick(ctx.random(), NAMES) + "." + pick(ctx.random(), SURNAMES)
+                + "@" + pick(ctx.random(), EMAIL_PROVIDERS)).toLowerCase(Locale.ROOT));
+        register("username", 0, 0, (ctx, args) -> (pick(ctx.random(), NAMES).charAt(0) + pick(ctx.random(), SURNAMES)
+                + ctx.random().nextInt(100)).toLowerCase(Locale.ROOT));
+        register("phone", 0, 0, (ctx, args) -> digits(ctx.random(), 3) + " " + digits(ctx.random(), 8));
+
+        // addresses
+        register("city", 0, 0, (ctx, args) -> pick(ctx.random(), CITIES));
+        register("street", 0, 0, (ctx, args) -> pick(ctx.random(), STREETS));
+        register("building", 1, 1, (ctx, args) -> digits(ctx.random(), (int) Math.max(1L, toLong(args[0]))));
+        register("zip", 0, 0, (ctx, args) -> digits(ctx.random(), 5));
+        register("state", 0, 0, (ctx, args) -> pick(ctx.random(), STATES));
+        register("country", 0, 0, (ctx, args) -> pick(ctx.random(), COUNTRIES));
+
+        // dates
+        register("date_between", 2, 2, (ctx, args) -> {
+            LocalDate from = LocalDate.parse(toText(args[0]));
+            long days = ChronoUnit.DAYS.between(from, LocalDate.parse(toText(args[1])));
+            return from.plusDays(between(ctx.random(), 0, Math.max(0L, days))).toString();
+        });
+        register("past", 1, 1, (ctx, args) -> LocalDate.now().minusDays(between(ctx.random(), 1, 365 * Math.max(1L, toLong(args[0])))).toString());
+        register("future", 1, 1, (ctx, args) -> LocalDate.now().plusDays(between(ctx.random(), 1, 365 * Math.max(1L, toLong(args[0])))).toString());
+        register("unix_time_stamp", 1, 1, (ctx, args) -> Instant.now().getEpochSecond() - between(ctx.random(), 0, 86400L * Math.max(0L, toLong(args[0]))));
+
+        // network
+        register("ip", 1, 1, (ctx, args) -> ip(ctx.random(), toText(args[0])));
+        register("mac", 0, 0, (ctx, args) -> mac(ctx.random()));
+    }
+
+    private TemplateFunctions() {}
+
+    private static void register(String name, int minArgs, int maxArgs, TemplateFunction function) {
+        FUNCTIONS.put(name, new Definition(minArgs, maxArgs, function));
+    }
+
+    public static Definition lookup(String name) {
+        return FUNCTIONS.get(name);
+    }
+
+    public static boolean isDefined(String name) {
+        return FUNCTIONS.containsKey(name);
+    }
+
+    /**
+     * Formats a value the way Go templates print it.
+     */
+    public static String toText(Object value) {
+        if (value == null)
+            return "<no value>";
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number))
+                return String.valueOf(number);
+            return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+
+    static long toLong(Object value) {
+        if (value instanceof Number number)
+            return number.longValue();
+        try {
+            return Long.parseLong(toText(value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("template: expected an integer, got '" + value + "'");
+        }
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Number number)
+            return number.doubleValue();
+        try {
+            return Double.parseDouble(toText(value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("template: expected a number, got '" + value + "'");
+        }
+    }
+
+    /**
+     * Random long between min and max, both inclusive.
+     */
+    private static long between(SplittableRandom random, long min, long max) {
+        if (max < min)
+            throw new IllegalArgumentException("template: invalid interval [" + min + ", " + max + "]");
+        return max == Long.MAX_VALUE ? random.nextLong(min, max) : random.nextLong(min, max + 1);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String[] choices(String values) {
+        String[] choices = CHOICES.get(values);
+        if (choices == null) {
+            choices = values.split("\\|", -1);
+            if (CHOICES.size() < MAX_CACHED_CHOICES)
+                CHOICES.put(values, choices);
+        }
+        return choices;
+    }
+
+    private static String randomString(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length()));
+        return new String(chars);
+    }
+
+    private static String digits(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('0' + random.nextInt(10));
+        return new String(chars);
+    }
+
+    private static String sentence(SplittableRandom random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = pick(random, WORDS);
+            if (i == 0)
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            else
+                sentence.append(' ');
+            sentence.append(word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static String printf(Object[] args) {
+        Object[] values = new Object[args.length - 1];
+        System.arraycopy(args, 1, values, 0, values.length);
+        return String.format(Locale.ROOT, toText(args[0]).replace("%v", "%s"), values);
+    }
+
+    private static String uuid(SplittableRandom random) {
+        // version 4, IETF variant
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    private static String ip(SplittableRandom random, String cidr) {
+        String[] parts = cidr.split("/");
+        String[] octets = parts[0].split("\\.");
+        if (octets.length != 4)
+            throw new IllegalArgumentException("template: invalid IPv4 network '" + cidr + "'");
+        long address = 0;
+        for (String octet : octets)
+            address = (address << 8) | (Long.parseLong(octet) & 0xff);
+        int prefix = parts.length > 1 ? Integer.parseInt(parts[1]) : 32;
+        long hostMask = prefix >= 32 ? 0L : (1L << (32 - prefix)) - 1;
+        address = (address & ~hostMask & 0xffffffffL) | (random.nextLong() & hostMask);
+        return ((address >> 24) & 0xff) + "." + ((address >> 16) & 0xff) + "." + ((address >> 8) & 0xff) + "." + (address & 0xff);
+    }
+
+    private static String mac(SplittableRandom random) {
+        StringBuilder mac = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            if (i > 0)
+                mac.append(':');
+            mac.append(String.format("%02x", random.nextInt(256)));
+        }
+        return mac.toString();
+    }
+}
@@ -0,0 +1,319 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for the subset of the Go text/template syntax used by JR templates: text, actions
+ * calling functions with string, number and boolean literals, parenthesized calls, pipelines,
+ * comments and the trim markers '{{- ' and ' -}}'.
+ * <p>
+ * Functions are resolved against {@link TemplateFunctions} at parse time, so a template using an
+ * unknown function or an unsupported construct (variables, fields, control structures) fails
+ * to compile with an {@link IllegalArgumentException}.
+ */
+public final class TemplateParser {
+
+    private static final String LEFT_DELIM = "{{";
+    private static final String RIGHT_DELIM = "}}";
+    private static final String LEFT_COMMENT = "/*";
+    private static final String RIGHT_COMMENT = "*/";
+
+    private final String source;
+    private final boolean joinLines;
+    private int pos;
+
+    private TemplateParser(String source, boolean joinLines) {
+        this.source = source;
+        this.joinLines = joinLines;
+    }
+
+    public static CompiledTemplate parse(String source) {
+        return parse(source, false);
+    }
+
+    /**
+     * @param joinLines drop line breaks from the template text, as JR does when printing records
+     */
+    public static CompiledTemplate parse(String source, boolean joinLines) {
+        return new TemplateParser(source, joinLines).parseTemplate();
+    }
+
+    private CompiledTemplate parseTemplate() {
+        List<CompiledTemplate.Node> nodes = new ArrayList<>();
+        int textLength = 0;
+        boolean trimLeading = false;
+        while (pos < source.length()) {
+            int open = source.indexOf(LEFT_DELIM, pos);
+            String text = source.substring(pos, open < 0 ? source.length() : open);
+            if (trimLeading)
+                text = text.stripLeading();
+            if (open < 0) {
+                textLength += addText(nodes, text);
+                break;
+            }
+
+            pos = open + LEFT_DELIM.length();
+            if (isTrimMarker(pos)) {
+                text = text.stripTrailing();
+                pos += 2;
+            }
+            textLength += addText(nodes, text);
+
+            if (source.startsWith(LEFT_COMMENT, pos)) {
+                int close = source.indexOf(RIGHT_COMMENT, pos);
+                if (close < 0)
+                    throw error("unclosed comment");
+                pos = close + RIGHT_COMMENT.length();
+                trimLeading = closeAction();
+                continue;
+            }
+
+            CompiledTemplate.Expression expression = parsePipeline();
+            trimLeading = closeAction();
+            nodes.add((context, output) -> output.append(TemplateFunctions.toText(expression.evaluate(context))));
+        }
+        return new CompiledTemplate(source, nodes, textLength);
+    }
+
+    private int addText(List<CompiledTemplate.Node> nodes, String text) {
+        if (joinLines)
+            text = text.replace("\n", "").replace("\r", "");
+        if (text.isEmpty())
+            return 0;
+        String nodeText = text;
+        nodes.add((context, output) -> output.append(nodeText));
+        return text.length();
+    }
+
+    private boolean isTrimMarker(int at) {
+        return at + 1 < source.length() && source.charAt(at) == '-' && isSpace(source.charAt(at + 1));
+    }
+
+    /**
+     * Consumes the end of an action, returning true when it carries a right trim marker.
+     */
+    private boolean closeAction() {
+        skipSpaces();
+        boolean trim = false;
+        if (pos > 0 && isSpace(source.charAt(pos - 1)) && source.startsWith("-" + RIGHT_DELIM, pos)) {
+            trim = true;
+            pos++;
+        }
+        if (!source.startsWith(RIGHT_DELIM, pos))
+            throw error("expected '" + RIGHT_DELIM + "'");
+        pos += RIGHT_DELIM.length();
+        return trim;
+    }
+
+    private CompiledTemplate.Expression parsePipeline() {
+        CompiledTemplate.Expression expression = parseCommand(null);
+        skipSpaces();
+        while (pos < source.length() && source.charAt(pos) == '|') {
+            pos++;
+            expression = parseCommand(expression);
+            skipSpaces();
+        }
+        return expression;
+    }
+
+    /**
+     * Parses a command, the result of the previous command in a pipeline being passed as its last argument.
+     */
+    private CompiledTemplate.Expression parseCommand(CompiledTemplate.Expression piped) {
+        skipSpaces();
+        int start = pos;
+        if (pos < source.length() && isIdentifierStart(source.charAt(pos))) {
+            String name = readIdentifier();
+            if ("true".equals(name) || "false".equals(name)) {
+                pos = start;
+            } else {
+                List<CompiledTemplate.Expression> arguments = new ArrayList<>();
+                while (hasOperand())
+                    arguments.add(parseOperand());
+                if (piped != null)
+                    arguments.add(piped);
+                return call(name, arguments, start);
+            }
+        }
+
+        CompiledTemplate.Expression operand = parseOperand();
+        if (piped != null)
+            throw error("can't pipe into a non-function", start);
+        if (hasOperand())
+            throw error("can't give arguments to a non-function", start);
+        return operand;
+    }
+
+    private boolean hasOperand() {
+        skipSpaces();
+        if (pos >= source.length())
+            return false;
+        char c = source.charAt(pos);
+        return c != '|' && c != ')' && !source.startsWith(RIGHT_DELIM, pos) && !(c == '-' && source.startsWith(RIGHT_DELIM, pos + 1));
+    }
+
+    private CompiledTemplate.Expression parseOperand() {
+        skipSpaces();
+        if (pos >= source.length())
+            throw error("unexpected end of template");
+        int start = pos;
+        char c = source.charAt(pos);
+        if (c == '"')
+            return literal(readQuotedString());
+        if (c == '`')
+            return literal(readRawString());
+        if (c == '(') {
+            pos++;
+            CompiledTemplate.Expression expression = parsePipeline();
+            skipSpaces();
+            if (pos >= source.length() || source.charAt(pos) != ')')
+                throw error("unclosed '('", start);
+            pos++;
+            return expression;
+        }
+        if (Character.isDigit(c) || ((c == '-' || c == '+') && pos + 1 < source.length() && Character.isDigit(source.charAt(pos + 1))))
+            return literal(readNumber());
+        if (isIdentifierStart(c)) {
+            String name = readIdentifier();
+            if ("true".equals(name) || "false".equals(name))
+                return literal(Boolean.valueOf(name));
+            return call(name, List.of(), start);
+        }
+        if (c == '.' || c == '$')
+            throw error("fields and variables are not supported", start);
+        throw error("unexpected '" + c + "'", start);
+    }
+
+    private CompiledTemplate.Expression call(String name, List<CompiledTemplate.Expression> arguments, int at) {
+        TemplateFunctions.Definition definition = TemplateFunctions.lookup(name);
+        if (definition == null)
+            throw error("function '" + name + "' not defined", at);
+        if (arguments.size() < definition.minArgs() || arguments.size() > definition.maxArgs())
+            throw error("wrong number of arguments for '" + name + "': " + arguments.size(), at);
+
+        TemplateFunctions.TemplateFunction function = definition.function();
+        CompiledTemplate.Expression[] argumentExpressions = arguments.toArray(new CompiledTemplate.Expression[0]);
+        return context -> {
+            Object[] values = new Object[argumentExpressions.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = argumentExpressions[i].evaluate(context);
+            return function.apply(context, values);
+        };
+    }
+
+    private static CompiledTemplate.Expression literal(Object value) {
+        return context -> value;
+    }
+
+    private String readIdentifier() {
+        int start = pos;
+        while (pos < source.length() && (isIdentifierStart(source.charAt(pos)) || Character.isDigit(source.charAt(pos))))
+            pos++;
+        String name = source.substring(start, pos);
+        if (pos < source.length() && source.charAt(pos) == '.')
+            throw error("fields are not supported", start);
+        return name;
+    }
+
+    private Object readNumber() {
+        int start = pos;
+        pos++;
+        while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '.'
+                || ((source.charAt(pos) == '-' || source.charAt(pos) == '+') && Character.toLowerCase(source.charAt(pos - 1)) == 'e')))
+            pos++;
+        String number = source.substring(start, pos);
+        try {
+            return Long.decode(number.startsWith("+") ? number.substring(1) : number);
+        } catch (NumberFormatException e) {
+            try {
+                return Double.valueOf(number);
+            } catch (NumberFormatException ex) {
+                throw error("bad number syntax: " + number, start);
+            }
+        }
+    }
+
+    private String readQuotedString() {
+        int start = pos++;
+        StringBuilder value = new StringBuilder();
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == '"')
+                return value.toString();
+            if (c == '\n')
+                break;
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (pos >= source.length())
+                break;
+            char escaped = source.charAt(pos++);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case '"', '\\', '\'' -> value.append(escaped);
+                case 'u' -> {
+                    if (pos + 4 > source.length())
+                        throw error("bad escape sequence", pos - 2);
+                    value.append((char) Integer.parseInt(source.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> throw error("unknown escape sequence '\\" + escaped + "'", pos - 2);
+            }
+        }
+        throw error("unterminated quoted string", start);
+    }
+
+    private String readRawString() {
+        int start = pos++;
+        int close = source.indexOf('`', pos);
+        if (close < 0)
+            throw error("unterminated raw quoted string", start);
+        pos = close + 1;
+        return source.substring(start + 1, close);
+    }
+
+    private void skipSpaces() {
+        while (pos < source.length() && isSpace(source.charAt(pos)))
+            pos++;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return error(message, pos);
+    }
+
+    private IllegalArgumentException error(String message, int at) {
+        return new IllegalArgumentException("template: " + message + " at offset " + at);
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connect schemas converged over a sample of records, one per converter and schema name.
+ * <p>
+ * The first records of a template are merged into an {@link InferredType} before any of them is
+ * converted, and the schema rendered from the merged type is then locked in: a record that fits it
+ * keeps it, only a record that does not fit widens the type and renders a new schema. A template
+ * producing a varying shape therefore settles on one schema instead of registering a new one
+ * whenever a field changes numeric type or goes missing.
+ */
+public class ConvergedSchemas {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+    @FunctionalInterface
+    public interface SchemaRenderer {
+        Schema render(InferredType type) throws Exception;
+    }
+
+    private record Key(String format, String name) {}
+
+    private static final class Converged {
+        private final InferredType type = new InferredType();
+        private int samples;
+        private boolean stale = true;
+        private Schema schema;
+    }
+
+    private final int sampleSize;
+    private final Map<Key, Converged> schemas = new HashMap<>();
+    private long changes;
+
+    public ConvergedSchemas() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    public ConvergedSchemas(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Merges jsonNode into the sampled type, as long as the sample window is not full.
+     *
+     * @param format converter the schema is inferred for
+     * @param name   name of the inferred schema
+     */
+    public synchronized void sample(String format, String name, JsonNode jsonNode) {
+        Converged converged = schemas.computeIfAbsent(new Key(format, name), key -> new Converged());
+        if (converged.samples >= sampleSize)
+            return;
+        converged.samples++;
+        if (converged.type.merge(jsonNode))
+            converged.stale = true;
+    }
+
+    /**
+     * Returns the converged schema, widened first if jsonNode does not fit it.
+     *
+     * @param format converter the schema is inferred for
+     * @param name   name of the inferred schema
+     */
+    public synchronized Schema get(String format, String name, JsonNode jsonNode, SchemaRenderer renderer) throws Exception {
+        Converged converged = schemas.computeIfAbsent(new Key(format, name), key -> new Converged());
+        if (!converged.type.accepts(jsonNode)) {
+            converged.type.merge(jsonNode);
+            converged.stale = true;
+        }
+        if (converged.stale) {
+            Schema schema = renderer.render(converged.type);
+            if (converged.schema != null && !converged.schema.equals(schema))
+                changes++;
+            converged.schema = schema;
+            converged.stale = false;
+        }
+        return converged.schema;
+    }
+
+    /**
+     * @return how many times a locked in schema had to be widened
+     */
+    public synchronized long getChanges() {
+        return changes;
+    }
+
+    public synchronized void clear() {
+        schemas.clear();
+    }
+}
@@ -0,0 +1,212 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Type of a JSON value merged over a sample of records.
+ * <p>
+ * Merging widens the type instead of replacing it: integers widen to longs and longs to doubles,
+ * any other mismatch widens to a string, and a field missing or null in one of the records becomes
+ * optional. Object fields keep the order in which they were first seen and are never removed, so
+ * the schemas rendered from a merged type only ever grow at the end.
+ */
+public class InferredType {
+
+    public enum Kind { BOOLEAN, INT, LONG, DOUBLE, STRING, ARRAY, OBJECT }
+
+    private Kind kind;
+    private boolean optional;
+    private final Map<String, InferredType> fields = new LinkedHashMap<>();
+    private InferredType elementType;
+
+    /**
+     * @return the kind of the merged values, null if only nulls were merged
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isOptional() {
+        return optional || kind == null;
+    }
+
+    public Map<String, InferredType> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * @return the merged type of the array elements, null if only empty arrays were merged
+     */
+    public InferredType getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Widens this type so it also describes jsonNode.
+     *
+     * @return whether the type changed
+     */
+    public boolean merge(JsonNode jsonNode) {
+        Kind nodeKind = kindOf(jsonNode);
+        if (nodeKind == null) {
+            if (optional)
+                return false;
+            optional = true;
+            return true;
+        }
+
+        boolean changed = false;
+        boolean firstObject = false;
+        if (kind == null) {
+            kind = nodeKind;
+            firstObject = nodeKind == Kind.OBJECT;
+            changed = true;
+        } else if (kind != nodeKind) {
+            Kind widened = widen(kind, nodeKind);
+            if (widened != kind) {
+                kind = widened;
+                fields.clear();
+                elementType = null;
+                changed = true;
+            }
+        }
+
+        if (kind == Kind.OBJECT) {
+            changed |= mergeFields(jsonNode, firstObject);
+        } else if (kind == Kind.ARRAY) {
+            if (elementType == null && !jsonNode.isEmpty()) {
+                elementType = new InferredType();
+                changed = true;
+            }
+            for (JsonNode element : jsonNode)
+                changed |= elementType.merge(element);
+        }
+        return changed;
+    }
+
+    private boolean mergeFields(JsonNode jsonNode, boolean firstObject) {
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonNode>> nodeFields = jsonNode.fields();
+        while (nodeFields.hasNext()) {
+            Map.Entry<String, JsonNode> nodeField = nodeFields.next();
+            InferredType field = fields.get(nodeField.getKey());
+            if (field == null) {
+                field = new InferredType();
+                // a field the previous records did not have is missing from them
+                field.optional = !firstObject;
+                fields.put(nodeField.getKey(), field);
+                changed = true;
+            }
+            changed |= field.merge(nodeField.getValue());
+        }
+        for (Map.Entry<String, InferredType> field : fields.entrySet()) {
+            if (!field.getValue().optional && !jsonNode.has(field.getKey())) {
+                field.getValue().optional = true;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Tells whether jsonNode fits this type as it is, without widening it.
+     */
+    public boolean accepts(JsonNode jsonNode) {
+        Kind nodeKind = kindOf(jsonNode);
+        if (nodeKind == null)
+            return isOptional();
+        if (kind == null)
+            return false;
+
+        switch (kind) {
+            case STRING:
+                // any value can be written as text
+                return true;
+            case DOUBLE:
+                return nodeKind == Kind.INT || nodeKind == Kind.LONG || nodeKind == Kind.DOUBLE;
+            case LONG:
+                return nodeKind == Kind.INT || nodeKind == Kind.LONG;
+            case ARRAY:
+                if (nodeKind != Kind.ARRAY)
+                    return false;
+                for (JsonNode element : jsonNode) {
+                    if (elementType == null || !elementType.accepts(element))
+                        return false;
+                }
+                return true;
+            case OBJECT:
+                return nodeKind == Kind.OBJECT && acceptsFields(jsonNode);
+            default:
+                return nodeKind == kind;
+        }
+    }
+
+    private boolean acceptsFields(JsonNode jsonNode) {
+        Iterator<Map.Entry<String, JsonNode>> nodeFields = jsonNode.fields();
+        while (nodeFields.hasNext()) {
+            Map.Entry<String, JsonNode> nodeField = nodeFields.next();
+            InferredType field = fields.get(nodeField.getKey());
+            if (field == null || !field.accepts(nodeField.getValue()))
+                return false;
+        }
+        for (Map.Entry<String, InferredType> field : fields.entrySet()) {
+            if (!field.getValue().isOptional() && !jsonNode.has(field.getKey()))
+                return false;
+        }
+        return true;
+    }
+
+    private static Kind widen(Kind kind, Kind other) {
+        if (isNumber(kind) && isNumber(other))
+            return kind.ordinal() > other.ordinal() ? kind : other;
+        return Kind.STRING;
+    }
+
+    private static boolean isNumber(Kind kind) {
+        return kind == Kind.INT || kind == Kind.LONG || kind == Kind.DOUBLE;
+    }
+
+    private static Kind kindOf(JsonNode jsonNode) {
+        if (jsonNode == null || jsonNode.isNull() || jsonNode.isMissingNode())
+            return null;
+        if (jsonNode.isBoolean())
+            return Kind.BOOLEAN;
+        if (jsonNode.isInt())
+            return Kind.INT;
+        if (jsonNode.isIntegralNumber())
+            return Kind.LONG;
+        if (jsonNode.isNumber())
+            return Kind.DOUBLE;
+        if (jsonNode.isArray())
+            return Kind.ARRAY;
+        if (jsonNode.isObject())
+            return Kind.OBJECT;
+        return Kind.STRING;
+    }
+}
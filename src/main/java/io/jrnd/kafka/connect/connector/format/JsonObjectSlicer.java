@@ -0,0 +1,151 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Extracts the raw JSON text of the top level members of an object, as UTF-8 bytes.
+ * <p>
+ * Values are only scanned for their bounds, tracking nesting and string literals, never
+ * decoded or parsed, so a key/value envelope can be split into two byte slices without a
+ * JSON tree or a String being created.
+ */
+public class JsonObjectSlicer {
+
+    private JsonObjectSlicer() {
+    }
+
+    /**
+     * Slices the values of the members with the given names out of a JSON object.
+     *
+     * @param object the UTF-8 bytes of a JSON object
+     * @param names  the UTF-8 bytes of the member names, compared as they are written
+     * @return the value of each member, in the order of names: null if the member is missing,
+     * the bytes of 'null' if its value is null
+     * @throws IOException if object is not a well-formed JSON object
+     */
+    public static byte[][] slice(byte[] object, byte[]... names) throws IOException {
+        byte[][] values = new byte[names.length][];
+        int position = skipWhitespace(object, 0);
+        if (position == object.length || object[position] != '{')
+            throw new IOException("Not a JSON object");
+        position = skipWhitespace(object, position + 1);
+        if (position < object.length && object[position] == '}')
+            return values;
+
+        while (true) {
+            if (position == object.length || object[position] != '"')
+                throw new IOException("Member name expected at byte " + position);
+            int nameStart = position + 1;
+            int nameEnd = skipString(object, position) - 1;
+
+            position = skipWhitespace(object, nameEnd + 1);
+            if (position == object.length || object[position] != ':')
+                throw new IOException("':' expected at byte " + position);
+            int valueStart = skipWhitespace(object, position + 1);
+            int valueEnd = skipValue(object, valueStart);
+
+            for (int i = 0; i < names.length; i++) {
+                if (values[i] == null && Arrays.equals(object, nameStart, nameEnd, names[i], 0, names[i].length))
+                    values[i] = Arrays.copyOfRange(object, valueStart, valueEnd);
+            }
+
+            position = skipWhitespace(object, valueEnd);
+            if (position == object.length)
+                throw new IOException("Unterminated JSON object");
+            if (object[position] == '}')
+                return values;
+            if (object[position] != ',')
+                throw new IOException("',' expected at byte " + position);
+            position = skipWhitespace(object, position + 1);
+        }
+    }
+
+    /**
+     * @return the position following the value starting at position
+     */
+    private static int skipValue(byte[] json, int position) throws IOException {
+        if (position == json.length)
+            throw new IOException("Value expected at byte " + position);
+        byte first = json[position];
+        if (first == '"')
+            return skipString(json, position);
+        if (first != '{' && first != '[') {
+            // literals and numbers end at the first structural character or whitespace
+            int end = position;
+            while (end < json.length && !isDelimiter(json[end]))
+                end++;
+            if (end == position)
+                throw new IOException("Value expected at byte " + position);
+            return end;
+        }
+
+        int depth = 0;
+        while (position < json.length) {
+            byte b = json[position];
+            if (b == '"') {
+                position = skipString(json, position);
+                continue;
+            }
+            if (b == '{' || b == '[')
+                depth++;
+            else if (b == '}' || b == ']')
+                depth--;
+            position++;
+            if (depth == 0)
+                return position;
+        }
+        throw new IOException("Unterminated JSON value");
+    }
+
+    /**
+     * @return the position following the closing quote of the string starting at position
+     */
+    private static int skipString(byte[] json, int position) throws IOException {
+        boolean escaped = false;
+        for (int i = position + 1; i < json.length; i++) {
+            byte b = json[i];
+            if (escaped)
+                escaped = false;
+            else if (b == '\\')
+                escaped = true;
+            else if (b == '"')
+                return i + 1;
+        }
+        throw new IOException("Unterminated JSON string");
+    }
+
+    private static int skipWhitespace(byte[] json, int position) {
+        while (position < json.length && isWhitespace(json[position]))
+            position++;
+        return position;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,155 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental splitter for the stream of JSON objects written by JR.
+ * <p>
+ * Bytes are scanned as they arrive, tracking object nesting and string literals, so braces
+ * inside string values never split a record. Line breaks outside string literals are dropped,
+ * as JR templates are usually written on several lines. The scan works on UTF-8 bytes,
+ * since every structural JSON character is a single byte that never occurs inside a
+ * multi-byte sequence; the read and record buffers are reused, so the only allocation
+ * per record is the record itself. A splitter is reused across JR runs with
+ * {@link #reset(InputStream)}, so a run allocates no buffers either.
+ */
+public class JsonRecordSplitter implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    private byte[] record = new byte[BUFFER_SIZE];
+    private int recordLength = 0;
+
+    public JsonRecordSplitter(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Moves the splitter to a new stream, keeping its buffers. Bytes left from the previous
+     * stream are dropped.
+     */
+    public JsonRecordSplitter reset(InputStream inputStream) {
+        this.inputStream = inputStream;
+        this.position = 0;
+        this.limit = 0;
+        this.recordLength = 0;
+        return this;
+    }
+
+    /**
+     * Returns the next complete JSON object, blocking until it is available,
+     * or null when the stream ends.
+     */
+    public String next() throws IOException {
+        if (!scan())
+            return null;
+        return new String(record, 0, recordLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the next complete JSON object, blocking until it is available,
+     * or null when the stream ends. The bytes are never decoded.
+     */
+    public byte[] nextBytes() throws IOException {
+        if (!scan())
+            return null;
+        return Arrays.copyOf(record, recordLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean scan() throws IOException {
+        recordLength = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        while (true) {
+            if (position == limit && !fill())
+                return false;
+
+            byte b = buffer[position++];
+
+            if (depth == 0) {
+                // skip anything between objects, such as separators and line breaks
+                if (b == '{') {
+                    depth = 1;
+                    append(b);
+                }
+                continue;
+            }
+
+            if (inString) {
+                if (escaped)
+                    escaped = false;
+                else if (b == '\\')
+                    escaped = true;
+                else if (b == '"')
+                    inString = false;
+                append(b);
+                continue;
+            }
+
+            switch (b) {
+                case '"' -> inString = true;
+                case '{' -> depth++;
+                case '}' -> depth--;
+                case '\n', '\r' -> {
+                    continue;
+                }
+                default -> {}
+            }
+            append(b);
+
+            if (depth == 0)
+                return true;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = inputStream.read(buffer, 0, buffer.length);
+        if (read <= 0)
+            return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void append(byte b) {
+        if (recordLength == record.length)
+            record = Arrays.copyOf(record, record.length * 2);
+        record[recordLength++] = b;
+    }
+}
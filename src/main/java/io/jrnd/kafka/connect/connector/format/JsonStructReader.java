@@ -0,0 +1,201 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector.format;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts JSON text to a Struct straight from the parser tokens, with no JsonNode tree.
+ * <p>
+ * Values are converted as {@link StructHelper} converts the nodes of a tree. Fields are looked up
+ * in a table computed once per schema instance: a field is first expected at the position
+ * following the previous one, so records written in schema order need no hash lookup.
+ */
+public class JsonStructReader {
+
+    private static final JsonFactory JSON_FACTORY = new ObjectMapper().getFactory();
+    private static final int MAX_FIELD_TABLES = 1000;
+
+    private static final Map<SchemaReference, FieldTable> FIELD_TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * Schemas are looked up by identity, hashing a schema walks all of its fields.
+     */
+    private record SchemaReference(Schema schema) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SchemaReference other && other.schema == schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(schema);
+        }
+    }
+
+    private static final class FieldTable {
+        private final Field[] fields;
+        private final Map<String, Field> fieldsByName = new HashMap<>();
+
+        private FieldTable(Schema schema) {
+            fields = schema.fields().toArray(new Field[0]);
+            for (Field field : fields)
+                fieldsByName.put(field.name(), field);
+        }
+
+        private Field find(String name, int expectedIndex) {
+            if (expectedIndex < fields.length && fields[expectedIndex].name().equals(name))
+                return fields[expectedIndex];
+            return fieldsByName.get(name);
+        }
+    }
+
+    public static Struct read(Schema schema, String json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Not a JSON object: " + json);
+            return readStruct(parser, schema);
+        }
+    }
+
+    private static Struct readStruct(JsonParser parser, Schema schema) throws IOException {
+        Struct struct = new Struct(schema);
+        FieldTable fieldTable = fieldTable(schema);
+        int expectedIndex = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Field field = fieldTable.find(parser.currentName(), expectedIndex);
+            JsonToken token = parser.nextToken();
+            if (field == null) {
+                parser.skipChildren();
+                continue;
+            }
+            expectedIndex = field.index() + 1;
+            // missing and null fields are left null, as optional fields are
+            if (token != JsonToken.VALUE_NULL)
+                struct.put(field, readValue(parser, token, field.schema()));
+        }
+        return struct;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token, Schema schema) throws IOException {
+        switch (schema.type()) {
+            case STRING:
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)
+                    return parser.readValueAsTree().toString();
+                // as a double node prints it
+                return token == JsonToken.VALUE_NUMBER_FLOAT ? String.valueOf(parser.getDoubleValue()) : parser.getText();
+            case INT32:
+                return skipContainer(parser, token, parser.getValueAsInt());
+            case INT64:
+                return skipContainer(parser, token, parser.getValueAsLong());
+            case FLOAT32:
+                return skipContainer(parser, token, (float) parser.getValueAsDouble());
+            case FLOAT64:
+                return skipContainer(parser, token, parser.getValueAsDouble());
+            case BOOLEAN:
+                return skipContainer(parser, token, parser.getValueAsBoolean());
+            case BYTES:
+                return token == JsonToken.VALUE_STRING ? parser.getBinaryValue() : skipContainer(parser, token, null);
+            case STRUCT:
+                if (token == JsonToken.START_OBJECT)
+                    return readStruct(parser, schema);
+                return skipContainer(parser, token, new Struct(schema));
+            case ARRAY:
+                List<Object> elements = new ArrayList<>();
+                if (token != JsonToken.START_ARRAY)
+                    return skipContainer(parser, token, elements);
+                Schema elementSchema = schema.valueSchema();
+                JsonToken elementToken;
+                while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY)
+                    elements.add(elementToken == JsonToken.VALUE_NULL ? null : readValue(parser, elementToken, elementSchema));
+                return elements;
+            case MAP:
+                Map<Object, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT)
+                    return skipContainer(parser, token, map);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Object key = readKey(parser.currentName(), schema.keySchema());
+                    JsonToken valueToken = parser.nextToken();
+                    map.put(key, valueToken == JsonToken.VALUE_NULL ? null : readValue(parser, valueToken, schema.valueSchema()));
+                }
+                return map;
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema.type());
+        }
+    }
+
+    /**
+     * Skips an object or array read as a scalar, as a tree node converts it to a default value.
+     */
+    private static Object skipContainer(JsonParser parser, JsonToken token, Object value) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)
+            parser.skipChildren();
+        return value;
+    }
+
+    /**
+     * JSON keys are strings, a map with numeric keys gets them parsed.
+     */
+    private static Object readKey(String key, Schema keySchema) {
+        switch (keySchema.type()) {
+            case INT32:
+                return NumberInput.parseAsInt(key, 0);
+            case INT64:
+                return NumberInput.parseAsLong(key, 0L);
+            case FLOAT32:
+                return (float) NumberInput.parseAsDouble(key, 0.0);
+            case FLOAT64:
+                return NumberInput.parseAsDouble(key, 0.0);
+            case BOOLEAN:
+                return "true".equals(key.trim());
+            default:
+                return key;
+        }
+    }
+
+    private static FieldTable fieldTable(Schema schema) {
+        SchemaReference reference = new SchemaReference(schema);
+        FieldTable fieldTable = FIELD_TABLES.get(reference);
+        if (fieldTable == null) {
+            // schemas are few and long-lived, a full cache only holds stale ones
+            if (FIELD_TABLES.size() >= MAX_FIELD_TABLES)
+                FIELD_TABLES.clear();
+            fieldTable = new FieldTable(schema);
+            FIELD_TABLES.put(reference, fieldTable);
+        }
+        return fieldTable;
+    }
+}
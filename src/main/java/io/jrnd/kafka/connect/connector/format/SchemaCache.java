@@ -0,0 +1,178 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, concurrent cache of inferred Connect schemas.
+ * <p>
+ * Records are looked up by a structural fingerprint, a hash of their field names and JSON node
+ * types, so records with the same shape skip schema inference. Every entry keeps the record its
+ * schema was inferred from, and a hit is only used when the record has the same shape, so two
+ * shapes with the same fingerprint never share a schema. Inferred schemas are interned:
+ * equal schemas are always returned as the same instance, which keeps the converters' own
+ * schema caches hot.
+ */
+public class SchemaCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @FunctionalInterface
+    public interface SchemaLoader {
+        Schema load() throws Exception;
+    }
+
+    private record Key(String format, String name, long fingerprint) {}
+
+    private record Entry(JsonNode shape, Schema schema) {}
+
+    private final int maxSize;
+    private final Map<Key, Entry> schemas = new ConcurrentHashMap<>();
+    private final Map<Schema, Schema> canonicalSchemas = new ConcurrentHashMap<>();
+
+    public SchemaCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SchemaCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the schema cached for the shape of jsonNode, inferring it with loader on a miss.
+     *
+     * @param format converter the schema is inferred for
+     * @param name   name of the inferred schema
+     */
+    public Schema get(String format, String name, JsonNode jsonNode, SchemaLoader loader) throws Exception {
+        Key key = new Key(format, name, fingerprint(jsonNode));
+        Entry entry = schemas.get(key);
+        if (entry != null) {
+            if (sameShape(entry.shape(), jsonNode))
+                return entry.schema();
+            // fingerprint collision: the entry stays, this record gets its own schema
+            return intern(loader.load());
+        }
+
+        Schema schema = intern(loader.load());
+        evictIfFull(schemas);
+        schemas.put(key, new Entry(jsonNode, schema));
+        return schema;
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+
+    public void clear() {
+        schemas.clear();
+        canonicalSchemas.clear();
+    }
+
+    private Schema intern(Schema schema) {
+        Schema canonical = canonicalSchemas.get(schema);
+        if (canonical != null)
+            return canonical;
+        evictIfFull(canonicalSchemas);
+        canonical = canonicalSchemas.putIfAbsent(schema, schema);
+        return canonical == null ? schema : canonical;
+    }
+
+    private void evictIfFull(Map<?, ?> map) {
+        Iterator<?> iterator = map.keySet().iterator();
+        while (map.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Hashes the field names and node types of a JSON tree. Arrays contribute their first element
+     * only, as schema inference does.
+     */
+    public static long fingerprint(JsonNode jsonNode) {
+        return fingerprint(FNV_OFFSET_BASIS, jsonNode);
+    }
+
+    private static long fingerprint(long hash, JsonNode jsonNode) {
+        hash = mix(hash, jsonNode.getNodeType().ordinal());
+        if (jsonNode.isNumber()) {
+            hash = mix(hash, jsonNode.numberType().ordinal());
+        } else if (jsonNode.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String fieldName = field.getKey();
+                for (int i = 0; i < fieldName.length(); i++)
+                    hash = mix(hash, fieldName.charAt(i));
+                hash = fingerprint(mix(hash, ':'), field.getValue());
+            }
+            hash = mix(hash, '}');
+        } else if (jsonNode.isArray()) {
+            if (!jsonNode.isEmpty())
+                hash = fingerprint(hash, jsonNode.get(0));
+            hash = mix(hash, ']');
+        }
+        return hash;
+    }
+
+    /**
+     * Whether two JSON trees have the same field names and node types, as compared by {@link #fingerprint(JsonNode)}.
+     */
+    public static boolean sameShape(JsonNode a, JsonNode b) {
+        if (a.getNodeType() != b.getNodeType())
+            return false;
+        if (a.isNumber())
+            return a.numberType() == b.numberType();
+        if (a.isObject()) {
+            if (a.size() != b.size())
+                return false;
+            Iterator<Map.Entry<String, JsonNode>> aFields = a.fields();
+            Iterator<Map.Entry<String, JsonNode>> bFields = b.fields();
+            while (aFields.hasNext()) {
+                Map.Entry<String, JsonNode> aField = aFields.next();
+                Map.Entry<String, JsonNode> bField = bFields.next();
+                if (!aField.getKey().equals(bField.getKey()) || !sameShape(aField.getValue(), bField.getValue()))
+                    return false;
+            }
+            return true;
+        }
+        if (a.isArray()) {
+            if (a.isEmpty() || b.isEmpty())
+                return a.isEmpty() == b.isEmpty();
+            return sameShape(a.get(0), b.get(0));
+        }
+        return true;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector.format;
+
+import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import io.jrnd.kafka.connect.connector.format.jsonschema.JsonSchemaHelper;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
+import org.apache.kafka.connect.data.Schema;
+
+import java.io.IOException;
+
+/**
+ * Parses user supplied schemas into Connect schemas, in the format of the converter they are
+ * used with: an Avro schema (.avsc) for the Avro converter, a JSON schema for the JSON schema
+ * converter and a .proto definition, whose first message describes the records, for the
+ * Protobuf converter.
+ */
+public class SchemaParser {
+
+    public static final String AVRO_CONVERTER_CLASS_NAME = "io.confluent.connect.avro.AvroConverter";
+    public static final String JSON_SCHEMA_CONVERTER_CLASS_NAME = "io.confluent.connect.json.JsonSchemaConverter";
+    public static final String PROTOBUF_CONVERTER_CLASS_NAME = "io.confluent.connect.protobuf.ProtobufConverter";
+
+    /**
+     * @throws IllegalArgumentException if the schema is invalid, doesn't describe a record or
+     *                                  the converter doesn't use schemas
+     */
+    public static Schema parse(String converter, String schemaDefinition) {
+        Schema schema;
+        try {
+            schema = switch (converter) {
+                case AVRO_CONVERTER_CLASS_NAME -> AvroHelper.convertAvroToConnectSchema(new org.apache.avro.Schema.Parser().parse(schemaDefinition));
+                case JSON_SCHEMA_CONVERTER_CLASS_NAME -> JsonSchemaHelper.createConnectSchemaFromJsonSchema(schemaDefinition);
+                case PROTOBUF_CONVERTER_CLASS_NAME -> ProtobufHelper.createConnectSchemaFromProto(schemaDefinition);
+                default -> throw new IllegalArgumentException("Converter " + converter + " doesn't use a schema");
+            };
+        } catch (IOException | org.apache.avro.SchemaParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        if (schema.type() != Schema.Type.STRUCT)
+            throw new IllegalArgumentException("Schema must describe a record, not a " + schema.type());
+        return schema;
+    }
+}
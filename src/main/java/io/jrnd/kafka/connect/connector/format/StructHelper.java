@@ -21,7 +21,7 @@
 package io.jrnd.kafka.connect.connector.format;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -38,10 +38,14 @@ public class StructHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(StructHelper.class);
 
+    /**
+     * Converts JSON text with {@link JsonStructReader}, without building a tree first.
+     */
     public static Struct convertJsonToStruct(Schema schema, String jsonString) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonNode = objectMapper.readTree(jsonString);
+        return JsonStructReader.read(schema, jsonString);
+    }
 
+    public static Struct convertJsonToStruct(Schema schema, JsonNode jsonNode) {
         Struct struct = new Struct(schema);
 
         populateStruct(struct, schema, jsonNode);
@@ -112,7 +116,8 @@ public class StructHelper {
     private static Object getValueFromJsonNode(Schema schema, JsonNode jsonNode) {
         switch (schema.type()) {
             case STRING:
-                return jsonNode.asText();
+                // a field widened to a string may also hold objects and arrays
+                return jsonNode.isValueNode() ? jsonNode.asText() : jsonNode.toString();
             case INT32:
                 return jsonNode.asInt();
             case INT64:
@@ -123,6 +128,13 @@ public class StructHelper {
                 return jsonNode.asDouble();
             case BOOLEAN:
                 return jsonNode.asBoolean();
+            case BYTES:
+                // bytes are written as base64 text in JSON
+                try {
+                    return jsonNode.binaryValue();
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Not a base64 value: " + jsonNode, e);
+                }
             case STRUCT:
                 Struct nestedStruct = new Struct(schema);
                 populateStruct(nestedStruct, schema, jsonNode);
@@ -134,7 +146,7 @@ public class StructHelper {
                 List results = new ArrayList();
 
                 jsonNode.elements().forEachRemaining(element -> {
-                    results.add(getValueFromJsonNode(elementSchema, element));
+                    results.add(element.isNull() ? null : getValueFromJsonNode(elementSchema, element));
                 });
 
                 return results;
@@ -147,8 +159,9 @@ public class StructHelper {
         }
     }
 
-    private static Map<String, Object> handleMap(Schema schema, JsonNode jsonNode) {
-        Map<String, Object> map = new java.util.HashMap<>();
+    private static Map<Object, Object> handleMap(Schema schema, JsonNode jsonNode) {
+        Map<Object, Object> map = new java.util.HashMap<>();
+        Schema keySchema = schema.keySchema();
         Schema valueSchema = schema.valueSchema();
 
         Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
@@ -156,7 +169,8 @@ public class StructHelper {
             Map.Entry<String, JsonNode> field = fields.next();
             String key = field.getKey();
             JsonNode valueNode = field.getValue();
-            map.put(key, getValueFromJsonNode(valueSchema, valueNode));
+            // JSON keys are strings, a map with numeric keys gets them parsed
+            map.put(getValueFromJsonNode(keySchema, TextNode.valueOf(key)), getValueFromJsonNode(valueSchema, valueNode));
         }
 
         return map;
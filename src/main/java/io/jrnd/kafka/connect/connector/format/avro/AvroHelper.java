@@ -23,48 +23,112 @@ package io.jrnd.kafka.connect.connector.format.avro;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.jrnd.kafka.connect.connector.format.InferredType;
+import org.apache.avro.JsonProperties;
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class AvroHelper {
 
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+
+    // schema parameter the Avro converter takes the enum name and symbols from
+    public static final String AVRO_ENUM_PARAMETER = "io.confluent.connect.avro.Enum";
+
+    // names of the records the Avro converter gives unnamed structs and non-string map entries
+    private static final String DEFAULT_RECORD_NAME = "ConnectDefault";
+    private static final String MAP_ENTRY_RECORD_NAME = "MapEntry";
+
     public static Schema createAvroSchemaFromJson(String recordName, String jsonString) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonNode = objectMapper.readTree(jsonString);
+        return createAvroSchemaFromJson(recordName, JSON_READER.readTree(jsonString));
+    }
 
+    public static Schema createAvroSchemaFromJson(String recordName, JsonNode jsonNode) {
         return buildAvroSchema(recordName, jsonNode);
     }
 
+    /**
+     * Creates the Connect schema of the records merged into type. Records are named as
+     * {@link #createAvroSchemaFromJson} names them, fields missing or null in some records are
+     * optional, so the Avro converter writes them as a union with null.
+     */
+    public static org.apache.kafka.connect.data.Schema createConnectSchema(String recordName, InferredType type) {
+        return connectSchemaBuilder(recordName, type).build();
+    }
+
+    private static org.apache.kafka.connect.data.SchemaBuilder connectSchemaBuilder(String name, InferredType type) {
+        org.apache.kafka.connect.data.SchemaBuilder builder;
+        InferredType.Kind kind = type.getKind() == null ? InferredType.Kind.STRING : type.getKind();
+        switch (kind) {
+            case BOOLEAN:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.bool();
+                break;
+            case INT:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.int32();
+                break;
+            case LONG:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.int64();
+                break;
+            case DOUBLE:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.float64();
+                break;
+            case ARRAY:
+                // empty arrays default to strings
+                builder = org.apache.kafka.connect.data.SchemaBuilder.array(type.getElementType() == null
+                        ? org.apache.kafka.connect.data.Schema.STRING_SCHEMA
+                        : connectSchemaBuilder(name, type.getElementType()).build());
+                break;
+            case OBJECT:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.struct().name(name);
+                for (Map.Entry<String, InferredType> field : type.getFields().entrySet())
+                    builder.field(field.getKey(), connectSchemaBuilder(field.getKey(), field.getValue()).build());
+                break;
+            default:
+                builder = org.apache.kafka.connect.data.SchemaBuilder.string();
+                break;
+        }
+        return type.isOptional() ? builder.optional() : builder;
+    }
+
     public static org.apache.kafka.connect.data.Schema convertAvroToConnectSchema(Schema avroSchema) {
+        return connectSchemaBuilder(avroSchema).build();
+    }
+
+    private static org.apache.kafka.connect.data.SchemaBuilder connectSchemaBuilder(Schema avroSchema) {
         switch (avroSchema.getType()) {
             case STRING:
-                return org.apache.kafka.connect.data.SchemaBuilder.string().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.string();
             case INT:
-                return org.apache.kafka.connect.data.SchemaBuilder.int32().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.int32();
             case LONG:
-                return org.apache.kafka.connect.data.SchemaBuilder.int64().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.int64();
             case FLOAT:
-                return org.apache.kafka.connect.data.SchemaBuilder.float32().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.float32();
             case DOUBLE:
-                return org.apache.kafka.connect.data.SchemaBuilder.float64().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.float64();
             case BOOLEAN:
-                return org.apache.kafka.connect.data.SchemaBuilder.bool().build();
+                return org.apache.kafka.connect.data.SchemaBuilder.bool();
             case BYTES:
-                return org.apache.kafka.connect.data.SchemaBuilder.bytes().build();
+            case FIXED:
+                return org.apache.kafka.connect.data.SchemaBuilder.bytes();
             case ARRAY:
                 org.apache.kafka.connect.data.Schema elementSchema = convertAvroToConnectSchema(avroSchema.getElementType());
-                return org.apache.kafka.connect.data.SchemaBuilder.array(elementSchema).build();
+                return org.apache.kafka.connect.data.SchemaBuilder.array(elementSchema);
             case MAP:
                 org.apache.kafka.connect.data.Schema valueSchema = convertAvroToConnectSchema(avroSchema.getValueType());
-                return org.apache.kafka.connect.data.SchemaBuilder.map(org.apache.kafka.connect.data.Schema.STRING_SCHEMA, valueSchema).build();
+                return org.apache.kafka.connect.data.SchemaBuilder.map(org.apache.kafka.connect.data.Schema.STRING_SCHEMA, valueSchema);
             case RECORD:
                 return convertRecord(avroSchema);
             case ENUM:
-                return org.apache.kafka.connect.data.SchemaBuilder.string().build(); // Kafka Connect doesn't have native ENUM support, so use string.
+                return convertEnum(avroSchema);
             case UNION:
                 return handleUnion(avroSchema);
             default:
@@ -72,32 +136,150 @@ public class AvroHelper {
         }
     }
 
-    private static org.apache.kafka.connect.data.Schema convertRecord(Schema avroSchema) {
-        org.apache.kafka.connect.data.SchemaBuilder structBuilder = org.apache.kafka.connect.data.SchemaBuilder.struct().name(avroSchema.getName());
+    private static org.apache.kafka.connect.data.SchemaBuilder convertRecord(Schema avroSchema) {
+        org.apache.kafka.connect.data.SchemaBuilder structBuilder = org.apache.kafka.connect.data.SchemaBuilder.struct().name(avroSchema.getFullName());
         for (Schema.Field field : avroSchema.getFields()) {
             org.apache.kafka.connect.data.Schema fieldSchema = convertAvroToConnectSchema(field.schema());
             structBuilder.field(field.name(), fieldSchema);
         }
-        return structBuilder.build();
+        return structBuilder;
+    }
+
+    private static org.apache.kafka.connect.data.SchemaBuilder convertEnum(Schema avroSchema) {
+        // Kafka Connect doesn't have native ENUM support, so use string, with the parameters the
+        // Avro converter turns back into the enum
+        org.apache.kafka.connect.data.SchemaBuilder enumBuilder = org.apache.kafka.connect.data.SchemaBuilder.string()
+                .name(avroSchema.getFullName())
+                .parameter(AVRO_ENUM_PARAMETER, avroSchema.getFullName());
+        for (String symbol : avroSchema.getEnumSymbols())
+            enumBuilder.parameter(AVRO_ENUM_PARAMETER + "." + symbol, symbol);
+        return enumBuilder;
     }
 
-    private static org.apache.kafka.connect.data.Schema handleUnion(Schema unionSchema) {
+    private static org.apache.kafka.connect.data.SchemaBuilder handleUnion(Schema unionSchema) {
         List<Schema> types = unionSchema.getTypes();
         if (types.size() == 2 && types.contains(Schema.create(Schema.Type.NULL))) {
             // Handle nullable types (e.g., ["null", "string"])
             Schema nonNullSchema = types.get(0).getType() == Schema.Type.NULL ? types.get(1) : types.get(0);
-            return convertAvroToConnectSchema(nonNullSchema);
+            return connectSchemaBuilder(nonNullSchema).optional();
         } else {
             // If it's not a nullable type, pick the first non-null type or handle complex cases
             for (Schema schema : types) {
                 if (schema.getType() != Schema.Type.NULL) {
-                    return convertAvroToConnectSchema(schema);
+                    return connectSchemaBuilder(schema);
                 }
             }
             throw new IllegalArgumentException("Unsupported union schema: " + unionSchema);
         }
     }
 
+    /**
+     * Converts a Connect schema to the Avro schema of its records, as the Avro converter does:
+     * optional schemas are unions with null, enums are rebuilt from their parameters and maps
+     * with non-string keys are arrays of key/value records. Record names are made valid Avro
+     * names, and unique within the schema.
+     */
+    public static Schema convertConnectToAvroSchema(org.apache.kafka.connect.data.Schema connectSchema) {
+        return avroSchema(connectSchema, new HashSet<>());
+    }
+
+    private static Schema avroSchema(org.apache.kafka.connect.data.Schema connectSchema, Set<String> recordNames) {
+        Schema schema;
+        switch (connectSchema.type()) {
+            case BOOLEAN:
+                schema = Schema.create(Schema.Type.BOOLEAN);
+                break;
+            case INT8:
+            case INT16:
+            case INT32:
+                schema = Schema.create(Schema.Type.INT);
+                break;
+            case INT64:
+                schema = Schema.create(Schema.Type.LONG);
+                break;
+            case FLOAT32:
+                schema = Schema.create(Schema.Type.FLOAT);
+                break;
+            case FLOAT64:
+                schema = Schema.create(Schema.Type.DOUBLE);
+                break;
+            case BYTES:
+                schema = Schema.create(Schema.Type.BYTES);
+                break;
+            case STRING:
+                schema = enumSchema(connectSchema, recordNames);
+                break;
+            case ARRAY:
+                schema = Schema.createArray(avroSchema(connectSchema.valueSchema(), recordNames));
+                break;
+            case MAP:
+                if (connectSchema.keySchema().type() == org.apache.kafka.connect.data.Schema.Type.STRING && !connectSchema.keySchema().isOptional()) {
+                    schema = Schema.createMap(avroSchema(connectSchema.valueSchema(), recordNames));
+                } else {
+                    List<Schema.Field> entryFields = List.of(
+                            avroField("key", connectSchema.keySchema(), recordNames),
+                            avroField("value", connectSchema.valueSchema(), recordNames));
+                    schema = Schema.createArray(Schema.createRecord(uniqueName(MAP_ENTRY_RECORD_NAME, recordNames), null, null, false, entryFields));
+                }
+                break;
+            case STRUCT:
+                String name = uniqueName(connectSchema.name() == null ? DEFAULT_RECORD_NAME : connectSchema.name(), recordNames);
+                List<Schema.Field> fields = new ArrayList<>();
+                for (org.apache.kafka.connect.data.Field field : connectSchema.fields())
+                    fields.add(avroField(field.name(), field.schema(), recordNames));
+                schema = Schema.createRecord(name, null, null, false, fields);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported Connect type: " + connectSchema.type());
+        }
+        return connectSchema.isOptional() ? Schema.createUnion(Schema.create(Schema.Type.NULL), schema) : schema;
+    }
+
+    private static Schema.Field avroField(String name, org.apache.kafka.connect.data.Schema connectSchema, Set<String> recordNames) {
+        Schema fieldSchema = avroSchema(connectSchema, recordNames);
+        return connectSchema.isOptional()
+                ? new Schema.Field(name, fieldSchema, null, JsonProperties.NULL_VALUE)
+                : new Schema.Field(name, fieldSchema);
+    }
+
+    private static Schema enumSchema(org.apache.kafka.connect.data.Schema connectSchema, Set<String> recordNames) {
+        Map<String, String> parameters = connectSchema.parameters();
+        String enumName = parameters == null ? null : parameters.get(AVRO_ENUM_PARAMETER);
+        if (enumName == null)
+            return Schema.create(Schema.Type.STRING);
+        List<String> symbols = new ArrayList<>();
+        String symbolPrefix = AVRO_ENUM_PARAMETER + ".";
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (parameter.getKey().startsWith(symbolPrefix))
+                symbols.add(parameter.getValue());
+        }
+        return Schema.createEnum(uniqueName(enumName, recordNames), null, null, symbols);
+    }
+
+    /**
+     * Replaces the characters not allowed in Avro names and suffixes names already taken.
+     */
+    private static String uniqueName(String name, Set<String> recordNames) {
+        StringBuilder valid = new StringBuilder(name.length());
+        boolean segmentStart = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' && !segmentStart && i < name.length() - 1) {
+                valid.append(c);
+                segmentStart = true;
+                continue;
+            }
+            if (segmentStart && Character.isDigit(c))
+                valid.append('_');
+            valid.append(Character.isLetterOrDigit(c) && c < 128 || c == '_' ? c : '_');
+            segmentStart = false;
+        }
+        String unique = valid.toString();
+        for (int suffix = 2; !recordNames.add(unique); suffix++)
+            unique = valid + String.valueOf(suffix);
+        return unique;
+    }
+
     private static Schema buildAvroSchema(String recordName, JsonNode jsonNode) {
         SchemaBuilder.RecordBuilder<Schema> recordBuilder = SchemaBuilder.record(recordName);
         SchemaBuilder.FieldAssembler<Schema> fieldAssembler = recordBuilder.fields();
@@ -0,0 +1,156 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.avro;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.jrnd.kafka.connect.connector.format.registry.RecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.SchemaRegistry;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes JSON records as Avro binary, building a GenericRecord from the JSON tree with the
+ * same conversions as {@link io.jrnd.kafka.connect.connector.format.StructHelper}.
+ */
+public class AvroRecordEncoder extends RecordEncoder<AvroRecordEncoder.AvroSchema> {
+
+    record AvroSchema(org.apache.avro.Schema schema, GenericDatumWriter<Object> writer) {}
+
+    private BinaryEncoder encoder;
+
+    public AvroRecordEncoder(SchemaRegistry registry, String subject) {
+        super(registry, subject);
+    }
+
+    @Override
+    protected String schemaType() {
+        return SchemaRegistry.AVRO;
+    }
+
+    @Override
+    protected AvroSchema translate(Schema schema) {
+        org.apache.avro.Schema avroSchema = AvroHelper.convertConnectToAvroSchema(schema);
+        return new AvroSchema(avroSchema, new GenericDatumWriter<>(avroSchema));
+    }
+
+    @Override
+    protected String schemaString(AvroSchema nativeSchema) {
+        return nativeSchema.schema().toString();
+    }
+
+    @Override
+    protected void writeRecord(AvroSchema nativeSchema, Schema schema, JsonNode jsonNode, OutputStream out) throws IOException {
+        Object record = toAvro(nativeSchema.schema(), schema, jsonNode);
+        encoder = EncoderFactory.get().directBinaryEncoder(out, encoder);
+        nativeSchema.writer().write(record, encoder);
+        encoder.flush();
+    }
+
+    private static Object toAvro(org.apache.avro.Schema avroSchema, Schema schema, JsonNode jsonNode) {
+        if (jsonNode == null || jsonNode.isNull()) {
+            if (!schema.isOptional())
+                throw new IllegalArgumentException("Null value for a required " + schema.type() + " schema");
+            return null;
+        }
+        // optional schemas are a union with null first
+        if (avroSchema.getType() == org.apache.avro.Schema.Type.UNION)
+            avroSchema = avroSchema.getTypes().get(1);
+
+        switch (schema.type()) {
+            case BOOLEAN:
+                return jsonNode.asBoolean();
+            case INT8:
+            case INT16:
+            case INT32:
+                return jsonNode.asInt();
+            case INT64:
+                return jsonNode.asLong();
+            case FLOAT32:
+                return (float) jsonNode.asDouble();
+            case FLOAT64:
+                return jsonNode.asDouble();
+            case BYTES:
+                // bytes are written as base64 text in JSON
+                try {
+                    return ByteBuffer.wrap(jsonNode.binaryValue());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Not a base64 value: " + jsonNode, e);
+                }
+            case STRING:
+                // a field widened to a string may also hold objects and arrays
+                String text = jsonNode.isValueNode() ? jsonNode.asText() : jsonNode.toString();
+                return avroSchema.getType() == org.apache.avro.Schema.Type.ENUM ? new GenericData.EnumSymbol(avroSchema, text) : text;
+            case ARRAY:
+                List<Object> elements = new ArrayList<>(jsonNode.size());
+                for (JsonNode element : jsonNode)
+                    elements.add(toAvro(avroSchema.getElementType(), schema.valueSchema(), element));
+                return new GenericData.Array<>(avroSchema, elements);
+            case MAP:
+                return toAvroMap(avroSchema, schema, jsonNode);
+            case STRUCT:
+                GenericRecord record = new GenericData.Record(avroSchema);
+                for (Field field : schema.fields())
+                    record.put(field.name(), toAvro(avroSchema.getField(field.name()).schema(), field.schema(), jsonNode.get(field.name())));
+                return record;
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema.type());
+        }
+    }
+
+    private static Object toAvroMap(org.apache.avro.Schema avroSchema, Schema schema, JsonNode jsonNode) {
+        Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+        if (avroSchema.getType() == org.apache.avro.Schema.Type.MAP) {
+            Map<String, Object> map = new HashMap<>();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                map.put(field.getKey(), toAvro(avroSchema.getValueType(), schema.valueSchema(), field.getValue()));
+            }
+            return map;
+        }
+
+        // JSON keys are strings, a map with numeric keys gets them parsed
+        org.apache.avro.Schema entrySchema = avroSchema.getElementType();
+        List<Object> entries = new ArrayList<>();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            GenericRecord entry = new GenericData.Record(entrySchema);
+            entry.put("key", toAvro(entrySchema.getField("key").schema(), schema.keySchema(), TextNode.valueOf(field.getKey())));
+            entry.put("value", toAvro(entrySchema.getField("value").schema(), schema.valueSchema(), field.getValue()));
+            entries.add(entry);
+        }
+        return new GenericData.Array<>(avroSchema, entries);
+    }
+}
@@ -21,11 +21,15 @@
 package io.jrnd.kafka.connect.connector.format.jsonschema;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jrnd.kafka.connect.connector.format.InferredType;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 
@@ -34,15 +38,154 @@ public class JsonSchemaHelper {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     public static Schema createJsonSchemaFromJson(String jsonDocument) throws IllegalArgumentException, IOException {
+        return createJsonSchemaFromJson(OBJECT_MAPPER.readTree(jsonDocument));
+    }
+
+    public static Schema createJsonSchemaFromJson(JsonNode jsonDocument) throws IllegalArgumentException, IOException {
 
-        JsonNode properties = addProperties(OBJECT_MAPPER.readTree(jsonDocument));
+        JsonNode properties = addProperties(jsonDocument);
         ObjectNode schema = OBJECT_MAPPER.createObjectNode();
         schema.put("type", "object");
         schema.set("properties", properties);
 
-        String jsonSchemaAsString = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(schema);
-        JsonNode jsonSchema = OBJECT_MAPPER.readTree(jsonSchemaAsString);
-        return convertJsonSchemaToConnectSchema(jsonSchema);
+        return convertJsonSchemaToConnectSchema(schema);
+    }
+
+    /**
+     * Creates the Connect schema of the records merged into type. As in {@link #createJsonSchemaFromJson},
+     * every number is a JSON schema 'number', fields missing or null in some records are optional.
+     */
+    public static Schema createConnectSchema(InferredType type) {
+        return connectSchemaBuilder(type).build();
+    }
+
+    private static SchemaBuilder connectSchemaBuilder(InferredType type) {
+        SchemaBuilder builder;
+        InferredType.Kind kind = type.getKind() == null ? InferredType.Kind.STRING : type.getKind();
+        switch (kind) {
+            case BOOLEAN:
+                builder = SchemaBuilder.bool();
+                break;
+            case INT:
+            case LONG:
+            case DOUBLE:
+                builder = SchemaBuilder.float64();
+                break;
+            case ARRAY:
+                builder = SchemaBuilder.array(type.getElementType() == null
+                        ? Schema.STRING_SCHEMA
+                        : connectSchemaBuilder(type.getElementType()).build());
+                break;
+            case OBJECT:
+                builder = SchemaBuilder.struct();
+                for (Map.Entry<String, InferredType> field : type.getFields().entrySet())
+                    builder.field(field.getKey(), connectSchemaBuilder(field.getValue()).build());
+                break;
+            default:
+                builder = SchemaBuilder.string();
+                break;
+        }
+        return type.isOptional() ? builder.optional() : builder;
+    }
+
+    /**
+     * Converts a JSON schema document to a Connect schema. Properties missing from 'required',
+     * and types allowing null, are optional. Only references local to the document are resolved.
+     */
+    public static Schema createConnectSchemaFromJsonSchema(String jsonSchema) throws IOException {
+        JsonNode root = OBJECT_MAPPER.readTree(jsonSchema);
+        return connectSchemaBuilder(root, root, false).build();
+    }
+
+    private static SchemaBuilder connectSchemaBuilder(JsonNode root, JsonNode jsonSchema, boolean optional) {
+        jsonSchema = resolveReference(root, jsonSchema);
+
+        // ["null", "string"] and anyOf/oneOf with a null alternative are nullable types
+        JsonNode alternatives = jsonSchema.has("anyOf") ? jsonSchema.get("anyOf") : jsonSchema.get("oneOf");
+        if (alternatives != null && alternatives.isArray()) {
+            JsonNode nonNull = null;
+            for (JsonNode alternative : alternatives) {
+                JsonNode resolved = resolveReference(root, alternative);
+                if ("null".equals(resolved.path("type").asText()))
+                    optional = true;
+                else if (nonNull == null)
+                    nonNull = resolved;
+            }
+            if (nonNull == null)
+                return SchemaBuilder.string().optional();
+            return connectSchemaBuilder(root, nonNull, optional);
+        }
+
+        String type = null;
+        JsonNode typeNode = jsonSchema.get("type");
+        if (typeNode != null && typeNode.isArray()) {
+            for (JsonNode typeName : typeNode) {
+                if ("null".equals(typeName.asText()))
+                    optional = true;
+                else if (type == null)
+                    type = typeName.asText();
+            }
+        } else if (typeNode != null) {
+            type = typeNode.asText();
+        } else if (jsonSchema.has("properties")) {
+            type = "object";
+        } else if (jsonSchema.has("enum")) {
+            type = "string";
+        }
+        if (type == null)
+            type = "null";
+
+        SchemaBuilder builder;
+        switch (type) {
+            case "string":
+                builder = SchemaBuilder.string();
+                break;
+            case "number":
+                builder = "float".equals(jsonSchema.path("format").asText()) ? SchemaBuilder.float32() : SchemaBuilder.float64();
+                break;
+            case "integer":
+                builder = "int32".equals(jsonSchema.path("format").asText()) ? SchemaBuilder.int32() : SchemaBuilder.int64();
+                break;
+            case "boolean":
+                builder = SchemaBuilder.bool();
+                break;
+            case "object":
+                builder = SchemaBuilder.struct();
+                if (jsonSchema.hasNonNull("title"))
+                    builder.name(jsonSchema.get("title").asText());
+                Set<String> required = new HashSet<>();
+                jsonSchema.path("required").forEach(name -> required.add(name.asText()));
+                JsonNode properties = jsonSchema.get("properties");
+                if (properties != null) {
+                    for (Map.Entry<String, JsonNode> property : (Iterable<Map.Entry<String, JsonNode>>) properties::fields)
+                        builder.field(property.getKey(), connectSchemaBuilder(root, property.getValue(), !required.contains(property.getKey())).build());
+                }
+                break;
+            case "array":
+                JsonNode items = jsonSchema.get("items");
+                if (items == null)
+                    throw new IllegalArgumentException("Array schema must have 'items' definition");
+                builder = SchemaBuilder.array(connectSchemaBuilder(root, items, false).build());
+                break;
+            case "null":
+                return SchemaBuilder.string().optional();
+            default:
+                throw new IllegalArgumentException("Unsupported JSON Schema type: " + type);
+        }
+        return optional ? builder.optional() : builder;
+    }
+
+    private static JsonNode resolveReference(JsonNode root, JsonNode jsonSchema) {
+        JsonNode reference = jsonSchema.get("$ref");
+        if (reference == null)
+            return jsonSchema;
+        String location = reference.asText();
+        if (!location.startsWith("#"))
+            throw new IllegalArgumentException("Only references inside the schema are supported: " + location);
+        JsonNode resolved = root.at(location.substring(1));
+        if (resolved.isMissingNode())
+            throw new IllegalArgumentException("Unresolved reference: " + location);
+        return resolveReference(root, resolved);
     }
 
     private static ObjectNode addProperties(JsonNode jsonData) throws IOException {
@@ -79,10 +222,7 @@ public class JsonSchemaHelper {
                     break;
 
                 JsonNodeType typeOfArrayElements = fieldValue.get(0).getNodeType();
-                if (typeOfArrayElements.equals(JsonNodeType.OBJECT))
-                    property.set("items", addProperties(fieldValue.get(0)));
-                else
-                    property.set("items", processJsonField(fieldValue.get(0), typeOfArrayElements, fieldName));
+                property.set("items", processJsonField(fieldValue.get(0), typeOfArrayElements, fieldName));
                 break;
             case BOOLEAN:
                 property.put("type", "boolean");
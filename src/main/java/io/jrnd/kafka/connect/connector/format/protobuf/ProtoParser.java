@@ -0,0 +1,367 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.connector.format.protobuf;
+
+import com.google.protobuf.DescriptorProtos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal parser of .proto definitions.
+ * <p>
+ * It reads messages, nested messages, enums, map fields and oneofs, enough to describe records,
+ * into a FileDescriptorProto. Options, reserved ranges, services and extensions are skipped, and
+ * type names are left as written, to be resolved when the descriptor is built. Imports are not
+ * supported, every type must be defined in the same file.
+ */
+class ProtoParser {
+
+    private static final Map<String, DescriptorProtos.FieldDescriptorProto.Type> SCALAR_TYPES = Map.ofEntries(
+            Map.entry("double", DescriptorProtos.FieldDescriptorProto.Type.TYPE_DOUBLE),
+            Map.entry("float", DescriptorProtos.FieldDescriptorProto.Type.TYPE_FLOAT),
+            Map.entry("int32", DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT32),
+            Map.entry("int64", DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64),
+            Map.entry("uint32", DescriptorProtos.FieldDescriptorProto.Type.TYPE_UINT32),
+            Map.entry("uint64", DescriptorProtos.FieldDescriptorProto.Type.TYPE_UINT64),
+            Map.entry("sint32", DescriptorProtos.FieldDescriptorProto.Type.TYPE_SINT32),
+            Map.entry("sint64", DescriptorProtos.FieldDescriptorProto.Type.TYPE_SINT64),
+            Map.entry("fixed32", DescriptorProtos.FieldDescriptorProto.Type.TYPE_FIXED32),
+            Map.entry("fixed64", DescriptorProtos.FieldDescriptorProto.Type.TYPE_FIXED64),
+            Map.entry("sfixed32", DescriptorProtos.FieldDescriptorProto.Type.TYPE_SFIXED32),
+            Map.entry("sfixed64", DescriptorProtos.FieldDescriptorProto.Type.TYPE_SFIXED64),
+            Map.entry("bool", DescriptorProtos.FieldDescriptorProto.Type.TYPE_BOOL),
+            Map.entry("string", DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING),
+            Map.entry("bytes", DescriptorProtos.FieldDescriptorProto.Type.TYPE_BYTES));
+
+    private final List<String> tokens;
+    private int position = 0;
+
+    private ProtoParser(String definition) {
+        this.tokens = tokenize(definition);
+    }
+
+    static DescriptorProtos.FileDescriptorProto parse(String fileName, String definition) {
+        return new ProtoParser(definition).parseFile(fileName);
+    }
+
+    private DescriptorProtos.FileDescriptorProto parseFile(String fileName) {
+        DescriptorProtos.FileDescriptorProto.Builder file = DescriptorProtos.FileDescriptorProto.newBuilder().setName(fileName);
+        while (position < tokens.size()) {
+            String token = next();
+            switch (token) {
+                case "syntax":
+                    expect("=");
+                    String syntax = unquote(next());
+                    if (!"proto2".equals(syntax))
+                        file.setSyntax(syntax);
+                    expect(";");
+                    break;
+                case "package":
+                    file.setPackage(next());
+                    expect(";");
+                    break;
+                case "import":
+                    throw new IllegalArgumentException("Imports are not supported, types must be defined in the same file");
+                case "option":
+                case "edition":
+                    skipStatement();
+                    break;
+                case "message":
+                    file.addMessageType(parseMessage(next()));
+                    break;
+                case "enum":
+                    file.addEnumType(parseEnum(next()));
+                    break;
+                case "service":
+                case "extend":
+                    next();
+                    skipBlock();
+                    break;
+                case ";":
+                    break;
+                default:
+                    throw unexpected(token);
+            }
+        }
+        return file.build();
+    }
+
+    private DescriptorProtos.DescriptorProto parseMessage(String name) {
+        DescriptorProtos.DescriptorProto.Builder message = DescriptorProtos.DescriptorProto.newBuilder().setName(name);
+        expect("{");
+        while (!peek("}"))
+            parseMessageElement(message, null);
+        expect("}");
+        return message.build();
+    }
+
+    /**
+     * @param oneofIndex index of the enclosing oneof, null outside oneofs
+     */
+    private void parseMessageElement(DescriptorProtos.DescriptorProto.Builder message, Integer oneofIndex) {
+        String token = next();
+        switch (token) {
+            case "message":
+                message.addNestedType(parseMessage(next()));
+                return;
+            case "enum":
+                message.addEnumType(parseEnum(next()));
+                return;
+            case "oneof":
+                int index = message.getOneofDeclCount();
+                message.addOneofDecl(DescriptorProtos.OneofDescriptorProto.newBuilder().setName(next()));
+                expect("{");
+                while (!peek("}"))
+                    parseMessageElement(message, index);
+                expect("}");
+                return;
+            case "option":
+            case "reserved":
+            case "extensions":
+                skipStatement();
+                return;
+            case "extend":
+                next();
+                skipBlock();
+                return;
+            case ";":
+                return;
+            case "map":
+                parseMapField(message);
+                return;
+            default:
+                break;
+        }
+
+        DescriptorProtos.FieldDescriptorProto.Label label = DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL;
+        String type = token;
+        if ("repeated".equals(token) || "optional".equals(token) || "required".equals(token)) {
+            if ("repeated".equals(token))
+                label = DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED;
+            else if ("required".equals(token))
+                label = DescriptorProtos.FieldDescriptorProto.Label.LABEL_REQUIRED;
+            type = next();
+        }
+        if ("group".equals(type))
+            throw new IllegalArgumentException("Groups are not supported");
+
+        DescriptorProtos.FieldDescriptorProto.Builder field = field(next(), type).setLabel(label);
+        expect("=");
+        field.setNumber(parseNumber(next()));
+        if (oneofIndex != null)
+            field.setOneofIndex(oneofIndex);
+        skipFieldOptions();
+        expect(";");
+        message.addField(field);
+    }
+
+    /**
+     * Adds a map field as protoc does: a repeated field of a nested key/value entry message.
+     */
+    private void parseMapField(DescriptorProtos.DescriptorProto.Builder message) {
+        expect("<");
+        String keyType = next();
+        expect(",");
+        String valueType = next();
+        expect(">");
+        String name = next();
+        expect("=");
+        int number = parseNumber(next());
+        skipFieldOptions();
+        expect(";");
+
+        String entryName = entryName(name);
+        message.addNestedType(DescriptorProtos.DescriptorProto.newBuilder()
+                .setName(entryName)
+                .setOptions(DescriptorProtos.MessageOptions.newBuilder().setMapEntry(true))
+                .addField(field("key", keyType).setNumber(1).setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL))
+                .addField(field("value", valueType).setNumber(2).setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL)));
+        message.addField(DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED)
+                .setTypeName(entryName));
+    }
+
+    private DescriptorProtos.EnumDescriptorProto parseEnum(String name) {
+        DescriptorProtos.EnumDescriptorProto.Builder enumType = DescriptorProtos.EnumDescriptorProto.newBuilder().setName(name);
+        expect("{");
+        while (!peek("}")) {
+            String token = next();
+            if ("option".equals(token) || "reserved".equals(token)) {
+                skipStatement();
+            } else if (!";".equals(token)) {
+                expect("=");
+                int number = parseNumber(next());
+                skipFieldOptions();
+                expect(";");
+                enumType.addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName(token).setNumber(number));
+            }
+        }
+        expect("}");
+        return enumType.build();
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto.Builder field(String name, String type) {
+        DescriptorProtos.FieldDescriptorProto.Builder field = DescriptorProtos.FieldDescriptorProto.newBuilder().setName(name);
+        DescriptorProtos.FieldDescriptorProto.Type scalarType = SCALAR_TYPES.get(type);
+        // message or enum, told apart when the name is resolved
+        if (scalarType == null)
+            return field.setTypeName(type);
+        return field.setType(scalarType);
+    }
+
+    private static String entryName(String fieldName) {
+        StringBuilder entryName = new StringBuilder();
+        boolean upper = true;
+        for (char c : fieldName.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                entryName.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return entryName.append("Entry").toString();
+    }
+
+    private void skipFieldOptions() {
+        if (!peek("["))
+            return;
+        int depth = 0;
+        do {
+            String token = next();
+            if ("[".equals(token))
+                depth++;
+            else if ("]".equals(token))
+                depth--;
+        } while (depth > 0);
+    }
+
+    private void skipStatement() {
+        int depth = 0;
+        while (true) {
+            String token = next();
+            if ("{".equals(token))
+                depth++;
+            else if ("}".equals(token))
+                depth--;
+            else if (";".equals(token) && depth == 0)
+                return;
+        }
+    }
+
+    private void skipBlock() {
+        expect("{");
+        int depth = 1;
+        while (depth > 0) {
+            String token = next();
+            if ("{".equals(token))
+                depth++;
+            else if ("}".equals(token))
+                depth--;
+        }
+    }
+
+    private static int parseNumber(String token) {
+        try {
+            return Integer.decode(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number, found '" + token + "'");
+        }
+    }
+
+    private static String unquote(String token) {
+        if (token.length() < 2 || (token.charAt(0) != '"' && token.charAt(0) != '\''))
+            throw new IllegalArgumentException("Expected a string, found '" + token + "'");
+        return token.substring(1, token.length() - 1);
+    }
+
+    private boolean peek(String token) {
+        if (position >= tokens.size())
+            throw new IllegalArgumentException("Unexpected end of definition, expected '" + token + "'");
+        return tokens.get(position).equals(token);
+    }
+
+    private String next() {
+        if (position >= tokens.size())
+            throw new IllegalArgumentException("Unexpected end of definition");
+        return tokens.get(position++);
+    }
+
+    private void expect(String token) {
+        String actual = next();
+        if (!actual.equals(token))
+            throw new IllegalArgumentException("Expected '" + token + "', found '" + actual + "'");
+    }
+
+    private static IllegalArgumentException unexpected(String token) {
+        return new IllegalArgumentException("Unexpected '" + token + "'");
+    }
+
+    /**
+     * Splits a definition into identifiers, numbers, quoted strings and single-character symbols,
+     * dropping comments.
+     */
+    private static List<String> tokenize(String definition) {
+        List<String> tokens = new ArrayList<>();
+        int length = definition.length();
+        int i = 0;
+        while (i < length) {
+            char c = definition.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (definition.startsWith("//", i)) {
+                int end = definition.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (definition.startsWith("/*", i)) {
+                int end = definition.indexOf("*/", i + 2);
+                if (end < 0)
+                    throw new IllegalArgumentException("Unterminated comment");
+                i = end + 2;
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && definition.charAt(end) != c) {
+                    if (definition.charAt(end) == '\\')
+                        end++;
+                    end++;
+                }
+                if (end >= length)
+                    throw new IllegalArgumentException("Unterminated string");
+                tokens.add(definition.substring(i, end + 1));
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-' || c == '+') {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(definition.charAt(end)) || definition.charAt(end) == '_' || definition.charAt(end) == '.'))
+                    end++;
+                tokens.add(definition.substring(i, end));
+                i = end;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -22,17 +22,33 @@ package io.jrnd.kafka.connect.connector.format.protobuf;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import io.jrnd.kafka.connect.connector.format.InferredType;
 import io.jrnd.kafka.connect.connector.format.StructHelper;
+import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class ProtobufHelper {
 
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+
+    // field schema parameter the Protobuf converter takes the field number from
+    public static final String PROTOBUF_TAG_PARAMETER = "io.confluent.connect.protobuf.Tag";
+
+    private static final String DEFAULT_MESSAGE_NAME = "ConnectDefault";
+    private static final Pattern PROTO_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
     private static final Map<DescriptorProtos.FieldDescriptorProto.Type, Schema> PROTOBUF_TO_KAFKA_CONNECT_TYPE_MAP = new HashMap<>();
 
     static {
@@ -43,14 +59,242 @@ public class ProtobufHelper {
     }
 
     public static Schema createProtobufSchemaFromJson(String messageName, String jsonString) throws Exception {
-        DescriptorProtos.DescriptorProto proto = createProtobufSchema(messageName, jsonString);
+        return createProtobufSchemaFromJson(messageName, JSON_READER.readTree(jsonString));
+    }
+
+    public static Schema createProtobufSchemaFromJson(String messageName, JsonNode jsonNode) {
+        DescriptorProtos.DescriptorProto proto = createProtobufSchema(messageName, jsonNode);
         return convertToKafkaConnectSchema(proto);
     }
 
-    private static DescriptorProtos.DescriptorProto createProtobufSchema(String messageName, String jsonString) throws Exception {
+    /**
+     * Creates the Connect schema of the records merged into type. Every field carries its number,
+     * the position at which it was first seen, so a field missing from some records never shifts
+     * the numbers of the following ones.
+     */
+    public static Schema createConnectSchema(String messageName, InferredType type) {
+        return connectSchemaBuilder(messageName, type).build();
+    }
+
+    private static SchemaBuilder connectSchemaBuilder(String name, InferredType type) {
+        SchemaBuilder builder;
+        InferredType.Kind kind = type.getKind() == null ? InferredType.Kind.STRING : type.getKind();
+        switch (kind) {
+            case BOOLEAN:
+                builder = SchemaBuilder.bool();
+                break;
+            case INT:
+                builder = SchemaBuilder.int32();
+                break;
+            case LONG:
+                builder = SchemaBuilder.int64();
+                break;
+            case DOUBLE:
+                builder = SchemaBuilder.float64();
+                break;
+            case ARRAY:
+                builder = SchemaBuilder.array(type.getElementType() == null
+                        ? Schema.STRING_SCHEMA
+                        : connectSchemaBuilder(name, type.getElementType()).build());
+                break;
+            case OBJECT:
+                builder = SchemaBuilder.struct().name(name);
+                int fieldNumber = 1;
+                for (Map.Entry<String, InferredType> field : type.getFields().entrySet()) {
+                    SchemaBuilder fieldBuilder = connectSchemaBuilder(field.getKey(), field.getValue())
+                            .parameter(PROTOBUF_TAG_PARAMETER, String.valueOf(fieldNumber++));
+                    builder.field(field.getKey(), fieldBuilder.build());
+                }
+                break;
+            default:
+                builder = SchemaBuilder.string();
+                break;
+        }
+        return type.isOptional() ? builder.optional() : builder;
+    }
+
+    /**
+     * Converts the first message of a .proto definition to a Connect schema. Every field carries
+     * its number, enums are strings, and fields are optional, as proto3 fields are.
+     */
+    public static Schema createConnectSchemaFromProto(String protoDefinition) {
+        return messageSchemaBuilder(createDescriptor(protoDefinition), new HashSet<>()).build();
+    }
+
+    /**
+     * @return the descriptor of the first message of a .proto definition
+     */
+    public static Descriptors.Descriptor createDescriptor(String protoDefinition) {
+        DescriptorProtos.FileDescriptorProto fileProto = ProtoParser.parse("schema.proto", protoDefinition);
+        Descriptors.FileDescriptor file;
+        try {
+            file = Descriptors.FileDescriptor.buildFrom(fileProto, new Descriptors.FileDescriptor[0]);
+        } catch (Descriptors.DescriptorValidationException e) {
+            throw new IllegalArgumentException("Invalid Protobuf definition: " + e.getMessage(), e);
+        }
+        if (file.getMessageTypes().isEmpty())
+            throw new IllegalArgumentException("The Protobuf definition has no message");
+        return file.getMessageTypes().get(0);
+    }
+
+    /**
+     * Writes the proto3 definition of the records of a Connect struct schema. Fields keep the
+     * number in their tag parameter, or get their position, and structs become messages nested
+     * in the message of their parent. Arrays and maps can't hold arrays or maps, as in Protobuf.
+     */
+    public static String createProtoDefinition(Schema schema) {
+        if (schema.type() != Schema.Type.STRUCT)
+            throw new IllegalArgumentException("Protobuf records must be structs, not " + schema.type());
+        StringBuilder proto = new StringBuilder("syntax = \"proto3\";\n\n");
+        String name = schema.name() == null ? DEFAULT_MESSAGE_NAME : messageName(schema.name());
+        appendMessage(proto, name, schema, "");
+        return proto.toString();
+    }
+
+    private static void appendMessage(StringBuilder proto, String name, Schema schema, String indent) {
+        proto.append(indent).append("message ").append(name).append(" {\n");
+        // nested messages share the scope of the fields
+        Set<String> names = new HashSet<>();
+        for (Field field : schema.fields())
+            names.add(field.name());
+        Map<String, Schema> nestedMessages = new LinkedHashMap<>();
+
+        int position = 1;
+        for (Field field : schema.fields()) {
+            if (!PROTO_NAME.matcher(field.name()).matches())
+                throw new IllegalArgumentException("Field name " + field.name() + " is not a valid Protobuf name");
+            String tag = field.schema().parameters() == null ? null : field.schema().parameters().get(PROTOBUF_TAG_PARAMETER);
+            String type;
+            Schema fieldSchema = field.schema();
+            switch (fieldSchema.type()) {
+                case ARRAY:
+                    type = "repeated " + protoType(field.name(), fieldSchema.valueSchema(), names, nestedMessages);
+                    break;
+                case MAP:
+                    Schema.Type keyType = fieldSchema.keySchema().type();
+                    if (keyType == Schema.Type.FLOAT32 || keyType == Schema.Type.FLOAT64 || keyType == Schema.Type.BYTES || keyType == Schema.Type.STRUCT)
+                        throw new IllegalArgumentException("Map field " + field.name() + " can't have " + keyType + " keys in Protobuf");
+                    type = "map<" + protoType(field.name(), fieldSchema.keySchema(), names, nestedMessages)
+                            + ", " + protoType(field.name(), fieldSchema.valueSchema(), names, nestedMessages) + ">";
+                    break;
+                default:
+                    type = protoType(field.name(), fieldSchema, names, nestedMessages);
+                    break;
+            }
+            proto.append(indent).append("  ").append(type).append(' ').append(field.name()).append(" = ")
+                    .append(tag == null ? String.valueOf(position) : tag).append(";\n");
+            position++;
+        }
+
+        for (Map.Entry<String, Schema> nestedMessage : nestedMessages.entrySet())
+            appendMessage(proto, nestedMessage.getKey(), nestedMessage.getValue(), indent + "  ");
+        proto.append(indent).append("}\n");
+    }
+
+    private static String protoType(String fieldName, Schema schema, Set<String> names, Map<String, Schema> nestedMessages) {
+        switch (schema.type()) {
+            case BOOLEAN:
+                return "bool";
+            case INT8:
+            case INT16:
+            case INT32:
+                return "int32";
+            case INT64:
+                return "int64";
+            case FLOAT32:
+                return "float";
+            case FLOAT64:
+                return "double";
+            case STRING:
+                return "string";
+            case BYTES:
+                return "bytes";
+            case STRUCT:
+                String base = messageName(schema.name() == null ? fieldName : schema.name());
+                String name = base;
+                for (int suffix = 2; !names.add(name); suffix++)
+                    name = base + suffix;
+                nestedMessages.put(name, schema);
+                return name;
+            default:
+                throw new IllegalArgumentException("Field " + fieldName + " can't hold a nested " + schema.type() + " in Protobuf");
+        }
+    }
+
+    /**
+     * Turns the last segment of a schema name into a valid message name, capitalized so it
+     * doesn't collide with the field it is the type of.
+     */
+    private static String messageName(String schemaName) {
+        String simpleName = schemaName.substring(schemaName.lastIndexOf('.') + 1);
+        StringBuilder name = new StringBuilder(simpleName.length() + 1);
+        for (int i = 0; i < simpleName.length(); i++) {
+            char c = simpleName.charAt(i);
+            name.append(Character.isLetterOrDigit(c) && c < 128 ? c : '_');
+        }
+        if (name.length() == 0 || !Character.isLetter(name.charAt(0)))
+            name.insert(0, 'M');
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private static SchemaBuilder messageSchemaBuilder(Descriptors.Descriptor message, Set<String> enclosing) {
+        if (!enclosing.add(message.getFullName()))
+            throw new IllegalArgumentException("Recursive message " + message.getFullName() + " is not supported");
+        SchemaBuilder builder = SchemaBuilder.struct().name(message.getName());
+        for (Descriptors.FieldDescriptor field : message.getFields()) {
+            SchemaBuilder fieldBuilder;
+            if (field.isMapField()) {
+                Descriptors.Descriptor entry = field.getMessageType();
+                fieldBuilder = SchemaBuilder.map(
+                        fieldSchemaBuilder(entry.findFieldByNumber(1), enclosing).build(),
+                        fieldSchemaBuilder(entry.findFieldByNumber(2), enclosing).build());
+            } else if (field.isRepeated()) {
+                fieldBuilder = SchemaBuilder.array(fieldSchemaBuilder(field, enclosing).build());
+            } else {
+                fieldBuilder = fieldSchemaBuilder(field, enclosing);
+            }
+            fieldBuilder.optional().parameter(PROTOBUF_TAG_PARAMETER, String.valueOf(field.getNumber()));
+            builder.field(field.getName(), fieldBuilder.build());
+        }
+        enclosing.remove(message.getFullName());
+        return builder;
+    }
+
+    private static SchemaBuilder fieldSchemaBuilder(Descriptors.FieldDescriptor field, Set<String> enclosing) {
+        switch (field.getType()) {
+            case DOUBLE:
+                return SchemaBuilder.float64();
+            case FLOAT:
+                return SchemaBuilder.float32();
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                return SchemaBuilder.int32();
+            // unsigned 32-bit values don't fit a signed int
+            case UINT32:
+            case FIXED32:
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+            case UINT64:
+            case FIXED64:
+                return SchemaBuilder.int64();
+            case BOOL:
+                return SchemaBuilder.bool();
+            case STRING:
+            case ENUM:
+                return SchemaBuilder.string();
+            case BYTES:
+                return SchemaBuilder.bytes();
+            case MESSAGE:
+                return messageSchemaBuilder(field.getMessageType(), enclosing);
+            default:
+                throw new IllegalArgumentException("Unsupported Protobuf type " + field.getType() + " of field " + field.getFullName());
+        }
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode jsonNode = mapper.readTree(jsonString);
+    private static DescriptorProtos.DescriptorProto createProtobufSchema(String messageName, JsonNode jsonNode) {
 
         DescriptorProtos.DescriptorProto.Builder messageDescriptorBuilder = DescriptorProtos.DescriptorProto.newBuilder()
                 .setName(messageName);
@@ -74,7 +318,7 @@ public class ProtobufHelper {
             } else if (fieldValue.isBoolean()) {
                 protoFieldType = DescriptorProtos.FieldDescriptorProto.Type.TYPE_BOOL;
             } else if (fieldValue.isObject()) {
-                DescriptorProtos.DescriptorProto nestedMessage = createProtobufSchema(fieldName, fieldValue.toString());
+                DescriptorProtos.DescriptorProto nestedMessage = createProtobufSchema(fieldName, fieldValue);
                 protoFieldType = DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE;
                 messageDescriptorBuilder.addNestedType(nestedMessage);
             } else {
@@ -0,0 +1,144 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.protobuf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import io.jrnd.kafka.connect.connector.format.registry.RecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.SchemaRegistry;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Encodes JSON records as Protobuf binary, building a DynamicMessage from the JSON tree with the
+ * same conversions as {@link io.jrnd.kafka.connect.connector.format.StructHelper}. Null values
+ * are left unset, as proto3 has no nulls.
+ */
+public class ProtobufRecordEncoder extends RecordEncoder<ProtobufRecordEncoder.ProtobufSchema> {
+
+    record ProtobufSchema(String definition, Descriptors.Descriptor descriptor) {}
+
+    // index of the message in the registered schema, the first one, as a list of a single 0
+    private static final byte FIRST_MESSAGE_INDEX = 0x0;
+
+    public ProtobufRecordEncoder(SchemaRegistry registry, String subject) {
+        super(registry, subject);
+    }
+
+    @Override
+    protected String schemaType() {
+        return SchemaRegistry.PROTOBUF;
+    }
+
+    @Override
+    protected ProtobufSchema translate(Schema schema) {
+        String definition = ProtobufHelper.createProtoDefinition(schema);
+        return new ProtobufSchema(definition, ProtobufHelper.createDescriptor(definition));
+    }
+
+    @Override
+    protected String schemaString(ProtobufSchema nativeSchema) {
+        return nativeSchema.definition();
+    }
+
+    @Override
+    protected void writeRecord(ProtobufSchema nativeSchema, Schema schema, JsonNode jsonNode, OutputStream out) throws IOException {
+        out.write(FIRST_MESSAGE_INDEX);
+        toMessage(nativeSchema.descriptor(), schema, jsonNode).writeTo(out);
+    }
+
+    private static DynamicMessage toMessage(Descriptors.Descriptor descriptor, Schema schema, JsonNode jsonNode) {
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(descriptor);
+        for (Field field : schema.fields()) {
+            JsonNode fieldValue = jsonNode.get(field.name());
+            if (fieldValue == null || fieldValue.isNull())
+                continue;
+            Descriptors.FieldDescriptor fieldDescriptor = descriptor.findFieldByName(field.name());
+            Schema fieldSchema = field.schema();
+            switch (fieldSchema.type()) {
+                case ARRAY:
+                    for (JsonNode element : fieldValue) {
+                        if (!element.isNull())
+                            builder.addRepeatedField(fieldDescriptor, toValue(fieldDescriptor, fieldSchema.valueSchema(), element));
+                    }
+                    break;
+                case MAP:
+                    Descriptors.Descriptor entryDescriptor = fieldDescriptor.getMessageType();
+                    Descriptors.FieldDescriptor keyDescriptor = entryDescriptor.findFieldByNumber(1);
+                    Descriptors.FieldDescriptor valueDescriptor = entryDescriptor.findFieldByNumber(2);
+                    Iterator<Map.Entry<String, JsonNode>> entries = fieldValue.fields();
+                    while (entries.hasNext()) {
+                        Map.Entry<String, JsonNode> entry = entries.next();
+                        DynamicMessage.Builder entryBuilder = DynamicMessage.newBuilder(entryDescriptor)
+                                // JSON keys are strings, a map with numeric keys gets them parsed
+                                .setField(keyDescriptor, toValue(keyDescriptor, fieldSchema.keySchema(), TextNode.valueOf(entry.getKey())));
+                        if (!entry.getValue().isNull())
+                            entryBuilder.setField(valueDescriptor, toValue(valueDescriptor, fieldSchema.valueSchema(), entry.getValue()));
+                        builder.addRepeatedField(fieldDescriptor, entryBuilder.build());
+                    }
+                    break;
+                default:
+                    builder.setField(fieldDescriptor, toValue(fieldDescriptor, fieldSchema, fieldValue));
+                    break;
+            }
+        }
+        return builder.build();
+    }
+
+    private static Object toValue(Descriptors.FieldDescriptor fieldDescriptor, Schema schema, JsonNode jsonNode) {
+        switch (schema.type()) {
+            case BOOLEAN:
+                return jsonNode.asBoolean();
+            case INT8:
+            case INT16:
+            case INT32:
+                return jsonNode.asInt();
+            case INT64:
+                return jsonNode.asLong();
+            case FLOAT32:
+                return (float) jsonNode.asDouble();
+            case FLOAT64:
+                return jsonNode.asDouble();
+            case STRING:
+                // a field widened to a string may also hold objects and arrays
+                return jsonNode.isValueNode() ? jsonNode.asText() : jsonNode.toString();
+            case BYTES:
+                // bytes are written as base64 text in JSON
+                try {
+                    return ByteString.copyFrom(jsonNode.binaryValue());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Not a base64 value: " + jsonNode, e);
+                }
+            case STRUCT:
+                return toMessage(fieldDescriptor.getMessageType(), schema, jsonNode);
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema.type());
+        }
+    }
+}
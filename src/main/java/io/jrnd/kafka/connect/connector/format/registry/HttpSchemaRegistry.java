@@ -0,0 +1,118 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.registry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Client of the Schema Registry REST API. URLs are tried in order until one answers.
+ */
+public class HttpSchemaRegistry implements SchemaRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpSchemaRegistry.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String CONTENT_TYPE = "application/vnd.schemaregistry.v1+json";
+    private static final int TIMEOUT_MS = 30000;
+
+    private final List<String> urls;
+
+    public HttpSchemaRegistry(List<String> urls) {
+        if (urls.isEmpty())
+            throw new IllegalArgumentException("No Schema Registry URL");
+        this.urls = urls;
+    }
+
+    @Override
+    public int register(String subject, String schemaType, String schema) throws IOException {
+        ObjectNode request = OBJECT_MAPPER.createObjectNode();
+        request.put("schema", schema);
+        // AVRO is the default type, older registries don't know the field
+        if (!AVRO.equals(schemaType))
+            request.put("schemaType", schemaType);
+        byte[] body = OBJECT_MAPPER.writeValueAsBytes(request);
+        String path = "/subjects/" + URLEncoder.encode(subject, StandardCharsets.UTF_8) + "/versions";
+
+        IOException failure = null;
+        for (String url : urls) {
+            try {
+                return post(stripTrailingSlash(url) + path, body);
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled())
+                    LOG.warn("Can't register schema of subject {} at {}:{}", subject, url, e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    private int post(String url, byte[] body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", CONTENT_TYPE);
+            conn.setRequestProperty("Accept", CONTENT_TYPE);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = conn.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                String error;
+                try (InputStream in = conn.getErrorStream()) {
+                    error = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                throw new IOException("HTTP status " + status + " for " + url + ": " + error);
+            }
+
+            JsonNode response;
+            try (InputStream in = conn.getInputStream()) {
+                response = OBJECT_MAPPER.readTree(in);
+            }
+            JsonNode id = response == null ? null : response.get("id");
+            if (id == null || !id.canConvertToInt())
+                throw new IOException("No schema ID in the response of " + url);
+            return id.asInt();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
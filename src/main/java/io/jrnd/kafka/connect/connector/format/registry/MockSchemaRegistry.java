@@ -0,0 +1,79 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.registry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory Schema Registry, for tests and local runs. Equal schemas get the same ID, whatever
+ * the subject they are registered under.
+ */
+public class MockSchemaRegistry implements SchemaRegistry {
+
+    private static final Map<String, MockSchemaRegistry> SCOPES = new ConcurrentHashMap<>();
+
+    private record RegisteredSchema(String schemaType, String schema) {}
+
+    private final Map<RegisteredSchema, Integer> ids = new HashMap<>();
+    private final List<RegisteredSchema> schemas = new ArrayList<>();
+    private final Map<String, List<Integer>> subjects = new HashMap<>();
+
+    public static MockSchemaRegistry forScope(String scope) {
+        return SCOPES.computeIfAbsent(scope, s -> new MockSchemaRegistry());
+    }
+
+    public static void dropScope(String scope) {
+        SCOPES.remove(scope);
+    }
+
+    @Override
+    public synchronized int register(String subject, String schemaType, String schema) {
+        RegisteredSchema registered = new RegisteredSchema(schemaType, schema);
+        Integer id = ids.get(registered);
+        if (id == null) {
+            schemas.add(registered);
+            id = schemas.size();
+            ids.put(registered, id);
+        }
+        List<Integer> versions = subjects.computeIfAbsent(subject, s -> new ArrayList<>());
+        if (!versions.contains(id))
+            versions.add(id);
+        return id;
+    }
+
+    /**
+     * @return the schema with the given ID, null if there's none
+     */
+    public synchronized String getSchema(int id) {
+        return id < 1 || id > schemas.size() ? null : schemas.get(id - 1).schema();
+    }
+
+    /**
+     * @return the IDs of the schemas registered under subject, in registration order
+     */
+    public synchronized List<Integer> getIds(String subject) {
+        return new ArrayList<>(subjects.getOrDefault(subject, List.of()));
+    }
+}
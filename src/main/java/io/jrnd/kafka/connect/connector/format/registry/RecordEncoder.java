@@ -0,0 +1,130 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.registry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.connect.data.Schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes JSON records straight into the Schema Registry wire format, a magic byte and the
+ * 4-byte schema ID followed by the binary record, with no Struct in between.
+ * <p>
+ * A Connect schema is translated to the native schema of the format, and registered, the first
+ * time it is seen: the translation and its ID are then cached by schema identity, which holds
+ * as the converged, cached and supplied schemas are all reused instances. An encoder reuses its
+ * output buffer, so it must be used by a single thread.
+ *
+ * @param <S> the native schema of the format, with anything the format needs to write records
+ */
+public abstract class RecordEncoder<S> {
+
+    public static final String ENCODING_JSON = "json";
+    public static final String ENCODING_AVRO = "avro";
+    public static final String ENCODING_PROTOBUF = "protobuf";
+
+    public static final byte MAGIC_BYTE = 0x0;
+
+    private static final int MAX_CACHED_SCHEMAS = 1000;
+
+    private record SchemaReference(Schema schema) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SchemaReference other && other.schema == schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(schema);
+        }
+    }
+
+    private record RegisteredSchema<S>(int id, S schema) {}
+
+    private final SchemaRegistry registry;
+    private final String subject;
+    private final Map<SchemaReference, RegisteredSchema<S>> registeredSchemas = new HashMap<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+    protected RecordEncoder(SchemaRegistry registry, String subject) {
+        this.registry = registry;
+        this.subject = subject;
+    }
+
+    /**
+     * @param schema the Connect schema of the record
+     * @throws IOException              if the schema can't be registered
+     * @throws IllegalArgumentException if the record or the schema can't be encoded in the format
+     */
+    public byte[] encode(Schema schema, JsonNode jsonNode) throws IOException {
+        RegisteredSchema<S> registeredSchema = register(schema);
+        buffer.reset();
+        buffer.write(MAGIC_BYTE);
+        int id = registeredSchema.id();
+        buffer.write(id >>> 24);
+        buffer.write(id >>> 16);
+        buffer.write(id >>> 8);
+        buffer.write(id);
+        writeRecord(registeredSchema.schema(), schema, jsonNode, buffer);
+        return buffer.toByteArray();
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    private RegisteredSchema<S> register(Schema schema) throws IOException {
+        SchemaReference reference = new SchemaReference(schema);
+        RegisteredSchema<S> registeredSchema = registeredSchemas.get(reference);
+        if (registeredSchema != null)
+            return registeredSchema;
+
+        S nativeSchema = translate(schema);
+        int id = registry.register(subject, schemaType(), schemaString(nativeSchema));
+        if (registeredSchemas.size() >= MAX_CACHED_SCHEMAS)
+            registeredSchemas.clear();
+        registeredSchema = new RegisteredSchema<>(id, nativeSchema);
+        registeredSchemas.put(reference, registeredSchema);
+        return registeredSchema;
+    }
+
+    /**
+     * @return the type of the schemas in the registry, {@link SchemaRegistry#AVRO} or {@link SchemaRegistry#PROTOBUF}
+     */
+    protected abstract String schemaType();
+
+    protected abstract S translate(Schema schema);
+
+    /**
+     * @return the text of the schema, as registered
+     */
+    protected abstract String schemaString(S nativeSchema);
+
+    /**
+     * Writes what follows the schema ID.
+     */
+    protected abstract void writeRecord(S nativeSchema, Schema schema, JsonNode jsonNode, OutputStream out) throws IOException;
+}
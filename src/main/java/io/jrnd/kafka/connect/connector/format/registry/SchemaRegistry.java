@@ -0,0 +1,55 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.format.registry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The part of a Schema Registry the task needs to encode records itself: registering a schema
+ * under a subject and getting its ID.
+ */
+public interface SchemaRegistry {
+
+    String MOCK_URL_PREFIX = "mock://";
+
+    String AVRO = "AVRO";
+    String PROTOBUF = "PROTOBUF";
+
+    /**
+     * Registers a schema under subject, or looks it up if it is already registered.
+     *
+     * @param schemaType AVRO or PROTOBUF
+     * @return the ID of the schema
+     */
+    int register(String subject, String schemaType, String schema) throws IOException;
+
+    /**
+     * Returns the registry at the given URLs: a comma separated list of Schema Registry URLs or,
+     * as with the Confluent converters, mock://scope for an in-memory registry shared by everything
+     * in the JVM using the same scope.
+     */
+    static SchemaRegistry forUrl(String urls) {
+        if (urls.startsWith(MOCK_URL_PREFIX))
+            return MockSchemaRegistry.forScope(urls.substring(MOCK_URL_PREFIX.length()));
+        return new HttpSchemaRegistry(Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList());
+    }
+}
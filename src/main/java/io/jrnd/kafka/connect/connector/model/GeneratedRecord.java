@@ -0,0 +1,187 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.connector.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.jrnd.kafka.connect.connector.format.JsonObjectSlicer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A key/value pair generated by JR.
+ * <p>
+ * Keyed records are read from JR as a single envelope, {"k":key,"v":value}, instead of two
+ * consecutive JSON objects, so a malformed record can't shift the pairing of the following ones.
+ * <p>
+ * The JSON text of key and value is parsed lazily and at most once: key substitution, schema
+ * inference and Struct conversion all work on the same tree. The text is only serialized again
+ * when the tree has been modified.
+ * <p>
+ * Records read as raw UTF-8 bytes keep them as they are: the bytes are only decoded when the
+ * text or the tree of the record is asked for.
+ */
+public class GeneratedRecord {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectReader JSON_READER = OBJECT_MAPPER.reader();
+    private static final ObjectWriter JSON_WRITER = OBJECT_MAPPER.writer();
+
+    public static final String ENVELOPE_KEY = "k";
+    public static final String ENVELOPE_VALUE = "v";
+
+    private static final byte[] ENVELOPE_KEY_BYTES = ENVELOPE_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ENVELOPE_VALUE_BYTES = ENVELOPE_VALUE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.UTF_8);
+
+    private String key;
+    private JsonNode keyNode;
+    private byte[] keyBytes;
+    private String value;
+    private JsonNode valueNode;
+    private byte[] valueBytes;
+
+    public GeneratedRecord(String key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public GeneratedRecord(JsonNode keyNode, JsonNode valueNode) {
+        this.keyNode = keyNode;
+        this.valueNode = valueNode;
+    }
+
+    /**
+     * Parses a {"k":key,"v":value} envelope, the key and value trees being used as they are.
+     */
+    public static GeneratedRecord fromEnvelope(String envelope) throws IOException {
+        JsonNode envelopeNode = JSON_READER.readTree(envelope);
+        JsonNode valueNode = envelopeNode == null ? null : envelopeNode.get(ENVELOPE_VALUE);
+        if (valueNode == null)
+            throw new IOException("Not a key/value envelope: " + envelope);
+        JsonNode keyNode = envelopeNode.get(ENVELOPE_KEY);
+        return new GeneratedRecord(keyNode == null || keyNode.isNull() ? null : keyNode, valueNode);
+    }
+
+    /**
+     * A record read as raw UTF-8 bytes.
+     */
+    public static GeneratedRecord ofBytes(byte[] keyBytes, byte[] valueBytes) {
+        GeneratedRecord record = new GeneratedRecord((String) null, null);
+        record.keyBytes = keyBytes;
+        record.valueBytes = valueBytes;
+        return record;
+    }
+
+    /**
+     * Slices a {"k":key,"v":value} envelope read as raw UTF-8 bytes, without decoding it.
+     */
+    public static GeneratedRecord fromEnvelope(byte[] envelope) throws IOException {
+        byte[][] members = JsonObjectSlicer.slice(envelope, ENVELOPE_KEY_BYTES, ENVELOPE_VALUE_BYTES);
+        if (members[1] == null)
+            throw new IOException("Not a key/value envelope");
+        byte[] keyBytes = members[0];
+        return ofBytes(keyBytes == null || Arrays.equals(keyBytes, NULL_BYTES) ? null : keyBytes, members[1]);
+    }
+
+    public boolean hasKey() {
+        return keyNode != null || keyBytes != null || (key != null && !key.isEmpty());
+    }
+
+    public String getKey() throws IOException {
+        if (key == null && keyNode != null)
+            key = JSON_WRITER.writeValueAsString(keyNode);
+        else if (key == null && keyBytes != null)
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+        return key;
+    }
+
+    public void setKeyNode(JsonNode keyNode) {
+        this.keyNode = keyNode;
+        this.key = null;
+        this.keyBytes = null;
+    }
+
+    public JsonNode getKeyNode() throws IOException {
+        if (keyNode == null && keyBytes != null)
+            keyNode = JSON_READER.readTree(keyBytes);
+        else if (keyNode == null && hasKey())
+            keyNode = JSON_READER.readTree(key);
+        return keyNode;
+    }
+
+    /**
+     * @return the UTF-8 bytes of the key, encoded only if the key was not read as bytes
+     */
+    public byte[] getKeyBytes() throws IOException {
+        if (keyBytes == null && keyNode != null)
+            keyBytes = JSON_WRITER.writeValueAsBytes(keyNode);
+        else if (keyBytes == null && hasKey())
+            keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        return keyBytes;
+    }
+
+    public String getValue() throws IOException {
+        if (value == null && valueNode != null)
+            value = JSON_WRITER.writeValueAsString(valueNode);
+        else if (value == null && valueBytes != null)
+            value = new String(valueBytes, StandardCharsets.UTF_8);
+        return value;
+    }
+
+    /**
+     * @return the UTF-8 bytes of the value, encoded only if the value was not read as bytes
+     */
+    public byte[] getValueBytes() throws IOException {
+        if (valueBytes == null && valueNode != null)
+            valueBytes = JSON_WRITER.writeValueAsBytes(valueNode);
+        else if (valueBytes == null && value != null)
+            valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        return valueBytes;
+    }
+
+    /**
+     * @return whether the value has already been parsed into a tree
+     */
+    public boolean hasValueNode() {
+        return valueNode != null;
+    }
+
+    public JsonNode getValueNode() throws IOException {
+        if (valueNode == null && valueBytes != null)
+            valueNode = JSON_READER.readTree(valueBytes);
+        else if (valueNode == null && value != null)
+            valueNode = JSON_READER.readTree(value);
+        return valueNode;
+    }
+
+    /**
+     * Must be called after the value tree has been modified in place, so the text is serialized again.
+     */
+    public void valueNodeChanged() {
+        value = null;
+        valueBytes = null;
+    }
+}
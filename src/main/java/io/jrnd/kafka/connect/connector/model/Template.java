@@ -6,6 +6,7 @@ public class Template {
     private boolean keyEmbedded;
     private String template;
     private String keyTemplate;
+    private Long seed;
 
 
     public Template() {}
@@ -41,4 +42,12 @@ public class Template {
     public void setKeyTemplate(String keyTemplate) {
         this.keyTemplate = keyTemplate;
     }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
 }
@@ -0,0 +1,283 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.jrnd.kafka.connect.connector.JRSourceConnector;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.runtime.ConnectorConfig;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.apache.kafka.connect.runtime.isolation.PluginDiscoveryMode;
+import org.apache.kafka.connect.storage.Converter;
+import org.apache.kafka.connect.storage.StringConverter;
+import org.apache.kafka.connect.util.clusters.EmbeddedConnectCluster;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end throughput suite: runs the connector on an embedded Connect cluster, with a stub jr
+ * printing canned records as fast as it can, and measures the records/sec reaching Kafka and the
+ * latency from the JR run to the consumer.
+ * <p>
+ * Every converter is run with every 'objects'x'frequency' setting and task count, and the results
+ * are written as JSON to 'perf.report'. The matrix is set with system properties:
+ * <ul>
+ *     <li>perf.converters: converter classes, converters not on the classpath are reported as skipped</li>
+ *     <li>perf.settings: 'objects'x'frequency' pairs, for example 1000x10,10000x1</li>
+ *     <li>perf.tasks: task counts</li>
+ *     <li>perf.warmup.seconds, perf.measure.seconds: warmup and measurement time of every run</li>
+ * </ul>
+ * Runs with: mvn -Pperf test, adding the perf-confluent profile for the schema registry converters.
+ */
+@Tag("perf")
+public class ConnectorThroughputTest {
+
+    private static final String AVRO_CONVERTER = "io.confluent.connect.avro.AvroConverter";
+    private static final String JSON_SCHEMA_CONVERTER = "io.confluent.connect.json.JsonSchemaConverter";
+    private static final String PROTOBUF_CONVERTER = "io.confluent.connect.protobuf.ProtobufConverter";
+    // Confluent converters share a JVM-wide in-memory registry for a mock:// URL
+    private static final String SCHEMA_REGISTRY_URL = "mock://jr-perf";
+    // decoding every record would compete with the worker for CPU
+    private static final int LATENCY_SAMPLE_EVERY = 100;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectorThroughputTest.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @TempDir
+    static Path jrDir;
+
+    private static EmbeddedConnectCluster connect;
+    private static Path templateFile;
+
+    @BeforeAll
+    public static void startCluster() throws Exception {
+        writeStubJr();
+        templateFile = jrDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        // the connect-runtime test jar ships test plugins without ServiceLoader manifests
+        Map<String, String> workerProps = new HashMap<>();
+        workerProps.put(WorkerConfig.PLUGIN_DISCOVERY_CONFIG, PluginDiscoveryMode.ONLY_SCAN.toString());
+        connect = new EmbeddedConnectCluster.Builder()
+                .name("jr-perf")
+                .numWorkers(1)
+                .numBrokers(1)
+                .workerProps(workerProps)
+                .build();
+        connect.start();
+    }
+
+    @AfterAll
+    public static void stopCluster() {
+        if (connect != null)
+            connect.stop();
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        List<String> converters = list("perf.converters",
+                String.join(",", StringConverter.class.getName(), AVRO_CONVERTER, JSON_SCHEMA_CONVERTER, PROTOBUF_CONVERTER));
+        List<String> settings = list("perf.settings", "1000x100,10000x10");
+        List<String> taskCounts = list("perf.tasks", "1,2");
+        long warmupMs = Long.getLong("perf.warmup.seconds", 5L) * 1000L;
+        long measureMs = Long.getLong("perf.measure.seconds", 15L) * 1000L;
+
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (String converter : converters) {
+            for (String setting : settings) {
+                String[] objectsAndFrequency = setting.split("x");
+                for (String taskCount : taskCounts) {
+                    Map<String, Object> run = new LinkedHashMap<>();
+                    run.put("converter", converter);
+                    run.put("objects", Integer.parseInt(objectsAndFrequency[0]));
+                    run.put("frequencyMs", Long.parseLong(objectsAndFrequency[1]));
+                    run.put("tasks", Integer.parseInt(taskCount));
+                    if (isAvailable(converter))
+                        measure(runs.size(), run, warmupMs, measureMs);
+                    else
+                        run.put("status", "skipped: converter not on the classpath");
+                    LOG.info("jr-perf {}", run);
+                    runs.add(run);
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("warmupMs", warmupMs);
+        report.put("measureMs", measureMs);
+        report.put("runs", runs);
+        Path reportFile = Paths.get(System.getProperty("perf.report", "target/perf/throughput.json"));
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        OBJECT_MAPPER.writeValue(reportFile.toFile(), report);
+
+        assertTrue(runs.stream().anyMatch(run -> "ok".equals(run.get("status"))), "no run completed, see " + reportFile);
+    }
+
+    private void measure(int index, Map<String, Object> run, long warmupMs, long measureMs) throws Exception {
+        String connectorName = "jr-perf-" + index;
+        int tasks = (int) run.get("tasks");
+        String converterClass = (String) run.get("converter");
+        connect.kafka().createTopic(connectorName, tasks);
+
+        Map<String, String> props = new HashMap<>();
+        props.put(ConnectorConfig.CONNECTOR_CLASS_CONFIG, JRSourceConnector.class.getName());
+        props.put(ConnectorConfig.TASKS_MAX_CONFIG, String.valueOf(tasks));
+        props.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        props.put(JRSourceConnector.TOPIC_CONFIG, connectorName);
+        props.put(JRSourceConnector.OBJECTS_CONFIG, String.valueOf(run.get("objects")));
+        props.put(JRSourceConnector.POLL_CONFIG, String.valueOf(run.get("frequencyMs")));
+        props.put(JRSourceConnector.JR_EXECUTABLE_PATH, jrDir.toString());
+        props.put(JRSourceConnector.KEY_CONVERTER, StringConverter.class.getName());
+        props.put(JRSourceConnector.VALUE_CONVERTER, converterClass);
+        props.put(JRSourceConnector.VALUE_CONVERTER + ".schema.registry.url", SCHEMA_REGISTRY_URL);
+
+        connect.configureConnector(connectorName, props);
+        Converter converter = newConverter(converterClass);
+        try (KafkaConsumer<byte[], byte[]> consumer = connect.kafka().createConsumerAndSubscribeTo(
+                Map.of(ConsumerConfig.GROUP_ID_CONFIG, connectorName, ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"),
+                connectorName)) {
+            connect.assertions().assertConnectorAndExactlyNumTasksAreRunning(connectorName, tasks, "connector didn't start");
+
+            consume(consumer, converter, connectorName, warmupMs, new ArrayList<>());
+
+            List<Long> latencies = new ArrayList<>();
+            long start = System.nanoTime();
+            long records = consume(consumer, converter, connectorName, measureMs, latencies);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Collections.sort(latencies);
+            run.put("status", "ok");
+            run.put("records", records);
+            run.put("recordsPerSecond", Math.round(records / seconds));
+            run.put("latencyP50Ms", percentile(latencies, 0.50));
+            run.put("latencyP95Ms", percentile(latencies, 0.95));
+            run.put("latencyP99Ms", percentile(latencies, 0.99));
+            run.put("latencyMaxMs", latencies.isEmpty() ? null : latencies.get(latencies.size() - 1));
+        } finally {
+            connect.deleteConnector(connectorName);
+            connect.assertions().assertConnectorDoesNotExist(connectorName, "connector wasn't deleted");
+        }
+    }
+
+    /**
+     * Consumes for durationMs, sampling the latency between the JR run and the consumer.
+     *
+     * @return the number of records consumed
+     */
+    private long consume(KafkaConsumer<byte[], byte[]> consumer, Converter converter, String topic, long durationMs, List<Long> latencies) {
+        long records = 0;
+        long deadline = System.currentTimeMillis() + durationMs;
+        while (System.currentTimeMillis() < deadline) {
+            for (ConsumerRecord<byte[], byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                if (records++ % LATENCY_SAMPLE_EVERY == 0)
+                    latencies.add(System.currentTimeMillis() - generatedAt(converter, topic, record.value()));
+            }
+        }
+        return records;
+    }
+
+    private long generatedAt(Converter converter, String topic, byte[] value) {
+        SchemaAndValue schemaAndValue = converter.toConnectData(topic, value);
+        if (schemaAndValue.value() instanceof Struct struct)
+            return ((Number) struct.get("ts")).longValue();
+        try {
+            JsonNode jsonNode = OBJECT_MAPPER.readTree((String) schemaAndValue.value());
+            return jsonNode.get("ts").asLong();
+        } catch (Exception e) {
+            throw new IllegalStateException("unexpected record " + schemaAndValue.value(), e);
+        }
+    }
+
+    private static Converter newConverter(String converterClass) throws Exception {
+        Converter converter = (Converter) Class.forName(converterClass).getDeclaredConstructor().newInstance();
+        converter.configure(Map.of("schema.registry.url", SCHEMA_REGISTRY_URL), false);
+        return converter;
+    }
+
+    private static boolean isAvailable(String converterClass) {
+        try {
+            Class.forName(converterClass);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty())
+            return null;
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    private static List<String> list(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Writes a jr printing the '-n' records it is asked for, all stamped with the time of the run.
+     */
+    private static void writeStubJr() throws Exception {
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, """
+                #!/bin/bash
+                n=1
+                while [ $# -gt 0 ]; do
+                  if [ "$1" = "-n" ]; then n=$2; fi
+                  shift
+                done
+                ts=$(date +%s%3N)
+                yes "{\\"id\\":\\"5f2b9c1e\\",\\"ts\\":$ts,\\"name\\":\\"John Doe\\",\\"amount\\":42,\\"active\\":true,\\"city\\":\\"Milan\\"}" | head -n "$n"
+                """);
+        assertTrue(jr.toFile().setExecutable(true));
+    }
+}
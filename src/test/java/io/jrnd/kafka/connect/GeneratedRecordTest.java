@@ -0,0 +1,96 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratedRecordTest {
+
+    @Test
+    public void testFromEnvelope() throws Exception {
+        GeneratedRecord record = GeneratedRecord.fromEnvelope("{\"k\": {\"ID\":100} , \"v\":{\"ID\":\"x\",\"VLAN\":\"ALPHA\"}}");
+
+        assertTrue(record.hasKey());
+        assertEquals("{\"ID\":100}", record.getKey());
+        assertEquals(100, record.getKeyNode().get("ID").asInt());
+        assertEquals("ALPHA", record.getValueNode().get("VLAN").asText());
+    }
+
+    @Test
+    public void testFromEnvelopeWithoutKey() throws Exception {
+        assertFalse(GeneratedRecord.fromEnvelope("{\"k\":null,\"v\":{\"VLAN\":\"ALPHA\"}}").hasKey());
+    }
+
+    @Test
+    public void testMalformedEnvelope() {
+        assertThrows(IOException.class, () -> GeneratedRecord.fromEnvelope("{\"ID\":100}"));
+        assertThrows(IOException.class, () -> GeneratedRecord.fromEnvelope("{\"k\":{\"ID\":100},\"v\":"));
+    }
+
+    @Test
+    public void testValueTextIsKeptUntilChanged() throws Exception {
+        String value = "{ \"ID\" : \"x\" }";
+        GeneratedRecord record = new GeneratedRecord("{\"ID\":1}", value);
+        record.getValueNode();
+        assertSame(value, record.getValue());
+
+        ((ObjectNode) record.getValueNode()).put("ID", "1");
+        record.valueNodeChanged();
+        assertEquals("{\"ID\":\"1\"}", record.getValue());
+    }
+
+    @Test
+    public void testFromEnvelopeBytes() throws Exception {
+        GeneratedRecord record = GeneratedRecord.fromEnvelope(bytes("{\"k\": {\"ID\":100} , \"v\":{\"ID\":\"x\",\"VLAN\":\"ALPHA\"}}"));
+
+        assertTrue(record.hasKey());
+        assertArrayEquals(bytes("{\"ID\":100}"), record.getKeyBytes());
+        assertArrayEquals(bytes("{\"ID\":\"x\",\"VLAN\":\"ALPHA\"}"), record.getValueBytes());
+        assertEquals("ALPHA", record.getValueNode().get("VLAN").asText());
+
+        assertFalse(GeneratedRecord.fromEnvelope(bytes("{\"k\":null,\"v\":{\"VLAN\":\"ALPHA\"}}")).hasKey());
+        assertThrows(IOException.class, () -> GeneratedRecord.fromEnvelope(bytes("{\"ID\":100}")));
+        assertThrows(IOException.class, () -> GeneratedRecord.fromEnvelope(bytes("{\"k\":{\"ID\":100},\"v\":")));
+    }
+
+    @Test
+    public void testBytesAreKeptUntilChanged() throws Exception {
+        byte[] value = bytes("{ \"ID\" : \"x\" }");
+        GeneratedRecord record = GeneratedRecord.ofBytes(null, value);
+        assertEquals("{ \"ID\" : \"x\" }", record.getValue());
+        assertSame(value, record.getValueBytes());
+
+        ((ObjectNode) record.getValueNode()).put("ID", "1");
+        record.valueNodeChanged();
+        assertArrayEquals(bytes("{\"ID\":\"1\"}"), record.getValueBytes());
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -123,7 +123,7 @@ public class JRCommandExecutorTest {
 
     @Test
     public void testRunTemplateWithKey() throws Exception {
-        String mockJsonOutput = "{\"ID\":100}{\"VLAN\":\"ALPHA\"}\n{\"ID\":200}{\"VLAN\":\"GAMMA\"}\n";
+        String mockJsonOutput = "{\"k\":{\"ID\":100},\"v\":{\"VLAN\":\"ALPHA\"}}\n{\"k\":{\"ID\":200},\"v\":{\"VLAN\":\"GAMMA\"}}\n";
         when(mockProcess.getInputStream()).thenReturn(new ByteArrayInputStream(mockJsonOutput.getBytes()));
         when(mockProcess.waitFor()).thenReturn(0);
 
@@ -131,6 +131,6 @@ public class JRCommandExecutorTest {
         template.setTemplate("net_device");
         List<String> result = jrCommandExecutor.runTemplate(template, 2, "ID", 150);
 
-        assertEquals(4, result.size());
+        assertEquals(2, result.size());
     }
 }
@@ -0,0 +1,127 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.JRCommand;
+import io.jrnd.kafka.connect.connector.JRCommandExecutor;
+import io.jrnd.kafka.connect.connector.JRProcessSupervisor;
+import io.jrnd.kafka.connect.connector.model.Template;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JRCommandTest {
+
+    @TempDir
+    Path jrDir;
+
+    @Test
+    public void testExistingTemplate() throws Exception {
+        Template template = new Template();
+        template.setTemplate("net_device");
+
+        try (JRCommand command = JRCommand.of(null, template, null, 0, 0)) {
+            assertEquals(List.of("jr", "run", "net_device"), command.getArguments());
+            assertEquals(List.of("jr", "run", "net_device", "-n", "5", "--seed", "42"), command.run(5, 42L));
+            assertEquals(List.of("jr", "run", "net_device", "-n", "5", "-f", "100ms"), command.stream(5, null, 100L));
+            assertNull(command.getTemplateFile());
+            assertFalse(command.isKeyed());
+        }
+    }
+
+    @Test
+    public void testKeyTemplate() throws Exception {
+        Template template = new Template();
+        template.setTemplate("net_device");
+        template.setKeyEmbedded(true);
+        template.setKeyTemplate("{\"ID\":\"{{uuid}}\"}");
+
+        try (JRCommand command = JRCommand.of("/opt/jr/bin", template, null, 0, 0)) {
+            assertEquals(List.of(
+                    "/opt/jr/bin" + File.separator + "jr", "run", "net_device",
+                    "--key", "{\"ID\":\"{{uuid}}\"}",
+                    "--outputTemplate", JRCommand.JR_OUTPUT_TEMPLATE_FORMAT), command.getArguments());
+            assertTrue(command.isKeyed());
+        }
+    }
+
+    @Test
+    public void testKeyField() throws Exception {
+        Template template = new Template();
+        template.setTemplate("net_device");
+
+        try (JRCommand command = JRCommand.of(null, template, "ID", 0, 100)) {
+            assertEquals("{{key \"{\\\"ID\\\":\" 100}}}", command.getArguments().get(4));
+        }
+        try (JRCommand command = JRCommand.of(null, template, "ID", 50, 100)) {
+            assertEquals("{\"ID\":{{integer 50 99}}}", command.getArguments().get(4));
+        }
+    }
+
+    @Test
+    public void testEmbeddedTemplateFile() throws Exception {
+        Template template = new Template();
+        template.setEmbedded(true);
+        template.setTemplate("{\"name\":\"{{name}}\"}");
+
+        Path templateFile;
+        try (JRCommand command = JRCommand.of(null, template, null, 0, 0)) {
+            templateFile = command.getTemplateFile();
+            assertEquals(List.of("jr", "run", "--templateFileName", templateFile.toString()), command.getArguments());
+            assertEquals("{\"name\":\"{{name}}\"}", Files.readString(templateFile));
+            if (!OS.WINDOWS.isCurrentOs())
+                assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(templateFile)));
+        }
+        assertFalse(Files.exists(templateFile));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testRunWithoutShell() throws Exception {
+        // prints the template file, so the template must reach JR unchanged
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, "#!/bin/bash\n"
+                + "while [ $# -gt 0 ]; do if [ \"$1\" = --templateFileName ]; then file=$2; fi; shift; done\n"
+                + "cat \"$file\"\n");
+        assertTrue(jr.toFile().setExecutable(true));
+
+        String value = "{\"quote\":\"it's a \\\"$HOME\\\" `ls` template\",\"padding\":\"" + "x".repeat(300000) + "\"}";
+        Template template = new Template();
+        template.setEmbedded(true);
+        template.setTemplate(value);
+
+        JRCommandExecutor executor = JRCommandExecutor.getInstance(jrDir.toString());
+        try (JRCommand command = executor.prepare(template, null, 0, 0)) {
+            List<String> records = executor.runTemplate(command, 1, null, JRProcessSupervisor.oneOff());
+            assertEquals(List.of(value), records);
+        }
+    }
+}
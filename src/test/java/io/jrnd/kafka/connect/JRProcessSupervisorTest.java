@@ -0,0 +1,151 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.JRProcessSupervisor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+public class JRProcessSupervisorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRunReadsStdout() throws Exception {
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(10000L, 0, 0L, null);
+
+        assertEquals("{\"VLAN\":\"ALPHA\"}\n", supervisor.run(bash("echo '{\"VLAN\":\"ALPHA\"}'"), this::readAll));
+        assertEquals(0, supervisor.getFailures());
+    }
+
+    @Test
+    public void testStderrFloodDoesNotBlock() throws Exception {
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(10000L, 0, 0L, null);
+
+        // far more than a pipe buffer, JR would block writing it if stderr wasn't drained
+        String output = supervisor.run(bash("head -c 1000000 /dev/zero | tr '\\0' x >&2; echo done"), this::readAll);
+
+        assertEquals("done\n", output);
+    }
+
+    @Test
+    public void testTimeoutKillsProcessTree() throws Exception {
+        Path pidFile = tempDir.resolve("pid");
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(300L, 0, 0L, null);
+
+        long start = System.nanoTime();
+        IOException e = assertThrows(IOException.class,
+                () -> supervisor.run(bash("sleep 30 & echo $! > " + pidFile + "; wait"), this::readAll));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(elapsedMs < 5000L, "run returned after " + elapsedMs + " ms");
+        assertEquals(1, supervisor.getTimeouts());
+        assertEquals(1, supervisor.getFailures());
+
+        // the killed child may take a moment to be reaped
+        long childPid = Long.parseLong(Files.readString(pidFile).trim());
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (isAlive(childPid) && System.currentTimeMillis() < deadline)
+            Thread.sleep(50L);
+        assertFalse(isAlive(childPid));
+    }
+
+    @Test
+    public void testRetryFailedRuns() throws Exception {
+        Path counter = tempDir.resolve("counter");
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(10000L, 2, 10L, null);
+
+        String output = supervisor.run(bash(
+                "n=$(cat " + counter + " 2>/dev/null || echo 0); echo $((n+1)) > " + counter + "; "
+                        + "if [ $n -lt 2 ]; then echo boom >&2; exit 1; fi; echo ok"), this::readAll);
+
+        assertEquals("ok\n", output);
+        assertEquals(2, supervisor.getRetries());
+        assertEquals(2, supervisor.getFailures());
+    }
+
+    @Test
+    public void testFailWhenRetriesAreExhausted() {
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(10000L, 1, 10L, null);
+
+        IOException e = assertThrows(IOException.class,
+                () -> supervisor.run(bash("echo 'template not found' >&2; exit 3"), this::readAll));
+
+        assertTrue(e.getMessage().contains("code 3"), e.getMessage());
+        assertTrue(e.getMessage().contains("template not found"), e.getMessage());
+        assertEquals(2, supervisor.getFailures());
+        assertEquals(1, supervisor.getRetries());
+    }
+
+    @Test
+    public void testStopKillsRunInFlight() throws Exception {
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(60000L, 5, 10L, null);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread runner = new Thread(() -> {
+            try {
+                supervisor.run(bash("sleep 30"), this::readAll);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        runner.start();
+        Thread.sleep(300L);
+
+        long start = System.nanoTime();
+        supervisor.stop();
+        runner.join(5000L);
+
+        assertFalse(runner.isAlive());
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 2000L);
+        assertInstanceOf(IOException.class, failure.get());
+        // a stopped supervisor doesn't retry
+        assertEquals(0, supervisor.getRetries());
+        assertThrows(IOException.class, () -> supervisor.run(bash("echo ok"), this::readAll));
+    }
+
+    private boolean isAlive(long pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    private List<String> bash(String script) {
+        return List.of("bash", "-c", script);
+    }
+
+    private String readAll(java.io.InputStream stdout) throws IOException {
+        return new String(stdout.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -24,10 +24,14 @@ import io.jrnd.kafka.connect.connector.JRCommandExecutor;
 import io.jrnd.kafka.connect.connector.JRSourceConnector;
 import io.jrnd.kafka.connect.connector.JRSourceTask;
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.ConfigValue;
 import org.apache.kafka.connect.connector.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -35,6 +39,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -174,4 +180,236 @@ public class JRSourceConnectorTest {
         assertEquals(Integer.valueOf(200), jrSourceConnector.getKeyValueIntervalMax());
         assertNull(jrSourceConnector.getJrExecutablePath());
     }
+
+    @Test
+    public void testTaskConfigsSharded(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+        config.put(JRSourceConnector.OBJECTS_CONFIG, "10");
+        config.put(JRSourceConnector.KEY_FIELD, "ID");
+        config.put(JRSourceConnector.KEY_VALUE_INTERVAL_MAX, "200");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put(JRSourceConnector.CONNECTOR_NAME, "jr-sharded");
+
+        jrSourceConnector.start(config);
+
+        List<Map<String, String>> taskConfigs = jrSourceConnector.taskConfigs(3);
+        assertEquals(3, taskConfigs.size());
+        assertEquals("4", taskConfigs.get(0).get(JRSourceConnector.OBJECTS_CONFIG));
+        assertEquals("3", taskConfigs.get(1).get(JRSourceConnector.OBJECTS_CONFIG));
+        assertEquals("3", taskConfigs.get(2).get(JRSourceConnector.OBJECTS_CONFIG));
+        assertEquals("0", taskConfigs.get(0).get(JRSourceConnector.KEY_VALUE_INTERVAL_MIN));
+        assertEquals("66", taskConfigs.get(0).get(JRSourceConnector.KEY_VALUE_INTERVAL_MAX));
+        assertEquals("66", taskConfigs.get(1).get(JRSourceConnector.KEY_VALUE_INTERVAL_MIN));
+        assertEquals("133", taskConfigs.get(1).get(JRSourceConnector.KEY_VALUE_INTERVAL_MAX));
+        assertEquals("133", taskConfigs.get(2).get(JRSourceConnector.KEY_VALUE_INTERVAL_MIN));
+        assertEquals("200", taskConfigs.get(2).get(JRSourceConnector.KEY_VALUE_INTERVAL_MAX));
+        assertEquals("42", taskConfigs.get(0).get(JRSourceConnector.SEED_CONFIG));
+        assertEquals("42", taskConfigs.get(2).get(JRSourceConnector.SEED_CONFIG));
+        assertEquals("2", taskConfigs.get(2).get(JRSourceConnector.TASK_ID));
+        assertEquals("3", taskConfigs.get(2).get(JRSourceConnector.TASK_COUNT));
+        assertEquals("jr-sharded", taskConfigs.get(2).get(JRSourceConnector.CONNECTOR_NAME));
+        assertEquals("60000", taskConfigs.get(2).get(JRSourceConnector.JR_TIMEOUT_MS));
+        assertEquals("2", taskConfigs.get(2).get(JRSourceConnector.JR_MAX_RETRIES));
+
+        // never more tasks than objects to create at every run
+        assertEquals(10, jrSourceConnector.taskConfigs(16).size());
+    }
+
+    @Test
+    public void testValidateEmbeddedTemplate(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, templateDir.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+
+        // JR isn't there, and isn't needed
+        for (ConfigValue configValue : jrSourceConnector.validate(config).configValues())
+            assertTrue(configValue.errorMessages().isEmpty(), configValue.name() + ": " + configValue.errorMessages());
+    }
+
+    @Test
+    public void testSeedWithStreamingMode(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put(JRSourceConnector.STREAMING_MODE, "true");
+
+        ConfigException exception = assertThrows(ConfigException.class, () -> jrSourceConnector.start(config));
+        assertTrue(exception.getMessage().startsWith("'seed' can't be used with 'streaming_mode'"));
+
+        Map<String, ConfigValue> configValues = new HashMap<>();
+        for (ConfigValue configValue : jrSourceConnector.validate(config).configValues())
+            configValues.put(configValue.name(), configValue);
+        assertEquals(1, configValues.get(JRSourceConnector.SEED_CONFIG).errorMessages().size());
+    }
+
+    @Test
+    public void testValidateGenerators(@TempDir Path templateDir) throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, templateDir.toString());
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.GENERATORS, "orders,users");
+        config.put("generator.orders.embedded_template", templateDir.resolve("orders.json").toString());
+        config.put("generator.orders.topic", "orders");
+        config.put("generator.users.embedded_template", templateDir.resolve("users.json").toString());
+        config.put("generator.users.topic", "users");
+
+        // no top-level template or topic, and JR isn't there
+        for (ConfigValue configValue : jrSourceConnector.validate(config).configValues())
+            assertTrue(configValue.errorMessages().isEmpty(), configValue.name() + ": " + configValue.errorMessages());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testValidateTemplate(@TempDir Path jrDir) throws Exception {
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, "#!/bin/bash\necho net_device\necho gaming_game\n");
+        assertTrue(jr.toFile().setExecutable(true));
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.JR_EXISTING_TEMPLATE, "no_such_template");
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, jrDir.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "topic-a,topic-b");
+
+        Map<String, ConfigValue> configValues = new HashMap<>();
+        for (ConfigValue configValue : jrSourceConnector.validate(config).configValues())
+            configValues.put(configValue.name(), configValue);
+        assertEquals(List.of("'template' must be a valid JR template."), configValues.get(JRSourceConnector.JR_EXISTING_TEMPLATE).errorMessages());
+        assertEquals(List.of("'topic' configuration requires definition of a single topic."), configValues.get(JRSourceConnector.TOPIC_CONFIG).errorMessages());
+
+        config.put(JRSourceConnector.JR_EXISTING_TEMPLATE, "gaming_game");
+        config.put(JRSourceConnector.TOPIC_CONFIG, "topic-a");
+        for (ConfigValue configValue : jrSourceConnector.validate(config).configValues())
+            assertTrue(configValue.errorMessages().isEmpty(), configValue.name() + ": " + configValue.errorMessages());
+    }
+
+    @Test
+    public void testTaskConfigsHotReload(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\":\n \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+
+        jrSourceConnector.start(config);
+        assertNull(jrSourceConnector.taskConfigs(1).get(0).get(JRSourceConnector.EMBEDDED_TEMPLATE_FILE));
+
+        config.put(JRSourceConnector.TEMPLATE_HOT_RELOAD, "true");
+        jrSourceConnector.start(config);
+        Map<String, String> taskConfig = jrSourceConnector.taskConfigs(1).get(0);
+        assertEquals("{\"id\": \"{{uuid}}\"}", taskConfig.get(JRSourceConnector.EMBEDDED_TEMPLATE));
+        assertEquals(templateFile.toString(), taskConfig.get(JRSourceConnector.EMBEDDED_TEMPLATE_FILE));
+        assertNull(taskConfig.get(JRSourceConnector.KEY_EMBEDDED_TEMPLATE_FILE));
+    }
+
+    @Test
+    public void testTaskConfigsValueSchema(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+        Path schemaFile = templateDir.resolve("value.avsc");
+        String schema = "{\"type\":\"record\",\"name\":\"Device\",\"fields\":[{\"name\":\"id\",\"type\":\"string\"}]}";
+        Files.writeString(schemaFile, schema);
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "io.confluent.connect.avro.AvroConverter");
+        config.put(JRSourceConnector.VALUE_SCHEMA, schemaFile.toString());
+
+        jrSourceConnector.start(config);
+        Map<String, String> taskConfig = jrSourceConnector.taskConfigs(1).get(0);
+        assertEquals(schema, taskConfig.get(JRSourceConnector.VALUE_SCHEMA));
+        assertNull(taskConfig.get(JRSourceConnector.KEY_SCHEMA));
+
+        Files.writeString(schemaFile, "{\"type\":\"record\"");
+        ConfigException exception = assertThrows(ConfigException.class, () -> jrSourceConnector.start(config));
+        assertTrue(exception.getMessage().startsWith("Invalid 'value_schema'"));
+    }
+
+    @Test
+    public void testValueEncodingConfig(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.TOPIC_CONFIG, "test-topic");
+        config.put(JRSourceConnector.VALUE_ENCODING, "protobuf");
+        config.put(JRSourceConnector.SCHEMA_REGISTRY_URL, "mock://connector-test");
+
+        ConfigException exception = assertThrows(ConfigException.class, () -> jrSourceConnector.start(config));
+        assertTrue(exception.getMessage().startsWith("'value_encoding' requires 'value.converter'"));
+
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.converters.ByteArrayConverter");
+        config.put(JRSourceConnector.VALUE_SCHEMA, templateDir.resolve("device.proto").toString());
+        Files.writeString(templateDir.resolve("device.proto"), "syntax = \"proto3\"; message Device { string id = 1; }");
+        jrSourceConnector.start(config);
+        Map<String, String> taskConfig = jrSourceConnector.taskConfigs(1).get(0);
+        assertEquals("protobuf", taskConfig.get(JRSourceConnector.VALUE_ENCODING));
+        assertEquals("mock://connector-test", taskConfig.get(JRSourceConnector.SCHEMA_REGISTRY_URL));
+        assertNotNull(taskConfig.get(JRSourceConnector.VALUE_SCHEMA));
+    }
+
+    @Test
+    public void testGeneratorTaskConfigs(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"id\": \"{{uuid}}\"}");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, templateFile.toString());
+        config.put(JRSourceConnector.OBJECTS_CONFIG, "5");
+        config.put(JRSourceConnector.CONNECTOR_NAME, "jr-generators");
+        config.put(JRSourceConnector.GENERATORS, "orders,users,payments");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put("generator.orders.topic", "orders");
+        config.put("generator.orders.records_per_second", "100");
+        config.put("generator.users.topic", "users");
+        config.put("generator.users.key_field_name", "ID");
+        config.put("generator.payments.topic", "payments");
+        config.put("generator.payments.objects", "20");
+
+        jrSourceConnector.start(config);
+        assertEquals(List.of("orders", "users", "payments"), new ArrayList<>(jrSourceConnector.getGenerators().keySet()));
+
+        List<Map<String, String>> taskConfigs = jrSourceConnector.taskConfigs(2);
+        assertEquals(2, taskConfigs.size());
+        assertEquals("orders,payments", taskConfigs.get(0).get(JRSourceConnector.GENERATORS));
+        assertEquals("users", taskConfigs.get(1).get(JRSourceConnector.GENERATORS));
+        assertEquals("1", taskConfigs.get(1).get(JRSourceConnector.TASK_ID));
+        assertEquals("jr-generators", taskConfigs.get(1).get(JRSourceConnector.CONNECTOR_NAME));
+
+        Map<String, String> taskConfig = taskConfigs.get(0);
+        assertEquals("orders", taskConfig.get("generator.orders.topic"));
+        assertEquals("100.0", taskConfig.get("generator.orders.records_per_second"));
+        assertEquals("5", taskConfig.get("generator.orders.objects"));
+        assertEquals("payments", taskConfig.get("generator.payments.topic"));
+        assertEquals("20", taskConfig.get("generator.payments.objects"));
+        assertEquals("{\"id\": \"{{uuid}}\"}", taskConfig.get("generator.payments.embedded_template"));
+        assertEquals("ID", taskConfigs.get(1).get("generator.users.key_field_name"));
+        assertNull(taskConfig.get(JRSourceConnector.TOPIC_CONFIG));
+        // generators get seeds of their own
+        assertNotEquals(taskConfig.get("generator.orders.seed"), taskConfig.get("generator.payments.seed"));
+        assertNotEquals("42", taskConfig.get("generator.orders.seed"));
+        assertEquals(taskConfig.get("generator.orders.seed"), jrSourceConnector.taskConfigs(3).get(0).get("generator.orders.seed"));
+
+        // never more tasks than generators
+        assertEquals(3, jrSourceConnector.taskConfigs(8).size());
+
+        config.remove("generator.users.topic");
+        ConfigException exception = assertThrows(ConfigException.class, () -> jrSourceConnector.start(config));
+        assertEquals("Generator 'users': 'topic' configuration requires definition of a single topic.", exception.getMessage());
+    }
 }
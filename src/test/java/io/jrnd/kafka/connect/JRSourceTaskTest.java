@@ -22,13 +22,24 @@ package io.jrnd.kafka.connect;
 import io.jrnd.kafka.connect.connector.JRCommandExecutor;
 import io.jrnd.kafka.connect.connector.JRSourceConnector;
 import io.jrnd.kafka.connect.connector.JRSourceTask;
+import io.jrnd.kafka.connect.connector.KeyGenerator;
+import io.jrnd.kafka.connect.connector.TaskMetrics;
+import io.jrnd.kafka.connect.connector.format.registry.MockSchemaRegistry;
 import io.jrnd.kafka.connect.connector.model.Template;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTaskContext;
 import org.apache.kafka.connect.storage.OffsetStorageReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -37,7 +48,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -85,7 +102,8 @@ public class JRSourceTaskTest {
     public void testStartWithOffset() {
         Map<String, Object> offset = new HashMap<>();
         offset.put("position", 5L);
-        when(offsetStorageReader.offset(Collections.singletonMap("template", "net_device"))).thenReturn(offset);
+        Map<String, Object> partition = Collections.singletonMap("template", "net_device");
+        when(offsetStorageReader.offsets(Collections.singletonList(partition))).thenReturn(Collections.singletonMap(partition, offset));
 
         jrSourceTask.start(config);
 
@@ -96,6 +114,27 @@ public class JRSourceTaskTest {
         assertEquals(5L, jrSourceTask.getApiOffset());
     }
 
+    @Test
+    public void testStartShardedTaskWithOffset() {
+        Map<String, Object> partition = new HashMap<>();
+        partition.put("template", "net_device");
+        partition.put("task", 2);
+        Map<String, Object> offset = new HashMap<>();
+        offset.put("position", 7L);
+        when(offsetStorageReader.offsets(Collections.singletonList(partition))).thenReturn(Collections.singletonMap(partition, offset));
+
+        config.put(JRSourceConnector.TASK_ID, "2");
+        config.put(JRSourceConnector.TASK_COUNT, "3");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        jrSourceTask.start(config);
+
+        assertEquals(2, jrSourceTask.getTaskId());
+        assertEquals(partition, jrSourceTask.getSourcePartition());
+        assertEquals(7L, jrSourceTask.getApiOffset());
+        assertNotNull(jrSourceTask.getTemplateWrapper().getSeed());
+        assertNotEquals(42L, jrSourceTask.getTemplateWrapper().getSeed());
+    }
+
     @Test
     public void testStartWithoutOffset() {
         when(offsetStorageReader.offset(Collections.singletonMap("template", "net_device"))).thenReturn(null);
@@ -172,6 +211,392 @@ public class JRSourceTaskTest {
         assertEquals(recordValue, sourceRecord.value());
     }
 
+    @Test
+    void testCreateSourceRecordWithSchemaValue() {
+        Map<String, String> props = Map.of(
+                JRSourceConnector.JR_EXISTING_TEMPLATE, "test-template",
+                JRSourceConnector.TOPIC_CONFIG, "test-topic",
+                JRSourceConnector.POLL_CONFIG, "1000",
+                JRSourceConnector.OBJECTS_CONFIG, "10",
+                JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.storage.StringConverter",
+                JRSourceConnector.VALUE_CONVERTER, "io.confluent.connect.json.JsonSchemaConverter",
+                JRSourceConnector.JR_EXECUTABLE_PATH, "/usr/local/bin"
+        );
+
+        jrSourceTask.start(props);
+
+        String recordKey = "{\"id\":\"1\"}";
+        SourceRecord sourceRecord = jrSourceTask.createSourceRecord(recordKey, "{\"id\":\"1\",\"amount\":10}");
+
+        assertEquals(recordKey, sourceRecord.key());
+        Struct value = (Struct) sourceRecord.value();
+        assertEquals("1", value.get("id"));
+        assertEquals(10.0, value.get("amount"));
+        assertSame(sourceRecord.valueSchema(), jrSourceTask.createSourceRecord(recordKey, "{\"id\":\"2\",\"amount\":20}").valueSchema());
+    }
+
+    @Test
+    void testPollWithJvmEngine() {
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"amount\": {{integer 1 10}}}");
+        config.put(JRSourceConnector.KEY_FIELD, "ID");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        config.put(JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        jrSourceTask.start(config);
+
+        assertNotNull(jrSourceTask.getTemplateEngine());
+        assertEquals(KeyGenerator.Distribution.UNIFORM, jrSourceTask.getKeyGenerator().getDistribution());
+        List<SourceRecord> records = jrSourceTask.poll();
+
+        assertEquals(10, records.size());
+        assertTrue(((String) records.get(0).key()).startsWith("{\"ID\":"));
+        assertTrue(((String) records.get(0).value()).startsWith("{\"id\": \""));
+    }
+
+    @Test
+    void testPollMultiplexedGenerators() throws Exception {
+        Map<String, String> generatorsConfig = new HashMap<>();
+        generatorsConfig.put(JRSourceConnector.GENERATORS, "orders,users");
+        generatorsConfig.put(JRSourceConnector.TASK_ID, "1");
+        generatorsConfig.put(JRSourceConnector.CONNECTOR_NAME, "jr-multiplexed");
+        for (String generator : List.of("orders", "users")) {
+            String prefix = JRSourceConnector.GENERATOR_PREFIX + generator + ".";
+            generatorsConfig.put(prefix + JRSourceConnector.EMBEDDED_TEMPLATE, "{\"" + generator + "\": \"{{uuid}}\"}");
+            generatorsConfig.put(prefix + JRSourceConnector.ENGINE_CONFIG, "jvm");
+            generatorsConfig.put(prefix + JRSourceConnector.TOPIC_CONFIG, generator);
+            generatorsConfig.put(prefix + JRSourceConnector.POLL_CONFIG, "60000");
+            generatorsConfig.put(prefix + JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+            generatorsConfig.put(prefix + JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        }
+        generatorsConfig.put("generator.orders.objects", "2");
+        generatorsConfig.put("generator.users.objects", "3");
+        jrSourceTask.start(generatorsConfig);
+        try {
+            assertEquals(List.of("orders", "users"), jrSourceTask.getMultiplexer().getGeneratorNames());
+            // metrics are tagged with the hosting task, the partition doesn't depend on it
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                    new ObjectName("jr.kafka.connect:type=source-task-metrics,connector=jr-multiplexed,task=1,template=orders")));
+            assertEquals(0, jrSourceTask.getMultiplexer().getGenerator("orders").getTaskId());
+
+            List<SourceRecord> records = jrSourceTask.poll();
+            assertEquals(5, records.size());
+            assertEquals(2, records.stream().filter(record -> record.topic().equals("orders")).count());
+            assertEquals(3, records.stream().filter(record -> record.topic().equals("users")).count());
+            for (SourceRecord record : records) {
+                assertEquals(record.topic(), record.sourcePartition().get("generator"));
+                assertTrue(((String) record.value()).startsWith("{\"" + record.topic() + "\""));
+            }
+
+            // the next batches are a minute away, the poll parks and returns empty
+            long start = System.nanoTime();
+            assertTrue(jrSourceTask.poll().isEmpty());
+            assertTrue((System.nanoTime() - start) / 1_000_000L >= 900L);
+        } finally {
+            jrSourceTask.stop();
+        }
+        assertTrue(jrSourceTask.getMultiplexer().isStopped());
+    }
+
+    @Test
+    void testPollRawBytes() {
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"amount\": {{integer 1 10}}}");
+        config.put(JRSourceConnector.KEY_FIELD, "ID");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.converters.ByteArrayConverter");
+        config.put(JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.converters.ByteArrayConverter");
+        jrSourceTask.start(config);
+        try {
+            List<SourceRecord> records = jrSourceTask.poll();
+
+            assertEquals(10, records.size());
+            SourceRecord record = records.get(0);
+            assertEquals(Schema.BYTES_SCHEMA, record.valueSchema());
+            assertEquals(Schema.BYTES_SCHEMA, record.keySchema());
+            assertTrue(new String((byte[]) record.value(), StandardCharsets.UTF_8).startsWith("{\"id\": \""));
+            assertTrue(new String((byte[]) record.key(), StandardCharsets.UTF_8).startsWith("{\"ID\":"));
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
+    @Test
+    void testPollWithAvroEncoding() throws Exception {
+        config.put(JRSourceConnector.POLL_CONFIG, "60000");
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"amount\": {{integer 1 10}}}");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.converters.ByteArrayConverter");
+        config.put(JRSourceConnector.VALUE_ENCODING, "avro");
+        config.put(JRSourceConnector.SCHEMA_REGISTRY_URL, "mock://task-test");
+        jrSourceTask.start(config);
+        try {
+            List<SourceRecord> records = jrSourceTask.poll();
+
+            assertEquals(10, records.size());
+            MockSchemaRegistry registry = MockSchemaRegistry.forScope("task-test");
+            assertEquals(1, registry.getIds("test-topic-value").size());
+            org.apache.avro.Schema avroSchema = new org.apache.avro.Schema.Parser().parse(registry.getSchema(registry.getIds("test-topic-value").get(0)));
+            for (SourceRecord record : records) {
+                assertEquals(Schema.BYTES_SCHEMA, record.valueSchema());
+                byte[] value = (byte[]) record.value();
+                assertEquals(0, value[0]);
+                GenericRecord avroRecord = new GenericDatumReader<GenericRecord>(avroSchema)
+                        .read(null, DecoderFactory.get().binaryDecoder(value, 5, value.length - 5, null));
+                assertTrue((int) avroRecord.get("amount") >= 1);
+            }
+        } finally {
+            jrSourceTask.stop();
+            MockSchemaRegistry.dropScope("task-test");
+        }
+    }
+
+    @Test
+    void testPollRecordsMetrics() {
+        config.put(JRSourceConnector.CONNECTOR_NAME, "jr-metrics");
+        config.put(JRSourceConnector.POLL_CONFIG, "60000");
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"amount\": {{integer 1 10}}}");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "io.confluent.connect.json.JsonSchemaConverter");
+        jrSourceTask.start(config);
+        try {
+            assertEquals(10, jrSourceTask.poll().size());
+            assertTrue(jrSourceTask.poll().isEmpty());
+
+            TaskMetrics taskMetrics = jrSourceTask.getTaskMetrics();
+            assertEquals(10.0, metricValue(taskMetrics, "records-generated-total"));
+            assertEquals(1.0, metricValue(taskMetrics, "empty-poll-total"));
+            assertTrue((double) metricValue(taskMetrics, "conversion-time-max-ms") > 0);
+            assertTrue((double) metricValue(taskMetrics, "engine-render-time-max-ms") > 0);
+            assertEquals("jr-metrics", taskMetrics.getMetrics().metrics().keySet().iterator().next().tags().get("connector"));
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
+    @Test
+    void testPollWithSuppliedSchema() {
+        config.put(JRSourceConnector.POLL_CONFIG, "60000");
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"amount\": {{integer 1 10}}}");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "io.confluent.connect.json.JsonSchemaConverter");
+        config.put(JRSourceConnector.VALUE_SCHEMA, "{\"type\":\"object\",\"title\":\"Payment\",\"properties\":{\"id\":{\"type\":\"string\"},\"amount\":{\"type\":\"integer\",\"format\":\"int32\"},\"note\":{\"type\":\"string\"}},\"required\":[\"id\",\"amount\"]}");
+        jrSourceTask.start(config);
+        try {
+            List<SourceRecord> records = jrSourceTask.poll();
+            assertEquals(10, records.size());
+            for (SourceRecord record : records) {
+                assertEquals("Payment", record.valueSchema().name());
+                Struct value = (Struct) record.value();
+                value.validate();
+                assertTrue(value.getInt32("amount") >= 1);
+                assertNull(value.get("note"));
+            }
+            assertSame(records.get(0).valueSchema(), records.get(9).valueSchema());
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
+    @Test
+    void testHotReloadTemplate(@TempDir Path templateDir) throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"version\": 1, \"id\": \"{{uuid}}\"}");
+        config.put(JRSourceConnector.POLL_CONFIG, "50");
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, Files.readString(templateFile));
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE_FILE, templateFile.toString());
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, templateDir.toString());
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        jrSourceTask.start(config);
+        try {
+            assertTrue(((String) jrSourceTask.poll().get(0).value()).startsWith("{\"version\": 1"));
+
+            Files.writeString(templateFile, "{\"version\": 2,\n \"id\": \"{{uuid}}\"}");
+            assertNotNull(pollUntil(record -> ((String) record.value()).startsWith("{\"version\": 2, \"id\"")));
+
+            TaskMetrics taskMetrics = jrSourceTask.getTaskMetrics();
+            assertEquals(1.0, metricValue(taskMetrics, "template-reload-total"));
+            assertTrue((long) metricValue(taskMetrics, "last-template-reload-timestamp-ms") > 0);
+            assertNotNull(jrSourceTask.getTemplateEngine());
+
+            // the template doesn't compile and there's no JR to fall back to, the task keeps version 2
+            Files.writeString(templateFile, "{\"version\": 3, \"id\": \"{{no_such_function}}\"}");
+            long deadline = System.currentTimeMillis() + 10000L;
+            while ((double) metricValue(taskMetrics, "template-reload-failure-total") < 1.0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(50L);
+            assertEquals(1.0, metricValue(taskMetrics, "template-reload-failure-total"));
+            assertEquals(1.0, metricValue(taskMetrics, "template-reload-total"));
+            assertTrue(((String) pollUntil(record -> true).value()).startsWith("{\"version\": 2"));
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
+    private SourceRecord pollUntil(Predicate<SourceRecord> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (System.currentTimeMillis() < deadline) {
+            for (SourceRecord record : jrSourceTask.poll()) {
+                if (condition.test(record))
+                    return record;
+            }
+            Thread.sleep(20L);
+        }
+        return null;
+    }
+
+    private Object metricValue(TaskMetrics taskMetrics, String name) {
+        return taskMetrics.getMetrics().metric(taskMetrics.getMetrics().metricName(name, TaskMetrics.GROUP)).metricValue();
+    }
+
+    @Test
+    void testPollWithPrefetch() {
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\"}");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        config.put(JRSourceConnector.PREFETCH_DEPTH, "100");
+        config.put(JRSourceConnector.PREFETCH_BATCH_SIZE, "4");
+        jrSourceTask.start(config);
+        try {
+            assertNotNull(jrSourceTask.getPrefetcher());
+            int received = 0;
+            while (received < 20) {
+                List<SourceRecord> records = jrSourceTask.poll();
+                assertFalse(records.isEmpty());
+                assertTrue(records.size() <= 4);
+                received += records.size();
+            }
+        } finally {
+            jrSourceTask.stop();
+        }
+        assertNull(jrSourceTask.getPrefetcher());
+    }
+
+    @Test
+    void testSeededGenerationResumesFromOffset() {
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"id\": \"{{uuid}}\", \"n\": {{counter \"c\" 0 1}}}");
+        config.put(JRSourceConnector.KEY_FIELD, "ID");
+        config.put(JRSourceConnector.KEY_DISTRIBUTION, "zipfian");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        config.put(JRSourceConnector.KEY_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        jrSourceTask.start(config);
+        List<SourceRecord> expected = new ArrayList<>(jrSourceTask.poll());
+        jrSourceTask.stop();
+        assertEquals(10, expected.size());
+        assertEquals(9L, expected.get(9).sourceOffset().get("sequence"));
+        assertTrue(((String) expected.get(9).value()).endsWith("\"n\": 9}"));
+
+        // restart after the 4th record was committed
+        Map<String, Object> partition = Collections.singletonMap("template", "net_device");
+        when(offsetStorageReader.offsets(Collections.singletonList(partition)))
+                .thenReturn(Collections.singletonMap(partition, new HashMap<>(expected.get(3).sourceOffset())));
+        JRSourceTask restartedTask = new JRSourceTask();
+        restartedTask.initialize(mockContext);
+        restartedTask.start(config);
+        assertEquals(4L, restartedTask.getSequence());
+        List<SourceRecord> replayed = restartedTask.poll();
+        restartedTask.stop();
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(expected.get(4 + i).key(), replayed.get(i).key());
+            assertEquals(expected.get(4 + i).value(), replayed.get(i).value());
+            assertEquals(expected.get(4 + i).sourceOffset().get("sequence"), replayed.get(i).sourceOffset().get("sequence"));
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testSeededBatchStopsAtGrantedRecords(@TempDir Path jrDir) throws Exception {
+        writeSeededStubJr(jrDir);
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, jrDir.toString());
+        config.put(JRSourceConnector.OBJECTS_CONFIG, "5");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+
+        // restart in the middle of the first chunk
+        Map<String, Object> partition = Collections.singletonMap("template", "net_device");
+        when(offsetStorageReader.offsets(Collections.singletonList(partition)))
+                .thenReturn(Collections.singletonMap(partition, new HashMap<>(Map.of("position", 1L, "sequence", 0L))));
+        jrSourceTask.start(config);
+        try {
+            List<SourceRecord> records = jrSourceTask.poll();
+            assertEquals(5, records.size());
+            assertEquals(1L, records.get(0).sourceOffset().get("sequence"));
+            assertEquals(5L, records.get(4).sourceOffset().get("sequence"));
+            assertTrue(((String) records.get(3).value()).endsWith("\"n\":4}"));
+            assertTrue(((String) records.get(4).value()).endsWith("\"n\":0}"));
+            assertEquals(6L, jrSourceTask.getSequence());
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testSeededShortChunkMovesToNextChunk(@TempDir Path jrDir) throws Exception {
+        writeSeededStubJr(jrDir);
+        Files.writeString(jrDir.resolve("drop"), "");
+        config.put(JRSourceConnector.JR_EXECUTABLE_PATH, jrDir.toString());
+        config.put(JRSourceConnector.POLL_CONFIG, "50");
+        config.put(JRSourceConnector.OBJECTS_CONFIG, "5");
+        config.put(JRSourceConnector.SEED_CONFIG, "42");
+        config.put(JRSourceConnector.VALUE_CONVERTER, "org.apache.kafka.connect.storage.StringConverter");
+        jrSourceTask.start(config);
+        try {
+            List<SourceRecord> first = jrSourceTask.poll();
+            assertEquals(4, first.size());
+            assertEquals(3L, first.get(3).sourceOffset().get("sequence"));
+            assertEquals(5L, jrSourceTask.getSequence());
+
+            List<SourceRecord> second = jrSourceTask.poll();
+            assertEquals(4, second.size());
+            assertEquals(5L, second.get(0).sourceOffset().get("sequence"));
+            assertTrue(((String) second.get(0).value()).endsWith("\"n\":0}"));
+            assertNotEquals(first.get(0).value(), second.get(0).value());
+            assertEquals(10L, jrSourceTask.getSequence());
+        } finally {
+            jrSourceTask.stop();
+        }
+        // one JR run per chunk
+        assertEquals(2, Files.readAllLines(jrDir.resolve("runs")).size());
+    }
+
+    /**
+     * JR stub printing the records of a seeded run, without the third one when a 'drop' file exists.
+     */
+    private void writeSeededStubJr(Path jrDir) throws Exception {
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, "#!/bin/bash\n"
+                + "dir=$(dirname \"$0\")\n"
+                + "while [ $# -gt 0 ]; do case \"$1\" in -n) n=$2;; --seed) seed=$2;; esac; shift; done\n"
+                + "echo run >> \"$dir/runs\"\n"
+                + "for ((i = 0; i < n; i++)); do\n"
+                + "  if [ $i -eq 2 ] && [ -f \"$dir/drop\" ]; then continue; fi\n"
+                + "  echo \"{\\\"seed\\\":\\\"$seed\\\",\\\"n\\\":$i}\"\n"
+                + "done\n");
+        assertTrue(jr.toFile().setExecutable(true));
+    }
+
+    @Test
+    void testJvmEngineFallbackForNamedTemplate() {
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        jrSourceTask.start(config);
+
+        assertNull(jrSourceTask.getTemplateEngine());
+    }
+
+    @Test
+    void testJvmEngineFallbackForFailingTemplate() {
+        config.put(JRSourceConnector.EMBEDDED_TEMPLATE, "{\"date\": \"{{date_between \"2024-13-01\" \"2024-12-31\"}}\"}");
+        config.put(JRSourceConnector.ENGINE_CONFIG, "jvm");
+        jrSourceTask.start(config);
+        try {
+            assertNull(jrSourceTask.getTemplateEngine());
+        } finally {
+            jrSourceTask.stop();
+        }
+    }
+
     @Test
     public void testPollNoExecution() {
         jrSourceTask.start(config);
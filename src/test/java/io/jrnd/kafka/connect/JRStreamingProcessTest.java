@@ -0,0 +1,190 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.JRCommandExecutor;
+import io.jrnd.kafka.connect.connector.JRProcessSupervisor;
+import io.jrnd.kafka.connect.connector.JRStreamingProcess;
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
+import io.jrnd.kafka.connect.connector.model.Template;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+public class JRStreamingProcessTest {
+
+    @TempDir
+    Path jrDir;
+
+    @Test
+    public void testDrainRecords() throws Exception {
+        writeStubJr("while true; do echo '{\"VLAN\":\"ALPHA\"}'; echo '{\"VLAN\":\"GAMMA\"}'; sleep 0.05; done");
+
+        JRStreamingProcess streamingProcess = newStreamingProcess(null);
+        streamingProcess.start();
+        try {
+            List<GeneratedRecord> records = drainAtLeast(streamingProcess, 4);
+            assertEquals("{\"VLAN\":\"ALPHA\"}", records.get(0).getValue());
+            assertEquals("{\"VLAN\":\"GAMMA\"}", records.get(1).getValue());
+            assertFalse(records.get(0).hasKey());
+        } finally {
+            streamingProcess.stop();
+        }
+        assertFalse(streamingProcess.isRunning());
+    }
+
+    @Test
+    public void testDrainKeyedRecords() throws Exception {
+        writeStubJr("while true; do echo '{\"k\":{\"ID\":100},\"v\":{\"VLAN\":\"ALPHA\"}}'; echo 'garbage{}'; sleep 0.05; done");
+
+        JRStreamingProcess streamingProcess = newStreamingProcess("ID");
+        streamingProcess.start();
+        try {
+            List<GeneratedRecord> records = drainAtLeast(streamingProcess, 2);
+            // a malformed record is skipped without shifting the following ones
+            for (GeneratedRecord record : records) {
+                assertEquals("{\"ID\":100}", record.getKey());
+                assertEquals("{\"VLAN\":\"ALPHA\"}", record.getValue());
+            }
+        } finally {
+            streamingProcess.stop();
+        }
+    }
+
+    @Test
+    public void testDrainRawKeyedRecords() throws Exception {
+        writeStubJr("while true; do echo '{\"k\":{\"ID\":100},\"v\":{\"VLAN\":\"ALPHA\"}}'; echo 'garbage{}'; sleep 0.05; done");
+
+        Template template = new Template();
+        template.setTemplate("net_device");
+        JRStreamingProcess streamingProcess = new JRStreamingProcess(JRCommandExecutor.getInstance(jrDir.toString()), template, 2, "ID", 0, 100, 50L, true, JRProcessSupervisor.oneOff());
+        streamingProcess.start();
+        try {
+            List<GeneratedRecord> records = drainAtLeast(streamingProcess, 2);
+            for (GeneratedRecord record : records) {
+                assertArrayEquals("{\"ID\":100}".getBytes(StandardCharsets.UTF_8), record.getKeyBytes());
+                assertArrayEquals("{\"VLAN\":\"ALPHA\"}".getBytes(StandardCharsets.UTF_8), record.getValueBytes());
+            }
+        } finally {
+            streamingProcess.stop();
+        }
+    }
+
+    @Test
+    public void testRestartWhenProcessDies() throws Exception {
+        writeStubJr("echo '{\"VLAN\":\"ALPHA\"}'");
+
+        JRStreamingProcess streamingProcess = newStreamingProcess(null);
+        streamingProcess.start();
+        try {
+            List<GeneratedRecord> records = drainAtLeast(streamingProcess, 2);
+            assertTrue(records.size() >= 2);
+            assertTrue(streamingProcess.getRestarts() >= 1);
+        } finally {
+            streamingProcess.stop();
+        }
+    }
+
+    @Test
+    public void testFailuresReachSupervisor() throws Exception {
+        writeStubJr("echo '{\"VLAN\":\"ALPHA\"}'; echo 'template error' >&2; exit 3");
+
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(60000L, 0, 0L, null);
+        JRStreamingProcess streamingProcess = supervisedStreamingProcess(supervisor);
+        streamingProcess.start();
+        try {
+            drainAtLeast(streamingProcess, 2);
+            assertTrue(supervisor.getFailures() >= 1);
+            assertTrue(streamingProcess.getRestarts() >= 1);
+        } finally {
+            streamingProcess.stop();
+        }
+    }
+
+    @Test
+    public void testStalledProcessIsKilled() throws Exception {
+        writeStubJr("echo '{\"VLAN\":\"ALPHA\"}'; sleep 60");
+
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(200L, 0, 0L, null);
+        JRStreamingProcess streamingProcess = supervisedStreamingProcess(supervisor);
+        streamingProcess.start();
+        try {
+            List<GeneratedRecord> records = drainAtLeast(streamingProcess, 2);
+            assertTrue(records.size() >= 2);
+            assertTrue(supervisor.getTimeouts() >= 1);
+            assertEquals(0L, supervisor.getFailures());
+        } finally {
+            streamingProcess.stop();
+        }
+    }
+
+    @Test
+    public void testStopIsNotAFailure() throws Exception {
+        writeStubJr("while true; do echo '{\"VLAN\":\"ALPHA\"}'; sleep 0.05; done");
+
+        JRProcessSupervisor supervisor = new JRProcessSupervisor(60000L, 0, 0L, null);
+        JRStreamingProcess streamingProcess = supervisedStreamingProcess(supervisor);
+        streamingProcess.start();
+        drainAtLeast(streamingProcess, 2);
+        streamingProcess.stop();
+        Thread.sleep(200L);
+
+        assertEquals(0L, supervisor.getFailures());
+    }
+
+    private JRStreamingProcess supervisedStreamingProcess(JRProcessSupervisor supervisor) {
+        Template template = new Template();
+        template.setTemplate("net_device");
+        return new JRStreamingProcess(JRCommandExecutor.getInstance(jrDir.toString()), template, 2, null, 0, 100, 50L, false, supervisor);
+    }
+
+    private JRStreamingProcess newStreamingProcess(String keyField) {
+        Template template = new Template();
+        template.setTemplate("net_device");
+        return new JRStreamingProcess(JRCommandExecutor.getInstance(jrDir.toString()), template, 2, keyField, 0, 100, 50L);
+    }
+
+    private List<GeneratedRecord> drainAtLeast(JRStreamingProcess streamingProcess, int count) throws InterruptedException {
+        List<GeneratedRecord> records = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (records.size() < count && System.currentTimeMillis() < deadline) {
+            records.addAll(streamingProcess.drain(500L, Integer.MAX_VALUE));
+        }
+        return records;
+    }
+
+    private void writeStubJr(String body) throws IOException {
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, "#!/bin/bash\n" + body + "\n");
+        assertTrue(jr.toFile().setExecutable(true));
+    }
+}
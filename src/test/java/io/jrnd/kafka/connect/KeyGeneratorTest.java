@@ -0,0 +1,122 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jrnd.kafka.connect.connector.KeyGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyGeneratorTest {
+
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    public void testNextKey() {
+        KeyGenerator keyGenerator = newKeyGenerator(KeyGenerator.Distribution.UNIFORM, 50, 60);
+
+        ObjectNode key = keyGenerator.nextKey(0L);
+        assertEquals(1, key.size());
+        long id = key.get("ID").asLong();
+        assertTrue(id >= 50 && id < 60, "key " + id);
+    }
+
+    @Test
+    public void testUniform() {
+        long[] counts = sample(newKeyGenerator(KeyGenerator.Distribution.UNIFORM, 100, 110), 100, 10);
+        for (long count : counts)
+            assertTrue(Math.abs(count - SAMPLES / 10) < SAMPLES / 50, "count " + count);
+    }
+
+    @Test
+    public void testSequential() {
+        KeyGenerator keyGenerator = newKeyGenerator(KeyGenerator.Distribution.SEQUENTIAL, 5, 8);
+        long[] expected = { 5, 6, 7, 5, 6, 7, 5 };
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], keyGenerator.next(i));
+    }
+
+    @Test
+    public void testZipfian() {
+        long[] counts = sample(newKeyGenerator(KeyGenerator.Distribution.ZIPFIAN, 0, 1000), 0, 1000);
+
+        // frequencies decrease with the rank, the first key alone gets a large share of the records
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[500]);
+        assertTrue(counts[0] > SAMPLES / 20, "count " + counts[0]);
+        long top10 = 0;
+        for (int i = 0; i < 10; i++)
+            top10 += counts[i];
+        assertTrue(top10 > SAMPLES / 4, "top 10 keys " + top10);
+    }
+
+    @Test
+    public void testZipfianLargeRange() {
+        KeyGenerator keyGenerator = newKeyGenerator(KeyGenerator.Distribution.ZIPFIAN, 0, Integer.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            long key = keyGenerator.next(i);
+            assertTrue(key >= 0 && key < Integer.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testHotSet() {
+        long[] counts = sample(newKeyGenerator(KeyGenerator.Distribution.HOTSET, 0, 100), 0, 100);
+
+        long hot = 0;
+        for (int i = 0; i < 20; i++)
+            hot += counts[i];
+        assertEquals(0.8, (double) hot / SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testSeededKeysAreRepeatable() {
+        KeyGenerator first = new KeyGenerator("ID", 0, 1000, KeyGenerator.Distribution.ZIPFIAN, 0.99, 0.2, 0.8, 42L);
+        KeyGenerator second = new KeyGenerator("ID", 0, 1000, KeyGenerator.Distribution.ZIPFIAN, 0.99, 0.2, 0.8, 42L);
+        for (int i = 0; i < 100; i++)
+            assertEquals(first.next(i), second.next(i));
+        // the key of a record only depends on its sequence number
+        assertEquals(first.next(7), second.next(7));
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> newKeyGenerator(KeyGenerator.Distribution.UNIFORM, 10, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new KeyGenerator("ID", 0, 10, KeyGenerator.Distribution.ZIPFIAN, 1.0, 0.2, 0.8, null));
+        assertEquals(KeyGenerator.Distribution.HOTSET, KeyGenerator.Distribution.of("hotset"));
+    }
+
+    private KeyGenerator newKeyGenerator(KeyGenerator.Distribution distribution, long min, long max) {
+        return new KeyGenerator("ID", min, max, distribution,
+                KeyGenerator.DEFAULT_ZIPFIAN_EXPONENT, KeyGenerator.DEFAULT_HOT_SET_FRACTION, KeyGenerator.DEFAULT_HOT_TRAFFIC_FRACTION, 1L);
+    }
+
+    private long[] sample(KeyGenerator keyGenerator, long min, int keys) {
+        long[] counts = new long[keys];
+        for (int i = 0; i < SAMPLES; i++) {
+            long key = keyGenerator.next(i);
+            assertTrue(key >= min && key < min + keys, "key " + key);
+            counts[(int) (key - min)]++;
+        }
+        return counts;
+    }
+}
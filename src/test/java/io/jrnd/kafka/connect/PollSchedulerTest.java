@@ -0,0 +1,124 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.PollScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PollSchedulerTest {
+
+    @Test
+    public void testFixedRate() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(200L, null, 5, PollScheduler.CatchUpPolicy.SKIP);
+
+        assertEquals(5, scheduler.acquire(0L));
+        assertEquals(0, scheduler.acquire(10L));
+
+        long start = System.nanoTime();
+        assertEquals(5, scheduler.acquire(1000L));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue(elapsedMs >= 150L, "acquire returned after " + elapsedMs + " ms");
+        assertFalse(scheduler.isRateBased());
+    }
+
+    @Test
+    public void testSkipMissedRuns() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(20L, null, 5, PollScheduler.CatchUpPolicy.SKIP);
+
+        assertEquals(5, scheduler.acquire(0L));
+        Thread.sleep(110L);
+        assertEquals(5, scheduler.acquire(0L));
+        assertEquals(0, scheduler.acquire(0L));
+    }
+
+    @Test
+    public void testBurstMissedRuns() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(20L, null, 5, PollScheduler.CatchUpPolicy.BURST);
+
+        assertEquals(5, scheduler.acquire(0L));
+        Thread.sleep(110L);
+        int records = scheduler.acquire(0L);
+        assertTrue(records >= 25 && records % 5 == 0, "burst of " + records + " records");
+
+        Thread.sleep(1000L);
+        assertEquals(PollScheduler.MAX_CATCH_UP_BATCHES * 5, scheduler.acquire(0L));
+    }
+
+    @Test
+    public void testTokenBucket() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(60000L, 100.0, 5, PollScheduler.CatchUpPolicy.SKIP);
+
+        assertTrue(scheduler.isRateBased());
+        assertEquals(5, scheduler.acquire(0L));
+        assertEquals(0, scheduler.acquire(0L));
+
+        long start = System.nanoTime();
+        assertEquals(5, scheduler.acquire(1000L));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue(elapsedMs >= 30L && elapsedMs < 500L, "acquire returned after " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void testNanosUntilDue() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(200L, null, 5, PollScheduler.CatchUpPolicy.SKIP);
+        assertEquals(0L, scheduler.nanosUntilDue());
+        assertEquals(0L, scheduler.nanosUntilDue());
+        assertEquals(5, scheduler.acquire(0L));
+
+        long nanosUntilDue = scheduler.nanosUntilDue();
+        assertTrue(nanosUntilDue > 150_000_000L && nanosUntilDue <= 200_000_000L, "due in " + nanosUntilDue + " ns");
+
+        PollScheduler rateScheduler = new PollScheduler(60000L, 100.0, 5, PollScheduler.CatchUpPolicy.SKIP);
+        assertEquals(5, rateScheduler.acquire(0L));
+        nanosUntilDue = rateScheduler.nanosUntilDue();
+        assertTrue(nanosUntilDue > 0L && nanosUntilDue <= 50_000_000L, "due in " + nanosUntilDue + " ns");
+    }
+
+    @Test
+    public void testStopWakesUpWaiters() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(60000L, null, 5, PollScheduler.CatchUpPolicy.SKIP);
+        assertEquals(5, scheduler.acquire(0L));
+
+        AtomicInteger result = new AtomicInteger(-1);
+        Thread poller = new Thread(() -> {
+            try {
+                result.set(scheduler.acquire(60000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+        Thread.sleep(100L);
+
+        long start = System.nanoTime();
+        scheduler.stop();
+        poller.join(5000L);
+
+        assertFalse(poller.isAlive());
+        assertEquals(0, result.get());
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 1000L);
+        assertTrue(scheduler.isStopped());
+    }
+}
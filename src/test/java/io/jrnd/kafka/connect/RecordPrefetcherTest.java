@@ -0,0 +1,106 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.RecordPrefetcher;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordPrefetcherTest {
+
+    @Test
+    public void testQueueIsBoundedByDepth() throws Exception {
+        AtomicInteger generated = new AtomicInteger();
+        RecordPrefetcher prefetcher = new RecordPrefetcher("test", 10, 4, () -> batch(generated, 3));
+        prefetcher.start();
+        try {
+            waitFor(() -> prefetcher.size() == 10);
+            Thread.sleep(100L);
+            // the generator is blocked on a full queue, holding at most one pending batch
+            assertTrue(generated.get() <= 10 + 3, "generated " + generated.get());
+
+            List<SourceRecord> records = prefetcher.drain(1000L);
+            assertEquals(4, records.size());
+            assertEquals(0, records.get(0).value());
+            assertEquals(3, records.get(3).value());
+        } finally {
+            prefetcher.stop();
+        }
+        assertFalse(prefetcher.isRunning());
+        assertEquals(0, prefetcher.size());
+    }
+
+    @Test
+    public void testDrainWaitsForRecords() throws Exception {
+        RecordPrefetcher prefetcher = new RecordPrefetcher("test", 10, 10, () -> {
+            Thread.sleep(10000L);
+            return Collections.emptyList();
+        });
+        prefetcher.start();
+        try {
+            long start = System.nanoTime();
+            assertTrue(prefetcher.drain(100L).isEmpty());
+            assertTrue((System.nanoTime() - start) / 1_000_000L >= 90L);
+        } finally {
+            long start = System.nanoTime();
+            prefetcher.stop();
+            // stop interrupts the generator instead of waiting for it
+            assertTrue((System.nanoTime() - start) / 1_000_000L < 5000L);
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrown() throws Exception {
+        RecordPrefetcher prefetcher = new RecordPrefetcher("test", 10, 10, () -> {
+            throw new IllegalStateException("Converter class not supported");
+        });
+        prefetcher.start();
+        try {
+            waitFor(() -> !prefetcher.isRunning());
+            assertThrows(IllegalStateException.class, () -> prefetcher.drain(10L));
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    private List<SourceRecord> batch(AtomicInteger generated, int size) {
+        List<SourceRecord> records = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            records.add(new SourceRecord(null, null, "test-topic", Schema.INT32_SCHEMA, generated.getAndIncrement()));
+        return records;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10L);
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.TaskMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskMetricsTest {
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private TaskMetrics taskMetrics;
+    private ObjectName objectName;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        taskMetrics = new TaskMetrics("jr-connector", 3, "net_device");
+        objectName = new ObjectName(TaskMetrics.JMX_PREFIX + ":type=" + TaskMetrics.GROUP + ",connector=jr-connector,task=3,template=net_device");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        taskMetrics.close();
+    }
+
+    @Test
+    public void testRegisteredOverJmx() throws Exception {
+        assertTrue(mBeanServer.isRegistered(objectName));
+
+        taskMetrics.close();
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void testRecordBatch() throws Exception {
+        taskMetrics.recordStage(TaskMetrics.Stage.JR_SPAWN, TimeUnit.MILLISECONDS.toNanos(4));
+        taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, TimeUnit.MILLISECONDS.toNanos(1));
+        taskMetrics.addRecordTime(TaskMetrics.Stage.PARSE, TimeUnit.MILLISECONDS.toNanos(2));
+        taskMetrics.recordBatch(10, TimeUnit.MILLISECONDS.toNanos(20));
+        taskMetrics.recordBatch(30, TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertEquals(40.0, attribute("records-generated-total"));
+        assertEquals(20.0, attribute("batch-size-avg"));
+        assertEquals(30.0, attribute("batch-size-max"));
+        assertEquals(4.0, attribute("jr-spawn-time-max-ms"));
+        // per-record times are summed into a single sample for the batch
+        assertEquals(3.0, attribute("parse-time-max-ms"));
+        assertEquals(30.0, attribute("generate-time-avg-ms"));
+        assertEquals(40.0, (double) attribute("generate-time-p99-ms"), 1.0);
+        assertTrue((double) attribute("generate-busy-ratio") > 0);
+    }
+
+    @Test
+    public void testSubMillisecondPercentiles() throws Exception {
+        for (int i = 1; i <= 100; i++)
+            taskMetrics.recordStage(TaskMetrics.Stage.PARSE, TimeUnit.MICROSECONDS.toNanos(i * 50L));
+
+        // parse times between 0.05 and 5 ms
+        assertEquals(2.5, (double) attribute("parse-time-p50-ms"), 0.2);
+        assertEquals(4.75, (double) attribute("parse-time-p95-ms"), 0.2);
+        assertEquals(4.95, (double) attribute("parse-time-p99-ms"), 0.2);
+    }
+
+    @Test
+    public void testRecordEmptyPoll() throws Exception {
+        taskMetrics.recordEmptyPoll();
+        taskMetrics.recordEmptyPoll();
+
+        assertEquals(2.0, attribute("empty-poll-total"));
+        assertEquals(0.0, attribute("records-generated-total"));
+    }
+
+    private Object attribute(String name) throws Exception {
+        return mBeanServer.getAttribute(objectName, name);
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.TemplateCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+public class TemplateCatalogTest {
+
+    @TempDir
+    Path jrDir;
+
+    @BeforeEach
+    public void clearCatalogs() {
+        TemplateCatalog.clear();
+    }
+
+    @Test
+    public void testListOnce() throws Exception {
+        writeStubJr("printf 'net_device\\nuser\\n  \\nnot a template\\n'");
+
+        assertEquals(List.of("net_device", "user"), TemplateCatalog.templates(jrDir.toString(), 5000L));
+        assertEquals(List.of("net_device", "user"), TemplateCatalog.templates(jrDir.toString(), 5000L));
+        assertEquals(1, invocations());
+    }
+
+    @Test
+    public void testListAgainAfterUpgrade() throws Exception {
+        writeStubJr("echo net_device");
+        assertEquals(List.of("net_device"), TemplateCatalog.templates(jrDir.toString(), 5000L));
+
+        writeStubJr("echo net_device; echo gaming_game");
+        assertEquals(List.of("net_device", "gaming_game"), TemplateCatalog.templates(jrDir.toString(), 5000L));
+        assertEquals(2, invocations());
+    }
+
+    @Test
+    public void testTimeoutIsNotCached() throws Exception {
+        writeStubJr("sleep 10; echo net_device");
+
+        long start = System.nanoTime();
+        assertTrue(TemplateCatalog.templates(jrDir.toString(), 300L).isEmpty());
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 5000L);
+
+        assertTrue(TemplateCatalog.templates(jrDir.toString(), 300L).isEmpty());
+        assertEquals(2, invocations());
+    }
+
+    private long invocations() throws IOException {
+        return Files.readAllLines(jrDir.resolve("invocations")).size();
+    }
+
+    private void writeStubJr(String body) throws IOException {
+        Path jr = jrDir.resolve("jr");
+        Files.writeString(jr, "#!/bin/bash\necho \"$@\" >> " + jrDir.resolve("invocations") + "\n" + body + "\n");
+        assertTrue(jr.toFile().setExecutable(true));
+    }
+}
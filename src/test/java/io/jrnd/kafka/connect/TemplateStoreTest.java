@@ -0,0 +1,194 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jrnd.kafka.connect.connector.TemplateStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateStoreTest {
+
+    private static final String TEMPLATE = "{\"VLAN\":\"{{randoms \\\"ALPHA|BETA\\\"}}\"}";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicReference<String> etag = new AtomicReference<>(ETAG);
+    private final AtomicLong delayMs = new AtomicLong();
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/template", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/template";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testFetchAndCache() throws Exception {
+        TemplateStore templateStore = newTemplateStore(60000L);
+
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+
+        // a fresh copy is used without asking the origin again
+        assertEquals(1, requests.get());
+        assertEquals(1, templateStore.getRequests());
+        assertEquals(1, countCachedTemplates());
+    }
+
+    @Test
+    public void testConditionalRequest() throws Exception {
+        assertEquals(TEMPLATE, newTemplateStore(0L).fetch(url));
+
+        // another worker, or a restarted one, shares the cache on disk
+        TemplateStore templateStore = newTemplateStore(0L);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testChangedTemplate() throws Exception {
+        TemplateStore templateStore = newTemplateStore(0L);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+
+        etag.set("\"v2\"");
+        assertEquals(TEMPLATE + "\"v2\"", templateStore.fetch(url));
+        assertEquals(0, notModified.get());
+    }
+
+    @Test
+    public void testFallbackWhenOriginIsDown() throws Exception {
+        TemplateStore templateStore = newTemplateStore(0L);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+
+        server.stop(0);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+    }
+
+    @Test
+    public void testFallbackWhenOriginFails() throws Exception {
+        TemplateStore templateStore = newTemplateStore(0L);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+
+        status.set(503);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+    }
+
+    @Test
+    public void testFallbackWhenOriginIsSlow() throws Exception {
+        TemplateStore templateStore = newTemplateStore(0L);
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+
+        delayMs.set(3000L);
+        long start = System.nanoTime();
+        assertEquals(TEMPLATE, templateStore.fetch(url));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue(elapsedMs < 2000L, "fetch returned after " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void testFailWithoutCachedCopy() {
+        TemplateStore templateStore = newTemplateStore(0L);
+        status.set(404);
+
+        assertThrows(IOException.class, () -> templateStore.fetch(url));
+        assertEquals(0, countCachedTemplates());
+    }
+
+    @Test
+    public void testReadFile() throws Exception {
+        Path templateFile = cacheDir.resolve("local.tpl");
+        Files.writeString(templateFile, TEMPLATE);
+
+        assertEquals(TEMPLATE, newTemplateStore(0L).read(templateFile.toString()));
+        assertEquals(0, requests.get());
+    }
+
+    private TemplateStore newTemplateStore(long maxAgeMs) {
+        return new TemplateStore(cacheDir.resolve("cache"), 1000, 500, maxAgeMs);
+    }
+
+    private long countCachedTemplates() {
+        try (var files = Files.list(cacheDir.resolve("cache"))) {
+            return files.filter(file -> file.toString().endsWith(".tpl")).count();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(delayMs.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String currentEtag = etag.get();
+        if (status.get() != 200) {
+            exchange.sendResponseHeaders(status.get(), -1);
+        } else if (currentEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))
+                && LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            byte[] body = (ETAG.equals(currentEtag) ? TEMPLATE : TEMPLATE + currentEtag).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", currentEtag);
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect;
+
+import io.jrnd.kafka.connect.connector.TemplateWatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateWatcherTest {
+
+    @TempDir
+    Path templateDir;
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"version\": 1}");
+        AtomicInteger reloads = new AtomicInteger();
+
+        try (TemplateWatcher watcher = new TemplateWatcher("test", List.of(templateFile), 100L, reloads::incrementAndGet)) {
+            watcher.start();
+
+            // several writes in a row are a single change
+            Files.writeString(templateFile, "{\"version\":");
+            Files.writeString(templateFile, "{\"version\": 2}");
+            assertTrue(waitFor(reloads, 1));
+            Thread.sleep(500L);
+            assertEquals(1, reloads.get());
+
+            // replaced by a rename, as editors do
+            Path tmpFile = templateDir.resolve("template.json.tmp");
+            Files.writeString(tmpFile, "{\"version\": 3}");
+            Files.move(tmpFile, templateFile, StandardCopyOption.REPLACE_EXISTING);
+            assertTrue(waitFor(reloads, 2));
+        }
+    }
+
+    @Test
+    public void testIgnoreOtherFiles() throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"version\": 1}");
+        AtomicInteger reloads = new AtomicInteger();
+
+        try (TemplateWatcher watcher = new TemplateWatcher("test", List.of(templateFile), 50L, reloads::incrementAndGet)) {
+            watcher.start();
+            Files.writeString(templateDir.resolve("other.json"), "{}");
+            Thread.sleep(1000L);
+            assertEquals(0, reloads.get());
+        }
+    }
+
+    @Test
+    public void testNoReloadAfterClose() throws Exception {
+        Path templateFile = templateDir.resolve("template.json");
+        Files.writeString(templateFile, "{\"version\": 1}");
+        AtomicInteger reloads = new AtomicInteger();
+
+        TemplateWatcher watcher = new TemplateWatcher("test", List.of(templateFile), 50L, reloads::incrementAndGet);
+        watcher.start();
+        watcher.close();
+        Files.writeString(templateFile, "{\"version\": 2}");
+        Thread.sleep(500L);
+        assertEquals(0, reloads.get());
+    }
+
+    private boolean waitFor(AtomicInteger reloads, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (reloads.get() < expected && System.currentTimeMillis() < deadline)
+            Thread.sleep(20L);
+        return reloads.get() >= expected;
+    }
+}
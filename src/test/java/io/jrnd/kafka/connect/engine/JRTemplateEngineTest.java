@@ -0,0 +1,119 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jrnd.kafka.connect.connector.engine.JRTemplateEngine;
+import io.jrnd.kafka.connect.connector.model.GeneratedRecord;
+import io.jrnd.kafka.connect.connector.model.Template;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JRTemplateEngineTest {
+
+    private static final String VALUE_TEMPLATE = "{\n" +
+            "  \"customer_id\": \"{{uuid}}\",\n" +
+            "  \"first_name\": \"{{name}}\",\n" +
+            "  \"street_address\": \"{{city}}, {{street}} {{building 2}}, {{zip}}\",\n" +
+            "  \"age\": {{integer 18 99}}\n" +
+            "}";
+
+    @Test
+    public void testGenerateValues() throws Exception {
+        JRTemplateEngine engine = new JRTemplateEngine(embeddedTemplate(null));
+
+        List<GeneratedRecord> records = engine.generate(5, 0L);
+
+        assertEquals(5, records.size());
+        for (GeneratedRecord record : records) {
+            assertFalse(record.hasKey());
+            assertFalse(record.getValue().contains("\n"));
+            JsonNode value = record.getValueNode();
+            assertTrue(value.get("age").asInt() >= 18 && value.get("age").asInt() <= 99);
+        }
+    }
+
+    @Test
+    public void testGenerateKeysFromKeyTemplate() throws Exception {
+        Template template = embeddedTemplate(null);
+        template.setKeyEmbedded(true);
+        template.setKeyTemplate("{\"customer_id\": \"{{uuid}}\"}");
+        JRTemplateEngine engine = new JRTemplateEngine(template);
+
+        GeneratedRecord record = engine.generate(1, 0L).get(0);
+        assertTrue(record.getKeyNode().has("customer_id"));
+    }
+
+    @Test
+    public void testSeededGenerationIsRepeatable() throws Exception {
+        List<GeneratedRecord> first = new JRTemplateEngine(embeddedTemplate(7L)).generate(3, 0L);
+        List<GeneratedRecord> second = new JRTemplateEngine(embeddedTemplate(7L)).generate(3, 0L);
+
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getKey(), second.get(i).getKey());
+            assertEquals(first.get(i).getValue(), second.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testSeededRecordDependsOnSequenceOnly() throws Exception {
+        Template template = embeddedTemplate(7L);
+        template.setTemplate("{\"id\": \"{{uuid}}\", \"n\": {{counter \"c\" 100 2}}, \"m\": {{counter \"c\" 100 2}}}");
+
+        List<GeneratedRecord> all = new JRTemplateEngine(template).generate(10, 0L);
+        List<GeneratedRecord> resumed = new JRTemplateEngine(template).generate(3, 7L);
+
+        for (int i = 0; i < resumed.size(); i++)
+            assertEquals(all.get(7 + i).getValue(), resumed.get(i).getValue());
+        assertEquals(128, resumed.get(0).getValueNode().get("n").asInt());
+        assertEquals(130, resumed.get(0).getValueNode().get("m").asInt());
+    }
+
+    @Test
+    public void testNamedTemplateNotSupported() {
+        Template template = new Template();
+        template.setTemplate("net_device");
+
+        assertFalse(JRTemplateEngine.supports(template));
+        assertThrows(IllegalArgumentException.class, () -> new JRTemplateEngine(template));
+    }
+
+    @Test
+    public void testFailingFunctionNotSupported() {
+        Template template = new Template();
+        template.setEmbedded(true);
+        template.setTemplate("{\"date\": \"{{date_between \"2024-13-01\" \"2024-12-31\"}}\"}");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new JRTemplateEngine(template));
+        assertTrue(exception.getMessage().startsWith("Template can't be rendered"));
+    }
+
+    private Template embeddedTemplate(Long seed) {
+        Template template = new Template();
+        template.setEmbedded(true);
+        template.setTemplate(VALUE_TEMPLATE);
+        template.setSeed(seed);
+        return template;
+    }
+}
@@ -0,0 +1,108 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.engine;
+
+import io.jrnd.kafka.connect.connector.engine.CompiledTemplate;
+import io.jrnd.kafka.connect.connector.engine.GenerationContext;
+import io.jrnd.kafka.connect.connector.engine.TemplateParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateParserTest {
+
+    @Test
+    public void testTextOnly() {
+        assertEquals("{\"a\":1}", render("{\"a\":1}"));
+        assertEquals("", render(""));
+    }
+
+    @Test
+    public void testLiterals() {
+        assertEquals("a \"quoted\" string", render("{{\"a \\\"quoted\\\" string\"}}"));
+        assertEquals("raw \\n", render("{{`raw \\n`}}"));
+        assertEquals("42 -7 2.5 true", render("{{42}} {{-7}} {{2.5}} {{true}}"));
+    }
+
+    @Test
+    public void testFunctionCalls() {
+        String value = render("{{integer 1 3}}");
+        assertTrue(Set.of("1", "2", "3").contains(value), value);
+        assertTrue(Set.of("ALPHA", "BETA").contains(render("{{randoms \"ALPHA|BETA\"}}")));
+        assertDoesNotThrow(() -> UUID.fromString(render("{{uuid}}")));
+        assertEquals(8, render("{{random_string 8 8}}").length());
+    }
+
+    @Test
+    public void testNestedCallsAndPipelines() {
+        assertEquals("5", render("{{add (integer 2 2) 3}}"));
+        assertEquals("ALPHA", render("{{\"alpha\" | upper}}"));
+        assertEquals("7", render("{{integer 3 3 | add 4}}"));
+        assertEquals("3.14", render("{{format_float \"%.2f\" 3.14159}}"));
+    }
+
+    @Test
+    public void testTrimMarkersAndComments() {
+        assertEquals("a1b", render("a  {{- 1 -}}  b"));
+        assertEquals("ab", render("a{{/* a comment */}}b"));
+        assertEquals("ab", render("a {{- /* a comment */ -}} b"));
+    }
+
+    @Test
+    public void testJoinLines() {
+        CompiledTemplate template = TemplateParser.parse("{\n  \"a\": \"{{randoms \"x\"}}\"\r\n}", true);
+        assertEquals("{  \"a\": \"x\"}", template.render(new GenerationContext(1L)));
+    }
+
+    @Test
+    public void testCounter() {
+        CompiledTemplate template = TemplateParser.parse("{{counter \"c\" 10 5}}");
+        GenerationContext context = new GenerationContext(null);
+        assertEquals("10", template.render(context));
+        assertEquals("15", template.render(context));
+        assertEquals("20", template.render(context));
+    }
+
+    @Test
+    public void testSeededContextIsRepeatable() {
+        CompiledTemplate template = TemplateParser.parse("{{uuid}} {{name}} {{integer 0 1000000}} {{ip \"10.1.0.0/16\"}}");
+        assertEquals(template.render(new GenerationContext(42L)), template.render(new GenerationContext(42L)));
+        assertTrue(template.render(new GenerationContext(42L)).contains(" 10.1."));
+    }
+
+    @Test
+    public void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{unknown_function}}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{integer 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{uuid"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{.Field}}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{$x := 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{\"unterminated}}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateParser.parse("{{1 | 2}}"));
+    }
+
+    private String render(String source) {
+        return TemplateParser.parse(source).render(new GenerationContext(null));
+    }
+}
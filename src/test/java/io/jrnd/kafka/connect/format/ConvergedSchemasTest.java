@@ -0,0 +1,110 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.ConvergedSchemas;
+import io.jrnd.kafka.connect.connector.format.StructHelper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConvergedSchemasTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String[] RECORDS = {
+            "{\"name\":\"John\",\"age\":30,\"score\":1}",
+            "{\"name\":\"Jane\",\"age\":3000000000,\"score\":2.5,\"email\":\"jane@example.com\"}",
+            "{\"name\":\"Jim\",\"age\":41,\"score\":3}"
+    };
+
+    @Test
+    public void testSampledRecordsShareOneSchema() throws Exception {
+        ConvergedSchemas convergedSchemas = new ConvergedSchemas();
+        AtomicInteger renders = new AtomicInteger();
+
+        for (String record : RECORDS)
+            convergedSchemas.sample("avro", "record", OBJECT_MAPPER.readTree(record));
+
+        Schema schema = null;
+        for (String record : RECORDS) {
+            JsonNode jsonNode = OBJECT_MAPPER.readTree(record);
+            Schema recordSchema = get(convergedSchemas, jsonNode, renders);
+            if (schema != null)
+                assertSame(schema, recordSchema);
+            schema = recordSchema;
+            Struct struct = StructHelper.convertJsonToStruct(schema, jsonNode);
+            struct.validate();
+        }
+
+        assertEquals(1, renders.get());
+        assertEquals(0, convergedSchemas.getChanges());
+        assertEquals(Schema.Type.INT64, schema.field("age").schema().type());
+        assertEquals(Schema.Type.FLOAT64, schema.field("score").schema().type());
+        assertTrue(schema.field("email").schema().isOptional());
+    }
+
+    @Test
+    public void testIncompatibleRecordWidensSchema() throws Exception {
+        ConvergedSchemas convergedSchemas = new ConvergedSchemas();
+        AtomicInteger renders = new AtomicInteger();
+
+        Schema first = get(convergedSchemas, OBJECT_MAPPER.readTree(RECORDS[0]), renders);
+        Schema second = get(convergedSchemas, OBJECT_MAPPER.readTree(RECORDS[2]), renders);
+        assertSame(first, second);
+
+        Schema widened = get(convergedSchemas, OBJECT_MAPPER.readTree(RECORDS[1]), renders);
+        assertNotEquals(first, widened);
+        assertEquals(1, convergedSchemas.getChanges());
+        assertEquals(2, renders.get());
+
+        // records of the first shape still fit the widened schema
+        assertSame(widened, get(convergedSchemas, OBJECT_MAPPER.readTree(RECORDS[0]), renders));
+    }
+
+    @Test
+    public void testSampleWindow() throws Exception {
+        ConvergedSchemas convergedSchemas = new ConvergedSchemas(1);
+        AtomicInteger renders = new AtomicInteger();
+
+        convergedSchemas.sample("avro", "record", OBJECT_MAPPER.readTree(RECORDS[0]));
+        convergedSchemas.sample("avro", "record", OBJECT_MAPPER.readTree(RECORDS[1]));
+
+        Schema schema = get(convergedSchemas, OBJECT_MAPPER.readTree(RECORDS[0]), renders);
+        assertEquals(Schema.Type.INT32, schema.field("age").schema().type());
+        assertNull(schema.field("email"));
+    }
+
+    private Schema get(ConvergedSchemas convergedSchemas, JsonNode jsonNode, AtomicInteger renders) throws Exception {
+        return convergedSchemas.get("avro", "record", jsonNode, type -> {
+            renders.incrementAndGet();
+            return AvroHelper.createConnectSchema("recordRecord", type);
+        });
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.InferredType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InferredTypeTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void testNumbersWiden() throws Exception {
+        InferredType type = merge("{\"amount\":30}", "{\"amount\":3000000000}");
+        assertEquals(InferredType.Kind.LONG, field(type, "amount").getKind());
+
+        assertTrue(merge(type, "{\"amount\":30.5}"));
+        assertEquals(InferredType.Kind.DOUBLE, field(type, "amount").getKind());
+
+        // a narrower number fits without widening
+        assertTrue(type.accepts(OBJECT_MAPPER.readTree("{\"amount\":30}")));
+        assertFalse(merge(type, "{\"amount\":30}"));
+        assertEquals(InferredType.Kind.DOUBLE, field(type, "amount").getKind());
+    }
+
+    @Test
+    public void testMismatchWidensToString() throws Exception {
+        InferredType type = merge("{\"id\":30,\"tags\":[\"a\"]}", "{\"id\":\"A30\",\"tags\":{\"a\":1}}");
+
+        assertEquals(InferredType.Kind.STRING, field(type, "id").getKind());
+        assertEquals(InferredType.Kind.STRING, field(type, "tags").getKind());
+        assertTrue(type.accepts(OBJECT_MAPPER.readTree("{\"id\":true,\"tags\":[1,2]}")));
+    }
+
+    @Test
+    public void testMissingAndNullFieldsAreOptional() throws Exception {
+        InferredType type = merge("{\"name\":\"John\",\"email\":\"john@example.com\"}", "{\"name\":\"Jane\",\"age\":41}", "{\"name\":\"Jim\",\"age\":null,\"email\":\"jim@example.com\"}");
+
+        assertFalse(field(type, "name").isOptional());
+        assertTrue(field(type, "email").isOptional());
+        assertTrue(field(type, "age").isOptional());
+        assertEquals(InferredType.Kind.INT, field(type, "age").getKind());
+        assertEquals(List.of("name", "email", "age"), List.copyOf(type.getFields().keySet()));
+    }
+
+    @Test
+    public void testArrayElementsMerged() throws Exception {
+        InferredType type = merge("{\"values\":[]}", "{\"values\":[1,2.5]}", "{\"values\":[{\"a\":1}]}");
+        assertEquals(InferredType.Kind.STRING, field(type, "values").getElementType().getKind());
+
+        type = merge("{\"points\":[{\"x\":1},{\"x\":2,\"y\":3}]}");
+        InferredType point = field(type, "points").getElementType();
+        assertEquals(InferredType.Kind.OBJECT, point.getKind());
+        assertFalse(point.getFields().get("x").isOptional());
+        assertTrue(point.getFields().get("y").isOptional());
+    }
+
+    @Test
+    public void testAccepts() throws Exception {
+        InferredType type = merge("{\"name\":\"John\",\"age\":30,\"address\":{\"city\":\"Rome\"}}");
+
+        assertTrue(type.accepts(OBJECT_MAPPER.readTree("{\"name\":\"Jane\",\"age\":41,\"address\":{\"city\":\"Milan\"}}")));
+        assertFalse(type.accepts(OBJECT_MAPPER.readTree("{\"name\":\"Jane\",\"age\":41.5,\"address\":{\"city\":\"Milan\"}}")));
+        assertFalse(type.accepts(OBJECT_MAPPER.readTree("{\"name\":\"Jane\",\"address\":{\"city\":\"Milan\"}}")));
+        assertFalse(type.accepts(OBJECT_MAPPER.readTree("{\"name\":\"Jane\",\"age\":41,\"address\":{\"city\":\"Milan\"},\"email\":\"x\"}")));
+        assertFalse(type.accepts(OBJECT_MAPPER.readTree("{\"name\":\"Jane\",\"age\":null,\"address\":{\"city\":\"Milan\"}}")));
+    }
+
+    private static InferredType merge(String... records) throws Exception {
+        InferredType type = new InferredType();
+        for (String record : records)
+            merge(type, record);
+        return type;
+    }
+
+    private static boolean merge(InferredType type, String record) throws Exception {
+        return type.merge(OBJECT_MAPPER.readTree(record));
+    }
+
+    private static InferredType field(InferredType type, String name) {
+        return type.getFields().get(name);
+    }
+}
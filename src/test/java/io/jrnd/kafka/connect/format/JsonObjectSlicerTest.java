@@ -0,0 +1,81 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format;
+
+import io.jrnd.kafka.connect.connector.format.JsonObjectSlicer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonObjectSlicerTest {
+
+    private static final byte[] K = bytes("k");
+    private static final byte[] V = bytes("v");
+
+    @Test
+    public void testSliceMembers() throws IOException {
+        byte[][] members = JsonObjectSlicer.slice(bytes(" { \"v\" : {\"a\":\"}]\\\"{\",\"b\":[1,{\"c\":2}]} ,\"k\":\"id\\\"1\" }"), K, V);
+
+        assertEquals("\"id\\\"1\"", string(members[0]));
+        assertEquals("{\"a\":\"}]\\\"{\",\"b\":[1,{\"c\":2}]}", string(members[1]));
+    }
+
+    @Test
+    public void testSliceLiterals() throws IOException {
+        byte[][] members = JsonObjectSlicer.slice(bytes("{\"k\":null,\"x\":true,\"v\":-12.5e3}"), K, V);
+
+        assertEquals("null", string(members[0]));
+        assertEquals("-12.5e3", string(members[1]));
+    }
+
+    @Test
+    public void testMissingMember() throws IOException {
+        assertNull(JsonObjectSlicer.slice(bytes("{\"v\":1}"), K, V)[0]);
+        assertNull(JsonObjectSlicer.slice(bytes("{}"), K, V)[1]);
+    }
+
+    @Test
+    public void testMultiByteCharacters() throws IOException {
+        byte[][] members = JsonObjectSlicer.slice(bytes("{\"k\":\"Zoë\",\"v\":{\"balance\":\"€328.52\"}}"), K, V);
+
+        assertEquals("\"Zoë\"", string(members[0]));
+        assertEquals("{\"balance\":\"€328.52\"}", string(members[1]));
+    }
+
+    @Test
+    public void testMalformedObject() {
+        assertThrows(IOException.class, () -> JsonObjectSlicer.slice(bytes("[1]"), K, V));
+        assertThrows(IOException.class, () -> JsonObjectSlicer.slice(bytes("{\"k\":{\"ID\":100},\"v\":"), K, V));
+        assertThrows(IOException.class, () -> JsonObjectSlicer.slice(bytes("{\"k\" 1}"), K, V));
+        assertThrows(IOException.class, () -> JsonObjectSlicer.slice(bytes("{\"k\":\"open}"), K, V));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] json) {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format;
+
+import io.jrnd.kafka.connect.connector.format.JsonRecordSplitter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonRecordSplitterTest {
+
+    @Test
+    public void testSplitLines() throws IOException {
+        List<String> records = split("{\"VLAN\":\"ALPHA\"}\n{\"VLAN\":\"GAMMA\"}\n");
+
+        assertEquals(2, records.size());
+        assertEquals("{\"VLAN\":\"ALPHA\"}", records.get(0));
+        assertEquals("{\"VLAN\":\"GAMMA\"}", records.get(1));
+    }
+
+    @Test
+    public void testSplitAdjacentKeyAndValue() throws IOException {
+        List<String> records = split("{\"ID\":100}{\"VLAN\":\"ALPHA\"}\n{\"ID\":200}{\"VLAN\":\"GAMMA\"}\n");
+
+        assertEquals(4, records.size());
+        assertEquals("{\"ID\":100}", records.get(0));
+        assertEquals("{\"VLAN\":\"GAMMA\"}", records.get(3));
+    }
+
+    @Test
+    public void testBracesInsideStrings() throws IOException {
+        List<String> records = split("{\"a\":\"}{\",\"b\":\"\\\"{\"}{\"c\":{\"d\":\"}\"}}");
+
+        assertEquals(2, records.size());
+        assertEquals("{\"a\":\"}{\",\"b\":\"\\\"{\"}", records.get(0));
+        assertEquals("{\"c\":{\"d\":\"}\"}}", records.get(1));
+    }
+
+    @Test
+    public void testMultiLineRecord() throws IOException {
+        List<String> records = split("{\n  \"name\": \"John\",\r\n  \"age\": 30\n}\n");
+
+        assertEquals(1, records.size());
+        assertEquals("{  \"name\": \"John\",  \"age\": 30}", records.get(0));
+    }
+
+    @Test
+    public void testMultiByteCharacters() throws IOException {
+        List<String> records = split("{\"balance\":\"\u20ac328.52\",\"name\":\"Zo\u00eb\"}");
+
+        assertEquals(1, records.size());
+        assertEquals("{\"balance\":\"\u20ac328.52\",\"name\":\"Zo\u00eb\"}", records.get(0));
+    }
+
+    @Test
+    public void testRecordLargerThanBuffer() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            value.append((char) ('a' + i % 26));
+        String record = "{\"field\":\"" + value + "\"}";
+
+        List<String> records = split(record + "\n" + record);
+
+        assertEquals(2, records.size());
+        assertEquals(record, records.get(1));
+    }
+
+    @Test
+    public void testNextBytes() throws IOException {
+        String record = "{\"balance\":\"\u20ac328.52\",\n \"name\":\"Zo\u00eb\"}";
+        try (JsonRecordSplitter splitter = new JsonRecordSplitter(new ByteArrayInputStream((record + "\n" + record).getBytes(StandardCharsets.UTF_8)))) {
+            byte[] expected = "{\"balance\":\"\u20ac328.52\", \"name\":\"Zo\u00eb\"}".getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, splitter.nextBytes());
+            assertArrayEquals(expected, splitter.nextBytes());
+            assertNull(splitter.nextBytes());
+        }
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        JsonRecordSplitter splitter = new JsonRecordSplitter(new ByteArrayInputStream("{\"a\":1}{\"b\":".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("{\"a\":1}", splitter.next());
+
+        // the incomplete record of the previous run is dropped
+        assertSame(splitter, splitter.reset(new ByteArrayInputStream("{\"c\":3}".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("{\"c\":3}", splitter.next());
+        assertNull(splitter.next());
+    }
+
+    @Test
+    public void testEmptyAndIncompleteInput() throws IOException {
+        assertTrue(split("").isEmpty());
+        assertTrue(split("\n \n").isEmpty());
+        assertEquals(1, split("{\"a\":1}{\"b\":").size());
+    }
+
+    private List<String> split(String input) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (JsonRecordSplitter splitter = new JsonRecordSplitter(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+            String record;
+            while ((record = splitter.next()) != null)
+                records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.JsonStructReader;
+import io.jrnd.kafka.connect.connector.format.StructHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStructReaderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Schema ADDRESS_SCHEMA = SchemaBuilder.struct().name("address")
+            .field("city", Schema.STRING_SCHEMA)
+            .field("zip", Schema.OPTIONAL_INT32_SCHEMA)
+            .build();
+
+    private static final Schema SCHEMA = SchemaBuilder.struct().name("record")
+            .field("name", Schema.STRING_SCHEMA)
+            .field("age", Schema.INT32_SCHEMA)
+            .field("balance", Schema.OPTIONAL_INT64_SCHEMA)
+            .field("score", Schema.OPTIONAL_FLOAT64_SCHEMA)
+            .field("ratio", Schema.OPTIONAL_FLOAT32_SCHEMA)
+            .field("active", Schema.OPTIONAL_BOOLEAN_SCHEMA)
+            .field("note", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("address", ADDRESS_SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.OPTIONAL_STRING_SCHEMA).optional().build())
+            .field("history", SchemaBuilder.array(ADDRESS_SCHEMA).optional().build())
+            .field("counters", SchemaBuilder.map(Schema.INT32_SCHEMA, Schema.INT64_SCHEMA).optional().build())
+            .field("data", Schema.OPTIONAL_BYTES_SCHEMA)
+            .build();
+
+    @Test
+    public void testSameStructAsTree() throws Exception {
+        List<String> records = List.of(
+                "{\"name\":\"John\",\"age\":30,\"balance\":3000000000,\"score\":1.5,\"ratio\":0.5,\"active\":true,\"note\":null,"
+                        + "\"address\":{\"city\":\"Rome\",\"zip\":100},\"tags\":[\"a\",null,\"b\"],\"history\":[{\"city\":\"Milan\"}],"
+                        + "\"counters\":{\"1\":10,\"2\":20},\"data\":\"AQID\"}",
+                // fields out of schema order, unknown fields and missing optional fields
+                "{\"extra\":{\"deep\":[1,{\"x\":2}]},\"address\":{\"zip\":5,\"city\":\"Oslo\",\"unknown\":true},\"age\":41,\"name\":\"Jane\"}",
+                // values of another JSON type, converted as a tree node converts them
+                "{\"name\":12.50,\"age\":\"41\",\"score\":7,\"active\":\"true\",\"note\":{\"a\":[1,2]},\"address\":{\"city\":[1]},"
+                        + "\"tags\":\"x\",\"balance\":{\"n\":1}}");
+
+        for (String record : records) {
+            Struct streamed = JsonStructReader.read(SCHEMA, record);
+            Struct tree = StructHelper.convertJsonToStruct(SCHEMA, OBJECT_MAPPER.readTree(record));
+            assertEquals(tree, streamed, record);
+        }
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        Struct struct = JsonStructReader.read(SCHEMA, "{\"name\":\"John\",\"age\":30,\"address\":{\"city\":\"Rome\"},"
+                + "\"counters\":{\"7\":70},\"tags\":[\"a\",null],\"data\":\"AQID\",\"note\":[1,{\"b\":2}]}");
+        struct.validate();
+
+        assertEquals(30, struct.getInt32("age"));
+        assertEquals("Rome", struct.getStruct("address").getString("city"));
+        assertNull(struct.getStruct("address").getInt32("zip"));
+        assertEquals(Map.of(7, 70L), struct.getMap("counters"));
+        assertEquals(Arrays.asList("a", null), struct.getArray("tags"));
+        assertArrayEquals(new byte[]{1, 2, 3}, struct.getBytes("data"));
+        assertEquals("[1,{\"b\":2}]", struct.getString("note"));
+        assertNull(struct.get("balance"));
+    }
+
+    @Test
+    public void testNotAnObject() {
+        assertThrows(IOException.class, () -> JsonStructReader.read(SCHEMA, "[1,2]"));
+        assertThrows(IOException.class, () -> JsonStructReader.read(SCHEMA, "{\"name\":"));
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.SchemaCache;
+import io.jrnd.kafka.connect.connector.format.jsonschema.JsonSchemaHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void testSameShapeReusesSchema() throws Exception {
+        SchemaCache schemaCache = new SchemaCache();
+        AtomicInteger inferences = new AtomicInteger();
+
+        Schema first = get(schemaCache, "{\"name\":\"John\",\"age\":30,\"tags\":[\"a\"]}", inferences);
+        Schema second = get(schemaCache, "{\"name\":\"Jane\",\"age\":41,\"tags\":[\"b\",\"c\"]}", inferences);
+
+        assertSame(first, second);
+        assertEquals(1, inferences.get());
+        assertEquals(1, schemaCache.size());
+    }
+
+    @Test
+    public void testDifferentShapeInfersSchema() throws Exception {
+        SchemaCache schemaCache = new SchemaCache();
+        AtomicInteger inferences = new AtomicInteger();
+
+        Schema first = get(schemaCache, "{\"name\":\"John\",\"age\":30}", inferences);
+        Schema second = get(schemaCache, "{\"name\":\"John\",\"age\":\"30\"}", inferences);
+
+        assertNotEquals(first, second);
+        assertEquals(2, inferences.get());
+    }
+
+    @Test
+    public void testEqualSchemasAreInterned() throws Exception {
+        SchemaCache schemaCache = new SchemaCache();
+        AtomicInteger inferences = new AtomicInteger();
+
+        // int and double have different fingerprints but both are a JSON schema 'number'
+        Schema first = get(schemaCache, "{\"amount\":30}", inferences);
+        Schema second = get(schemaCache, "{\"amount\":30.5}", inferences);
+
+        assertEquals(2, inferences.get());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testBoundedSize() throws Exception {
+        SchemaCache schemaCache = new SchemaCache(10);
+        AtomicInteger inferences = new AtomicInteger();
+
+        for (int i = 0; i < 50; i++)
+            get(schemaCache, "{\"field" + i + "\":1}", inferences);
+
+        assertEquals(50, inferences.get());
+        assertTrue(schemaCache.size() <= 10);
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        assertEquals(
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":{\"b\":1},\"c\":[true]}")),
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":{\"b\":2},\"c\":[false,true]}")));
+        assertNotEquals(
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":{\"b\":1}}")),
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":{\"b\":1.5}}")));
+        assertNotEquals(
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"ab\":1,\"c\":1}")),
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":1,\"bc\":1}")));
+        assertNotEquals(
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":[]}")),
+                SchemaCache.fingerprint(OBJECT_MAPPER.readTree("{\"a\":[1]}")));
+    }
+
+    @Test
+    public void testSameShape() throws Exception {
+        assertTrue(SchemaCache.sameShape(
+                OBJECT_MAPPER.readTree("{\"a\":{\"b\":1},\"c\":[true]}"),
+                OBJECT_MAPPER.readTree("{\"a\":{\"b\":2},\"c\":[false,true]}")));
+        assertFalse(SchemaCache.sameShape(
+                OBJECT_MAPPER.readTree("{\"a\":{\"b\":1}}"),
+                OBJECT_MAPPER.readTree("{\"a\":{\"b\":1.5}}")));
+        assertFalse(SchemaCache.sameShape(
+                OBJECT_MAPPER.readTree("{\"ab\":1,\"c\":1}"),
+                OBJECT_MAPPER.readTree("{\"a\":1,\"bc\":1}")));
+        assertFalse(SchemaCache.sameShape(
+                OBJECT_MAPPER.readTree("{\"a\":1}"),
+                OBJECT_MAPPER.readTree("{\"a\":1,\"b\":1}")));
+        assertFalse(SchemaCache.sameShape(
+                OBJECT_MAPPER.readTree("{\"a\":[]}"),
+                OBJECT_MAPPER.readTree("{\"a\":[1]}")));
+    }
+
+    private Schema get(SchemaCache schemaCache, String json, AtomicInteger inferences) throws Exception {
+        JsonNode jsonNode = OBJECT_MAPPER.readTree(json);
+        return schemaCache.get("json", "record", jsonNode, () -> {
+            inferences.incrementAndGet();
+            return JsonSchemaHelper.createJsonSchemaFromJson(json);
+        });
+    }
+}
@@ -0,0 +1,150 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package io.jrnd.kafka.connect.format;
+
+import io.jrnd.kafka.connect.connector.format.SchemaParser;
+import io.jrnd.kafka.connect.connector.format.StructHelper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.storage.StringConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaParserTest {
+
+    private static final String AVRO_SCHEMA = "{\"type\":\"record\",\"name\":\"Device\",\"namespace\":\"net\",\"fields\":["
+            + "{\"name\":\"id\",\"type\":\"string\"},"
+            + "{\"name\":\"port\",\"type\":\"int\"},"
+            + "{\"name\":\"owner\",\"type\":[\"null\",\"string\"],\"default\":null},"
+            + "{\"name\":\"status\",\"type\":{\"type\":\"enum\",\"name\":\"Status\",\"symbols\":[\"UP\",\"DOWN\"]}},"
+            + "{\"name\":\"location\",\"type\":{\"type\":\"record\",\"name\":\"Location\",\"fields\":[{\"name\":\"city\",\"type\":\"string\"}]}},"
+            + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}";
+
+    private static final String JSON_SCHEMA = "{\"type\":\"object\",\"title\":\"Device\","
+            + "\"properties\":{"
+            + "\"id\":{\"type\":\"string\"},"
+            + "\"port\":{\"type\":\"integer\"},"
+            + "\"owner\":{\"type\":[\"null\",\"string\"]},"
+            + "\"location\":{\"$ref\":\"#/definitions/Location\"},"
+            + "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}},"
+            + "\"required\":[\"id\",\"port\",\"location\"],"
+            + "\"definitions\":{\"Location\":{\"type\":\"object\",\"properties\":{\"city\":{\"type\":\"string\"}},\"required\":[\"city\"]}}}";
+
+    private static final String PROTO_DEFINITION = String.join("\n",
+            "syntax = \"proto3\";",
+            "package net;",
+            "option java_package = \"net.devices\";",
+            "// a network device",
+            "message Device {",
+            "  string id = 1;",
+            "  int32 port = 2 [deprecated = true];",
+            "  /* nested types are resolved */",
+            "  Location location = 4;",
+            "  repeated string tags = 5;",
+            "  map<string, int64> counters = 6;",
+            "  Status status = 7;",
+            "  oneof contact {",
+            "    string email = 8;",
+            "    string phone = 9;",
+            "  }",
+            "  reserved 3;",
+            "  message Location {",
+            "    string city = 1;",
+            "  }",
+            "}",
+            "enum Status {",
+            "  UP = 0;",
+            "  DOWN = 1;",
+            "}");
+
+    private static final String RECORD = "{\"id\":\"d1\",\"port\":8080,\"status\":\"UP\",\"location\":{\"city\":\"Rome\"},\"tags\":[\"a\"],\"counters\":{\"in\":10},\"email\":\"a@b.c\"}";
+
+    @Test
+    public void testAvroSchema() throws Exception {
+        Schema schema = SchemaParser.parse(SchemaParser.AVRO_CONVERTER_CLASS_NAME, AVRO_SCHEMA);
+
+        assertEquals("net.Device", schema.name());
+        assertEquals(Schema.Type.INT32, schema.field("port").schema().type());
+        assertTrue(schema.field("owner").schema().isOptional());
+        assertFalse(schema.field("id").schema().isOptional());
+        assertEquals("net.Location", schema.field("location").schema().name());
+        assertEquals(Schema.Type.STRING, schema.field("status").schema().type());
+        assertEquals("DOWN", schema.field("status").schema().parameters().get(AvroHelper.AVRO_ENUM_PARAMETER + ".DOWN"));
+
+        Struct struct = StructHelper.convertJsonToStruct(schema, RECORD);
+        struct.validate();
+        assertNull(struct.get("owner"));
+        assertEquals("Rome", struct.getStruct("location").getString("city"));
+    }
+
+    @Test
+    public void testJsonSchema() throws Exception {
+        Schema schema = SchemaParser.parse(SchemaParser.JSON_SCHEMA_CONVERTER_CLASS_NAME, JSON_SCHEMA);
+
+        assertEquals("Device", schema.name());
+        assertEquals(Schema.Type.INT64, schema.field("port").schema().type());
+        assertFalse(schema.field("port").schema().isOptional());
+        assertTrue(schema.field("owner").schema().isOptional());
+        assertTrue(schema.field("tags").schema().isOptional());
+        assertFalse(schema.field("location").schema().field("city").schema().isOptional());
+
+        Struct struct = StructHelper.convertJsonToStruct(schema, RECORD);
+        struct.validate();
+        assertEquals(8080L, struct.get("port"));
+    }
+
+    @Test
+    public void testProtobufSchema() throws Exception {
+        Schema schema = SchemaParser.parse(SchemaParser.PROTOBUF_CONVERTER_CLASS_NAME, PROTO_DEFINITION);
+
+        assertEquals("Device", schema.name());
+        assertEquals(List.of("id", "port", "location", "tags", "counters", "status", "email", "phone"),
+                schema.fields().stream().map(field -> field.name()).toList());
+        assertEquals("4", schema.field("location").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertEquals("9", schema.field("phone").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertEquals(Schema.Type.ARRAY, schema.field("tags").schema().type());
+        assertEquals(Schema.Type.MAP, schema.field("counters").schema().type());
+        assertEquals(Schema.Type.STRING, schema.field("status").schema().type());
+        assertEquals("Location", schema.field("location").schema().name());
+
+        Struct struct = StructHelper.convertJsonToStruct(schema, RECORD);
+        struct.validate();
+        assertEquals(Map.of("in", 10L), struct.getMap("counters"));
+        assertNull(struct.get("phone"));
+    }
+
+    @Test
+    public void testInvalidSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(SchemaParser.AVRO_CONVERTER_CLASS_NAME, "{\"type\":\"record\""));
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(SchemaParser.AVRO_CONVERTER_CLASS_NAME, "\"string\""));
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(SchemaParser.JSON_SCHEMA_CONVERTER_CLASS_NAME, "{\"$ref\":\"other.json\"}"));
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(SchemaParser.PROTOBUF_CONVERTER_CLASS_NAME, "syntax = \"proto3\"; message A { B b = 1; }"));
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(SchemaParser.PROTOBUF_CONVERTER_CLASS_NAME, "import \"google/protobuf/timestamp.proto\";"));
+        assertThrows(IllegalArgumentException.class, () -> SchemaParser.parse(StringConverter.class.getName(), AVRO_SCHEMA));
+    }
+}
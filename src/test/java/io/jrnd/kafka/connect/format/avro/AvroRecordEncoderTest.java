@@ -0,0 +1,125 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format.avro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroHelper;
+import io.jrnd.kafka.connect.connector.format.avro.AvroRecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.MockSchemaRegistry;
+import io.jrnd.kafka.connect.connector.format.registry.RecordEncoder;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvroRecordEncoderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Schema ADDRESS_SCHEMA = SchemaBuilder.struct().name("address")
+            .field("city", Schema.STRING_SCHEMA)
+            .build();
+
+    private static final Schema SCHEMA = SchemaBuilder.struct().name("net_deviceRecord")
+            .field("id", Schema.STRING_SCHEMA)
+            .field("port", Schema.INT32_SCHEMA)
+            .field("bytes", Schema.INT64_SCHEMA)
+            .field("ratio", Schema.OPTIONAL_FLOAT64_SCHEMA)
+            .field("address", ADDRESS_SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .field("codes", SchemaBuilder.map(Schema.INT32_SCHEMA, Schema.STRING_SCHEMA).optional().build())
+            .build();
+
+    @Test
+    public void testEncode() throws Exception {
+        MockSchemaRegistry registry = new MockSchemaRegistry();
+        AvroRecordEncoder encoder = new AvroRecordEncoder(registry, "devices-value");
+
+        byte[] encoded = encoder.encode(SCHEMA, OBJECT_MAPPER.readTree(
+                "{\"id\":\"a1\",\"port\":443,\"bytes\":10000000000,\"address\":{\"city\":\"Rome\"},\"tags\":[\"x\",\"y\"],\"codes\":{\"7\":\"seven\"}}"));
+
+        assertEquals(RecordEncoder.MAGIC_BYTE, encoded[0]);
+        int id = ByteBuffer.wrap(encoded, 1, 4).getInt();
+        assertEquals(List.of(id), registry.getIds("devices-value"));
+
+        GenericRecord record = decode(registry.getSchema(id), encoded);
+        assertEquals("a1", record.get("id").toString());
+        assertEquals(443, record.get("port"));
+        assertEquals(10000000000L, record.get("bytes"));
+        assertNull(record.get("ratio"));
+        assertEquals("Rome", ((GenericRecord) record.get("address")).get("city").toString());
+        assertEquals("y", ((List<?>) record.get("tags")).get(1).toString());
+        GenericRecord code = (GenericRecord) ((List<?>) record.get("codes")).get(0);
+        assertEquals(7, code.get("key"));
+        assertEquals("seven", code.get("value").toString());
+    }
+
+    @Test
+    public void testSchemaIsRegisteredOnce() throws Exception {
+        AtomicInteger registrations = new AtomicInteger();
+        MockSchemaRegistry registry = new MockSchemaRegistry();
+        AvroRecordEncoder encoder = new AvroRecordEncoder((subject, type, schema) -> {
+            registrations.incrementAndGet();
+            return registry.register(subject, type, schema);
+        }, "devices-value");
+
+        String json = "{\"id\":\"a1\",\"port\":443,\"bytes\":1,\"address\":{\"city\":\"Rome\"},\"tags\":[]}";
+        for (int i = 0; i < 10; i++)
+            encoder.encode(SCHEMA, OBJECT_MAPPER.readTree(json));
+
+        assertEquals(1, registrations.get());
+    }
+
+    @Test
+    public void testEncodeSuppliedEnum() throws Exception {
+        Schema schema = AvroHelper.convertAvroToConnectSchema(new org.apache.avro.Schema.Parser().parse(
+                "{\"type\":\"record\",\"name\":\"com.example.Device\",\"fields\":[{\"name\":\"state\",\"type\":{\"type\":\"enum\",\"name\":\"State\",\"symbols\":[\"UP\",\"DOWN\"]}}]}"));
+        MockSchemaRegistry registry = new MockSchemaRegistry();
+
+        byte[] encoded = new AvroRecordEncoder(registry, "devices-value").encode(schema, OBJECT_MAPPER.readTree("{\"state\":\"DOWN\"}"));
+
+        org.apache.avro.Schema registered = new org.apache.avro.Schema.Parser().parse(registry.getSchema(1));
+        assertEquals("com.example.Device", registered.getFullName());
+        assertEquals(org.apache.avro.Schema.Type.ENUM, registered.getField("state").schema().getType());
+        assertEquals("DOWN", decode(registry.getSchema(1), encoded).get("state").toString());
+    }
+
+    @Test
+    public void testMissingRequiredField() {
+        AvroRecordEncoder encoder = new AvroRecordEncoder(new MockSchemaRegistry(), "devices-value");
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(SCHEMA, OBJECT_MAPPER.readTree("{\"id\":\"a1\"}")));
+    }
+
+    private static GenericRecord decode(String schema, byte[] encoded) throws Exception {
+        org.apache.avro.Schema avroSchema = new org.apache.avro.Schema.Parser().parse(schema);
+        return new GenericDatumReader<GenericRecord>(avroSchema)
+                .read(null, DecoderFactory.get().binaryDecoder(encoded, 5, encoded.length - 5, null));
+    }
+}
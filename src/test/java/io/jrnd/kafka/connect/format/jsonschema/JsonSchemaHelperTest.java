@@ -106,6 +106,27 @@ public class JsonSchemaHelperTest {
         assertEquals(Schema.Type.STRING, elementType.type());
     }
 
+    @Test
+    public void testCreateJsonSchemaFromJson_arrayOfObjects() throws Exception {
+
+        String jsonDocument = """
+            {
+                "name": "Jane Doe",
+                "orders": [{"sku": "A1", "quantity": 2}, {"sku": "B2", "quantity": 1}]
+            }
+            """;
+
+        Schema schema = JsonSchemaHelper.createJsonSchemaFromJson(jsonDocument);
+
+        Schema ordersSchema = schema.field("orders").schema();
+        assertEquals(Schema.Type.ARRAY, ordersSchema.type());
+
+        Schema elementType = ordersSchema.valueSchema();
+        assertEquals(Schema.Type.STRUCT, elementType.type());
+        assertEquals(Schema.Type.STRING, elementType.field("sku").schema().type());
+        assertEquals(Schema.Type.FLOAT64, elementType.field("quantity").schema().type());
+    }
+
     @Test
     public void testCreateJsonSchemaFromJson_invalidJson() {
 
@@ -19,6 +19,8 @@
 
 package io.jrnd.kafka.connect.format.protobuf;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrnd.kafka.connect.connector.format.InferredType;
 import io.jrnd.kafka.connect.connector.format.StructHelper;
 import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
 import org.apache.kafka.connect.data.Schema;
@@ -54,4 +56,24 @@ public class ProtobufHelperTest {
         });
     }
 
+    @Test
+    public void testCreateConnectSchema_stableFieldNumbers() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        InferredType type = new InferredType();
+        type.merge(objectMapper.readTree("{ \"name\": \"John\", \"nickname\": \"Jo\", \"age\": 30 }"));
+        type.merge(objectMapper.readTree("{ \"name\": \"Jane\", \"age\": 41, \"score\": 2.5 }"));
+
+        Schema schema = ProtobufHelper.createConnectSchema("Person", type);
+
+        assertEquals("Person", schema.name());
+        assertEquals("1", schema.field("name").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertEquals("2", schema.field("nickname").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertEquals("3", schema.field("age").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertEquals("4", schema.field("score").schema().parameters().get(ProtobufHelper.PROTOBUF_TAG_PARAMETER));
+        assertTrue(schema.field("nickname").schema().isOptional());
+        assertTrue(schema.field("score").schema().isOptional());
+        assertFalse(schema.field("age").schema().isOptional());
+        assertEquals(Schema.Type.FLOAT64, schema.field("score").schema().type());
+    }
+
 }
@@ -0,0 +1,104 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format.protobuf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import io.jrnd.kafka.connect.connector.format.InferredType;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufHelper;
+import io.jrnd.kafka.connect.connector.format.protobuf.ProtobufRecordEncoder;
+import io.jrnd.kafka.connect.connector.format.registry.MockSchemaRegistry;
+import io.jrnd.kafka.connect.connector.format.registry.SchemaRegistry;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProtobufRecordEncoderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void testEncode() throws Exception {
+        Schema schema = ProtobufHelper.createConnectSchemaFromProto(
+                "syntax = \"proto3\";\n"
+                        + "message Device {\n"
+                        + "  string id = 3;\n"
+                        + "  int64 bytes = 5;\n"
+                        + "  Address address = 7;\n"
+                        + "  repeated string tags = 8;\n"
+                        + "  map<string, int32> ports = 9;\n"
+                        + "  message Address { string city = 1; }\n"
+                        + "}\n");
+        MockSchemaRegistry registry = new MockSchemaRegistry();
+        ProtobufRecordEncoder encoder = new ProtobufRecordEncoder(registry, "devices-value");
+
+        byte[] encoded = encoder.encode(schema, OBJECT_MAPPER.readTree(
+                "{\"id\":\"a1\",\"bytes\":10000000000,\"address\":{\"city\":\"Rome\"},\"tags\":[\"x\",null,\"y\"],\"ports\":{\"https\":443}}"));
+
+        assertEquals(0, encoded[0]);
+        int id = ByteBuffer.wrap(encoded, 1, 4).getInt();
+        assertEquals(List.of(id), registry.getIds("devices-value"));
+        // message indexes, the first message
+        assertEquals(0, encoded[5]);
+
+        Descriptors.Descriptor descriptor = ProtobufHelper.createDescriptor(registry.getSchema(id));
+        DynamicMessage message = DynamicMessage.parseFrom(descriptor, Arrays.copyOfRange(encoded, 6, encoded.length));
+        assertEquals(3, descriptor.findFieldByName("id").getNumber());
+        assertEquals("a1", message.getField(descriptor.findFieldByName("id")));
+        assertEquals(10000000000L, message.getField(descriptor.findFieldByName("bytes")));
+        DynamicMessage address = (DynamicMessage) message.getField(descriptor.findFieldByName("address"));
+        assertEquals("Rome", address.getField(address.getDescriptorForType().findFieldByName("city")));
+        assertEquals(List.of("x", "y"), message.getField(descriptor.findFieldByName("tags")));
+        assertEquals(1, message.getRepeatedFieldCount(descriptor.findFieldByName("ports")));
+    }
+
+    @Test
+    public void testProtoDefinitionOfInferredSchema() throws Exception {
+        InferredType type = new InferredType();
+        type.merge(OBJECT_MAPPER.readTree("{\"address\":{\"city\":\"Rome\"},\"Address\":\"x\",\"port\":1}"));
+        Schema schema = ProtobufHelper.createConnectSchema("net_device", type);
+
+        String definition = ProtobufHelper.createProtoDefinition(schema);
+        Descriptors.Descriptor descriptor = ProtobufHelper.createDescriptor(definition);
+
+        assertEquals("Net_device", descriptor.getName());
+        assertEquals("Address2", descriptor.findFieldByName("address").getMessageType().getName());
+        assertEquals(Descriptors.FieldDescriptor.Type.STRING, descriptor.findFieldByName("Address").getType());
+    }
+
+    @Test
+    public void testUnsupportedSchema() {
+        Schema schema = SchemaBuilder.struct().name("Matrix")
+                .field("rows", SchemaBuilder.array(SchemaBuilder.array(Schema.INT32_SCHEMA).build()).build())
+                .build();
+        SchemaRegistry registry = new MockSchemaRegistry();
+        ProtobufRecordEncoder encoder = new ProtobufRecordEncoder(registry, "matrix-value");
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(schema, OBJECT_MAPPER.readTree("{\"rows\":[[1]]}")));
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright © 2024 JR team
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package io.jrnd.kafka.connect.format.registry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.jrnd.kafka.connect.connector.format.registry.MockSchemaRegistry;
+import io.jrnd.kafka.connect.connector.format.registry.SchemaRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpSchemaRegistryTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private HttpServer server;
+    private final List<String> paths = new ArrayList<>();
+    private final List<JsonNode> requests = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // a local registry, answering with the ID of the mock registry
+        MockSchemaRegistry registry = new MockSchemaRegistry();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/subjects/", exchange -> {
+            JsonNode request = OBJECT_MAPPER.readTree(exchange.getRequestBody());
+            String subject = exchange.getRequestURI().getPath().split("/")[2];
+            paths.add(exchange.getRequestURI().getPath());
+            requests.add(request);
+            byte[] response;
+            int status;
+            if (subject.startsWith("invalid")) {
+                status = 422;
+                response = "{\"error_code\":42201,\"message\":\"Invalid schema\"}".getBytes(StandardCharsets.UTF_8);
+            } else {
+                status = 200;
+                String schemaType = request.has("schemaType") ? request.get("schemaType").asText() : SchemaRegistry.AVRO;
+                response = ("{\"id\":" + registry.register(subject, schemaType, request.get("schema").asText()) + "}").getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRegister() throws IOException {
+        SchemaRegistry registry = SchemaRegistry.forUrl("http://localhost:1, " + url() + "/");
+
+        int id = registry.register("devices-value", SchemaRegistry.PROTOBUF, "syntax = \"proto3\"; message Device {}");
+        assertEquals(1, id);
+        assertEquals(1, registry.register("devices-value", SchemaRegistry.PROTOBUF, "syntax = \"proto3\"; message Device {}"));
+        assertEquals(2, registry.register("devices-value", SchemaRegistry.AVRO, "\"string\""));
+
+        assertEquals("/subjects/devices-value/versions", paths.get(0));
+        assertEquals("PROTOBUF", requests.get(0).get("schemaType").asText());
+        assertFalse(requests.get(2).has("schemaType"));
+    }
+
+    @Test
+    public void testRegisterFailure() {
+        SchemaRegistry registry = SchemaRegistry.forUrl(url());
+
+        IOException exception = assertThrows(IOException.class, () -> registry.register("invalid-value", SchemaRegistry.AVRO, "{"));
+        assertTrue(exception.getMessage().contains("Invalid schema"));
+    }
+
+    @Test
+    public void testMockUrl() throws IOException {
+        SchemaRegistry registry = SchemaRegistry.forUrl("mock://http-schema-registry-test");
+        try {
+            assertSame(registry, SchemaRegistry.forUrl("mock://http-schema-registry-test"));
+            assertEquals(1, registry.register("devices-value", SchemaRegistry.AVRO, "\"string\""));
+        } finally {
+            MockSchemaRegistry.dropScope("http-schema-registry-test");
+        }
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}